@@ -0,0 +1,92 @@
+package com.emission_impossible.carbon_modelling_tool.benchmarks;
+
+import com.emission_impossible.carbon_modelling_tool.util.CsvUtils;
+import com.emission_impossible.carbon_modelling_tool.util.ParallelCsvReader;
+import org.apache.commons.csv.CSVRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Reading an emissions CSV file (emissionType, location, date, amount) of
+ * the given row count, taking every field of every row.
+ *
+ * CsvUtils.stream reads the file on one thread. ParallelCsvReader is included
+ * for comparison: it reads chunks of the file on one thread per core.
+ *
+ * The file is written to the temp directory once per trial and deleted after.
+ * At 10M rows it is about 450 MB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class CsvReadBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.file = Files.createTempFile("emissions-benchmark-", ".csv");
+        new SyntheticEmissions().writeCsv(this.rows, this.file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.file);
+    }
+
+    @Benchmark
+    public void csvUtilsStream(Blackhole blackhole) {
+        try (Stream<CSVRecord> records = CsvUtils.stream(this.file)) {
+            records.forEach(record -> consume(blackhole, record));
+        }
+    }
+
+    @Benchmark
+    public void parallelCsvReader(Blackhole blackhole) {
+        // The Blackhole belongs to the benchmark thread, so the reader threads
+        // fold each chunk into a checksum instead
+        List<Long> checksums = ParallelCsvReader.read(this.file, (chunk, chunkRows) -> {
+            long checksum = 0;
+            while (chunkRows.hasNext()) {
+                CSVRecord record = chunkRows.next().record();
+                checksum += record.get("emissionType").length() + record.get("location").length()
+                        + record.get("date").length() + record.get("amount").length();
+            }
+            return checksum;
+        });
+
+        blackhole.consume(checksums);
+    }
+
+    private static void consume(Blackhole blackhole, CSVRecord record) {
+        blackhole.consume(record.get("emissionType"));
+        blackhole.consume(record.get("location"));
+        blackhole.consume(record.get("date"));
+        blackhole.consume(record.get("amount"));
+    }
+}
@@ -0,0 +1,73 @@
+package com.emission_impossible.carbon_modelling_tool.benchmarks;
+
+import com.emission_impossible.carbon_modelling_tool.service.EmissionsDataService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EmissionsDataService.getEmissionsSummaryByType for one location, against a
+ * database holding the given number of emissions records.
+ *
+ * Starts the application (without the web server) on an in-memory H2
+ * database filled by SyntheticDatabase. The summary reads the monthly rollup,
+ * which is rebuilt after loading. Loading 10M rows takes several minutes and
+ * most of the 8 GB heap.
+ *
+ * Each operation summarises the next location in turn, so one location's
+ * rows are not simply served from cache every time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class EmissionsSummaryBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private EmissionsDataService emissionsDataService;
+
+    private long[] locationIds;
+    private int nextLocation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = SyntheticDatabase.start(WebApplicationType.NONE);
+        this.emissionsDataService = this.context.getBean(EmissionsDataService.class);
+
+        this.locationIds = SyntheticDatabase.load(this.context, this.rows).locationIds();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public Map<?, ?> getEmissionsSummaryByType() {
+        long locationId = this.locationIds[this.nextLocation];
+        this.nextLocation = (this.nextLocation + 1) % this.locationIds.length;
+
+        return this.emissionsDataService.getEmissionsSummaryByType(locationId);
+    }
+}
@@ -0,0 +1,169 @@
+package com.emission_impossible.carbon_modelling_tool.benchmarks;
+
+import com.emission_impossible.carbon_modelling_tool.CarbonModellingToolApplication;
+import com.emission_impossible.carbon_modelling_tool.cache.ConversionRateMatrix;
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionReadingDTO;
+import com.emission_impossible.carbon_modelling_tool.model.Client;
+import com.emission_impossible.carbon_modelling_tool.model.ConversionRate;
+import com.emission_impossible.carbon_modelling_tool.model.EmissionType;
+import com.emission_impossible.carbon_modelling_tool.model.Location;
+import com.emission_impossible.carbon_modelling_tool.repository.ClientRepository;
+import com.emission_impossible.carbon_modelling_tool.repository.ConversionRateJdbcWriter;
+import com.emission_impossible.carbon_modelling_tool.repository.ConversionRateRepository;
+import com.emission_impossible.carbon_modelling_tool.repository.EmissionTypeRepository;
+import com.emission_impossible.carbon_modelling_tool.repository.EmissionsDataJdbcWriter;
+import com.emission_impossible.carbon_modelling_tool.repository.LocationRepository;
+import com.emission_impossible.carbon_modelling_tool.service.EmissionsRollupService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Runs the application on an in-memory H2 database filled with a
+ * SyntheticEmissions or SyntheticDataset dataset. Used by the benchmarks and
+ * the load test.
+ */
+public final class SyntheticDatabase {
+
+    private static final int LOAD_CHUNK = 100_000;
+
+    // Ids of the loaded rows
+    public record Loaded(long[] clientIds, long[] locationIds) {}
+
+    private SyntheticDatabase(){
+    }
+
+    // Start the application on H2. extraArgs are added to the command line.
+    //
+    // Settings are passed as command line arguments, so they win over
+    // application.properties. The test profile keeps the seeders from
+    // loading the seed CSV files.
+    public static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... extraArgs){
+        String[] args = Stream.concat(Stream.of(
+                        "--spring.datasource.url=jdbc:h2:mem:synthetic;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN"),
+                Stream.of(extraArgs)).toArray(String[]::new);
+
+        return new SpringApplicationBuilder(CarbonModellingToolApplication.class)
+                .web(webApplicationType)
+                .profiles("test")
+                .run(args);
+    }
+
+    // Save one client, the dataset's emission types and locations, their
+    // conversion rates and the given number of emissions records, then
+    // rebuild the monthly rollup.
+    //
+    // Emissions records are bulk-loaded through EmissionsDataJdbcWriter.
+    // 10M rows take several minutes and a few GB of heap.
+    public static Loaded load(ApplicationContext context, int rows){
+        SyntheticEmissions dataset = new SyntheticEmissions();
+
+        Client client = context.getBean(ClientRepository.class).save(new Client("Benchmark Client"));
+
+        List<EmissionType> emissionTypes = new ArrayList<>();
+        for (EmissionType type : dataset.getEmissionTypes()) {
+            emissionTypes.add(new EmissionType(type.getName(), type.getUnit(), type.getScope(), type.getDescription()));
+        }
+        List<EmissionType> savedTypes = context.getBean(EmissionTypeRepository.class).saveAll(emissionTypes);
+
+        List<Location> locations = new ArrayList<>();
+        for (Location location : dataset.getLocations()) {
+            locations.add(new Location(location.getName(), location.getRegion(), client));
+        }
+        List<Location> savedLocations = context.getBean(LocationRepository.class).saveAll(locations);
+
+        List<ConversionRate> rates = new ArrayList<>();
+        for (EmissionType type : savedTypes) {
+            for (Location location : savedLocations) {
+                for (int year = SyntheticEmissions.FIRST_YEAR; year < SyntheticEmissions.FIRST_YEAR + SyntheticEmissions.YEARS + 1; year++) {
+                    rates.add(new ConversionRate(year, SyntheticEmissions.rate(type.getId(), location.getId(), year), type.getUnit(), "Synthetic", type, location));
+                }
+            }
+        }
+        context.getBean(ConversionRateRepository.class).saveAll(rates);
+
+        EmissionsDataJdbcWriter writer = context.getBean(EmissionsDataJdbcWriter.class);
+        List<EmissionReadingDTO> chunk = new ArrayList<>(LOAD_CHUNK);
+
+        dataset.generate(rows, (emissionTypeIndex, locationIndex, date, amount) -> {
+            chunk.add(new EmissionReadingDTO(savedTypes.get(emissionTypeIndex).getId(), savedLocations.get(locationIndex).getId(), date, amount));
+            if (chunk.size() == LOAD_CHUNK) {
+                writer.insert(chunk);
+                chunk.clear();
+            }
+        });
+        writer.insert(chunk);
+
+        context.getBean(EmissionsRollupService.class).rebuild();
+
+        return new Loaded(new long[]{client.getId()}, savedLocations.stream().mapToLong(Location::getId).toArray());
+    }
+
+    // Bulk-load a SyntheticDataset: clients, locations and emission types
+    // through their repositories, conversion rates and readings through the
+    // JDBC writers in chunks, then rebuild the monthly rollup.
+    //
+    // Readings are streamed from the generator, so memory use does not grow
+    // with the dataset; the H2 database itself does. 100M readings need a
+    // heap of a few tens of GB, or a real database (see start's extraArgs).
+    public static Loaded load(ApplicationContext context, SyntheticDataset dataset){
+        List<Client> clients = new ArrayList<>();
+        dataset.clients((clientIndex, name) -> clients.add(new Client(name)));
+        List<Client> savedClients = context.getBean(ClientRepository.class).saveAll(clients);
+
+        List<Location> locations = new ArrayList<>();
+        dataset.locations((locationIndex, name, region, clientIndex) -> locations.add(new Location(name, region, savedClients.get(clientIndex))));
+        List<Location> savedLocations = context.getBean(LocationRepository.class).saveAll(locations);
+
+        List<EmissionType> emissionTypes = new ArrayList<>();
+        for (String[] type : SyntheticDataset.EMISSION_TYPES) {
+            emissionTypes.add(new EmissionType(type[0], type[1], type[2], type[3]));
+        }
+        List<EmissionType> savedTypes = context.getBean(EmissionTypeRepository.class).saveAll(emissionTypes);
+
+        ConversionRateJdbcWriter rateWriter = context.getBean(ConversionRateJdbcWriter.class);
+        List<ConversionRate> rates = new ArrayList<>(LOAD_CHUNK);
+
+        dataset.conversionRates((emissionTypeIndex, locationIndex, year, value) -> {
+            rates.add(new ConversionRate(year, value, SyntheticDataset.rateUnit(emissionTypeIndex), "Synthetic",
+                    savedTypes.get(emissionTypeIndex), savedLocations.get(locationIndex)));
+            if (rates.size() == LOAD_CHUNK) {
+                rateWriter.insert(rates);
+                rates.clear();
+            }
+        });
+        rateWriter.insert(rates);
+
+        // The matrix loaded (empty) when the application started
+        context.getBean(ConversionRateMatrix.class).load();
+
+        EmissionsDataJdbcWriter writer = context.getBean(EmissionsDataJdbcWriter.class);
+        List<EmissionReadingDTO> chunk = new ArrayList<>(LOAD_CHUNK);
+
+        dataset.readings((emissionTypeIndex, locationIndex, date, amount) -> {
+            chunk.add(new EmissionReadingDTO(savedTypes.get(emissionTypeIndex).getId(), savedLocations.get(locationIndex).getId(), date, amount));
+            if (chunk.size() == LOAD_CHUNK) {
+                writer.insert(chunk);
+                chunk.clear();
+            }
+        });
+        writer.insert(chunk);
+
+        context.getBean(EmissionsRollupService.class).rebuild();
+
+        return new Loaded(
+                savedClients.stream().mapToLong(Client::getId).toArray(),
+                savedLocations.stream().mapToLong(Location::getId).toArray());
+    }
+}
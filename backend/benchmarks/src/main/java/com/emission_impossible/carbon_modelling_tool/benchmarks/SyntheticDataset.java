@@ -0,0 +1,355 @@
+package com.emission_impossible.carbon_modelling_tool.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Large synthetic datasets: many clients, each with its own sites, and daily
+ * readings over several years.
+ *
+ * The same seed and Scale always give the same data. Every location draws
+ * from its own random streams, so a location's data does not depend on how
+ * many other locations there are.
+ *
+ * - Clients differ in size: a few have hundreds of sites, most have a handful
+ * - Each location reports electricity, plus each other emission type with its
+ *   own probability (about three types per location on average)
+ * - Each reported type has one reading per day. Readings follow a per-site
+ *   base level, a seasonal curve (heating peaks in winter), a weekend dip and
+ *   day-to-day noise
+ * - Conversion rates exist for every reported type, location and year, vary
+ *   by region, and electricity's fall each year as the grid decarbonises
+ *
+ * So 20,000 locations over 5 years is about 110M readings. readingCount()
+ * gives the exact number without generating them.
+ *
+ * The data can be written as the seeders' CSV files (writeCsv, or run main)
+ * or bulk-loaded straight into a running application
+ * (SyntheticDatabase.load(context, dataset)).
+ */
+public final class SyntheticDataset {
+
+    // Size of a dataset. Readings cover 1 January firstYear to 31 December
+    // of firstYear + years - 1; conversion rates also cover the year after.
+    public record Scale(int clients, int locations, int firstYear, int years) {
+
+        public Scale {
+            if (clients < 1 || locations < clients || years < 1) {
+                throw new IllegalArgumentException(String.format(
+                        "Need at least one client, one location per client and one year, got %d clients, %d locations, %d years",
+                        clients, locations, years));
+            }
+        }
+    }
+
+    // name, unit, scope, description
+    static final String[][] EMISSION_TYPES = {
+            {"Electricity", "kWh", "Scope 2", "Purchased grid electricity"},
+            {"Natural Gas", "m³", "Scope 1", "Gas burned on site for heating"},
+            {"Diesel", "litres", "Scope 1", "Generators and company vehicles"},
+            {"Business Travel", "km", "Scope 3", "Employee travel by air and rail"},
+            {"Waste", "kg", "Scope 3", "General waste sent to landfill"}
+    };
+
+    // Per emission type, in EMISSION_TYPES order:
+    // chance a location reports it
+    private static final double[] REPORTED = {1.0, 0.7, 0.3, 0.6, 0.5};
+    // typical daily amount
+    private static final double[] DAILY_AMOUNT = {1_200, 150, 40, 800, 90};
+    // seasonal swing: 0.6 means +60% in midwinter and -60% in midsummer
+    private static final double[] SEASONAL = {0.15, 0.6, 0.05, 0.1, 0.0};
+    // weekend level compared to a weekday
+    private static final double[] WEEKEND = {0.55, 0.7, 0.4, 0.1, 0.5};
+    // kgCO2e per unit in the first year
+    private static final double[] FACTOR = {0.233, 2.02, 2.68, 0.15, 0.45};
+
+    // name, conversion factor multiplier (grid mix and so on)
+    static final String[][] REGIONS = {
+            {"UK", "1.0"},
+            {"EU", "0.85"},
+            {"US", "1.6"},
+            {"APAC", "2.1"}
+    };
+
+    // Electricity conversion factors fall this much each year
+    private static final double GRID_DECARBONISATION = 0.04;
+
+    // Separate random streams per location
+    private static final long PROFILE_STREAM = 1;
+    private static final long READINGS_STREAM = 2;
+
+    private final long seed;
+    private final Scale scale;
+
+    private final LocalDate[] dates;
+
+    // Per location
+    private final int[] clientOf;
+    private final int[] regionOf;
+    private final boolean[][] reports;
+    private final double[][] baseAmount;
+
+    public SyntheticDataset(long seed, Scale scale){
+        this.seed = seed;
+        this.scale = scale;
+
+        LocalDate start = LocalDate.of(scale.firstYear(), 1, 1);
+        int days = (int) ChronoUnit.DAYS.between(start, start.plusYears(scale.years()));
+        this.dates = new LocalDate[days];
+        for (int day = 0; day < days; day++) {
+            this.dates[day] = start.plusDays(day);
+        }
+
+        int locations = scale.locations();
+        this.clientOf = new int[locations];
+        this.regionOf = new int[locations];
+        this.reports = new boolean[locations][EMISSION_TYPES.length];
+        this.baseAmount = new double[locations][EMISSION_TYPES.length];
+
+        for (int location = 0; location < locations; location++) {
+            SplittableRandom random = random(PROFILE_STREAM, location);
+
+            // The first location of each client guarantees every client has
+            // one. The rest favour low-numbered clients (u² is skewed towards
+            // 0), which gives a few very large clients and a long tail.
+            double u = random.nextDouble();
+            this.clientOf[location] = location < scale.clients() ? location : (int) (u * u * scale.clients());
+
+            this.regionOf[location] = random.nextInt(REGIONS.length);
+
+            // Site size: a log-normal multiplier, so most sites are near the
+            // typical amount and a few are ten times bigger
+            double size = Math.exp(random.nextGaussian() * 0.7);
+
+            for (int type = 0; type < EMISSION_TYPES.length; type++) {
+                this.reports[location][type] = random.nextDouble() < REPORTED[type];
+                this.baseAmount[location][type] = DAILY_AMOUNT[type] * size * Math.exp(random.nextGaussian() * 0.3);
+            }
+        }
+    }
+
+    public Scale getScale() { return this.scale; }
+
+    // One callback per generated row. Indexes are 0-based, into
+    // EMISSION_TYPES, the clients and the locations.
+    @FunctionalInterface
+    public interface ClientConsumer {
+        void accept(int clientIndex, String name);
+    }
+
+    @FunctionalInterface
+    public interface LocationConsumer {
+        void accept(int locationIndex, String name, String region, int clientIndex);
+    }
+
+    @FunctionalInterface
+    public interface RateConsumer {
+        void accept(int emissionTypeIndex, int locationIndex, int year, double value);
+    }
+
+    @FunctionalInterface
+    public interface ReadingConsumer {
+        void accept(int emissionTypeIndex, int locationIndex, LocalDate date, double amount);
+    }
+
+    public void clients(ClientConsumer consumer){
+        for (int client = 0; client < this.scale.clients(); client++) {
+            consumer.accept(client, clientName(client));
+        }
+    }
+
+    public void locations(LocationConsumer consumer){
+        for (int location = 0; location < this.scale.locations(); location++) {
+            consumer.accept(location, locationName(location), REGIONS[this.regionOf[location]][0], this.clientOf[location]);
+        }
+    }
+
+    public void conversionRates(RateConsumer consumer){
+        for (int location = 0; location < this.scale.locations(); location++) {
+            double regionFactor = Double.parseDouble(REGIONS[this.regionOf[location]][1]);
+
+            for (int type = 0; type < EMISSION_TYPES.length; type++) {
+                if (!this.reports[location][type]) {
+                    continue;
+                }
+
+                for (int year = 0; year <= this.scale.years(); year++) {
+                    double value = FACTOR[type] * regionFactor;
+                    if (type == 0) {
+                        value *= Math.pow(1 - GRID_DECARBONISATION, year);
+                    }
+                    consumer.accept(type, location, this.scale.firstYear() + year, round(value, 4));
+                }
+            }
+        }
+    }
+
+    // Readings in location, then emission type, then date order
+    public void readings(ReadingConsumer consumer){
+        for (int location = 0; location < this.scale.locations(); location++) {
+            SplittableRandom random = random(READINGS_STREAM, location);
+
+            for (int type = 0; type < EMISSION_TYPES.length; type++) {
+                if (!this.reports[location][type]) {
+                    continue;
+                }
+
+                double base = this.baseAmount[location][type];
+
+                for (LocalDate date : this.dates) {
+                    // cos peaks on 15 January and bottoms out mid-July
+                    double season = 1 + SEASONAL[type] * Math.cos(2 * Math.PI * (date.getDayOfYear() - 15) / 365.0);
+                    double weekday = isWeekend(date) ? WEEKEND[type] : 1.0;
+                    double noise = Math.max(0.05, 1 + random.nextGaussian() * 0.15);
+
+                    consumer.accept(type, location, date, round(base * season * weekday * noise, 2));
+                }
+            }
+        }
+    }
+
+    public long readingCount(){
+        long series = 0;
+        for (boolean[] locationReports : this.reports) {
+            for (boolean reported : locationReports) {
+                if (reported) {
+                    series++;
+                }
+            }
+        }
+        return series * this.dates.length;
+    }
+
+    public long conversionRateCount(){
+        return readingCount() / this.dates.length * (this.scale.years() + 1);
+    }
+
+    // Writes clients.csv, locations.csv, emission_types.csv,
+    // conversion_rates.csv and emissions_data.csv to the directory, in the
+    // format the seeders read from src/main/resources/seed-data
+    public void writeCsv(Path directory) throws IOException {
+        Files.createDirectories(directory);
+
+        try (Writer writer = open(directory.resolve("clients.csv"))) {
+            writer.write("name\n");
+            clients((client, name) -> line(writer, name));
+        }
+
+        try (Writer writer = open(directory.resolve("locations.csv"))) {
+            writer.write("name,region,clientName\n");
+            locations((location, name, region, client) -> line(writer, name, region, clientName(client)));
+        }
+
+        try (Writer writer = open(directory.resolve("emission_types.csv"))) {
+            writer.write("name,unit,scope,description\n");
+            for (String[] type : EMISSION_TYPES) {
+                line(writer, type);
+            }
+        }
+
+        try (Writer writer = open(directory.resolve("conversion_rates.csv"))) {
+            writer.write("emissionType,location,year,value,unit,description\n");
+            conversionRates((type, location, year, value) -> line(writer,
+                    EMISSION_TYPES[type][0], locationName(location), Integer.toString(year), Double.toString(value), rateUnit(type), "Synthetic"));
+        }
+
+        try (Writer writer = open(directory.resolve("emissions_data.csv"))) {
+            writer.write("emissionType,location,date,amount\n");
+            readings((type, location, date, amount) -> line(writer,
+                    EMISSION_TYPES[type][0], locationName(location), date.toString(), Double.toString(amount)));
+        }
+    }
+
+    // Generate CSV files, e.g. to seed a local database at scale:
+    //
+    //   java -cp target/benchmarks.jar com.emission_impossible.carbon_modelling_tool.benchmarks.SyntheticDataset \
+    //       --out=../src/main/resources/seed-data --clients=2000 --locations=20000 --years=5
+    //
+    // Options (defaults in brackets): --out [synthetic-data], --clients [2000],
+    // --locations [20000], --first-year [2020], --years [5], --seed [42]
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException(String.format("Expected --name=value, got '%s'", arg));
+            }
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+
+        Path out = Path.of(options.getOrDefault("out", "synthetic-data"));
+        Scale scale = new Scale(
+                Integer.parseInt(options.getOrDefault("clients", "2000")),
+                Integer.parseInt(options.getOrDefault("locations", "20000")),
+                Integer.parseInt(options.getOrDefault("first-year", "2020")),
+                Integer.parseInt(options.getOrDefault("years", "5")));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+        SyntheticDataset dataset = new SyntheticDataset(seed, scale);
+        System.out.printf("Writing %,d conversion rates and %,d emissions readings to %s...%n",
+                dataset.conversionRateCount(), dataset.readingCount(), out.toAbsolutePath());
+
+        long start = System.nanoTime();
+        dataset.writeCsv(out);
+        System.out.printf("Done in %d s.%n", (System.nanoTime() - start) / 1_000_000_000);
+    }
+
+    public static String clientName(int index){
+        return String.format("Client %05d", index + 1);
+    }
+
+    public static String locationName(int index){
+        return String.format("Site %06d", index + 1);
+    }
+
+    static String rateUnit(int emissionTypeIndex){
+        return "kgCO2e/" + EMISSION_TYPES[emissionTypeIndex][1];
+    }
+
+    // A random stream for one location. The stream number sits above any
+    // location index, so no two streams share a seed; SplittableRandom mixes
+    // the seed, so neighbouring seeds still give unrelated numbers.
+    private SplittableRandom random(long stream, int location){
+        return new SplittableRandom(this.seed + (stream << 40) + location);
+    }
+
+    private static boolean isWeekend(LocalDate date){
+        DayOfWeek day = date.getDayOfWeek();
+        return day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY;
+    }
+
+    private static double round(double value, int places){
+        double scale = Math.pow(10, places);
+        return Math.round(value * scale) / scale;
+    }
+
+    private static Writer open(Path file) throws IOException {
+        return new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    // None of the generated values contain commas or quotes, so no escaping
+    private static void line(Writer writer, String... values){
+        try {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(values[i]);
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.emission_impossible.carbon_modelling_tool.benchmarks;
+
+import com.emission_impossible.carbon_modelling_tool.model.Client;
+import com.emission_impossible.carbon_modelling_tool.model.EmissionType;
+import com.emission_impossible.carbon_modelling_tool.model.EmissionsData;
+import com.emission_impossible.carbon_modelling_tool.model.Location;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic emissions datasets for the benchmarks.
+ *
+ * The same row count always gives the same data (fixed random seed), so
+ * results from different runs and branches are comparable.
+ *
+ * Rows are spread over LOCATIONS locations, the EMISSION_TYPES types and
+ * YEARS years of daily readings.
+ */
+public final class SyntheticEmissions {
+
+    public static final long SEED = 42L;
+
+    public static final int LOCATIONS = 200;
+    public static final int FIRST_YEAR = 2020;
+    public static final int YEARS = 5;
+
+    // name, unit, scope
+    static final String[][] EMISSION_TYPES = {
+            {"Electricity", "kWh", "Scope 2"},
+            {"Natural Gas", "m³", "Scope 1"},
+            {"Diesel", "litres", "Scope 1"},
+            {"Business Travel", "km", "Scope 3"},
+            {"Waste", "kg", "Scope 3"}
+    };
+
+    private static final int DAYS = YEARS * 365;
+
+    private final List<EmissionType> emissionTypes = new ArrayList<>();
+    private final List<Location> locations = new ArrayList<>();
+
+    // Ids are assigned here: the entities are not saved
+    public SyntheticEmissions(){
+        Client client = new Client("Benchmark Client");
+        client.setId(1L);
+
+        for (int i = 0; i < EMISSION_TYPES.length; i++) {
+            EmissionType type = new EmissionType(EMISSION_TYPES[i][0], EMISSION_TYPES[i][1], EMISSION_TYPES[i][2], "Synthetic");
+            type.setId((long) i + 1);
+            this.emissionTypes.add(type);
+        }
+
+        for (int i = 0; i < LOCATIONS; i++) {
+            Location location = new Location(locationName(i), i % 2 == 0 ? "EU" : "UK", client);
+            location.setId((long) i + 1);
+            this.locations.add(location);
+        }
+    }
+
+    public List<EmissionType> getEmissionTypes() { return this.emissionTypes; }
+
+    public List<Location> getLocations() { return this.locations; }
+
+    // Conversion rate for a type, location and year: fixed per combination
+    public static double rate(long emissionTypeId, long locationId, int year){
+        return 0.1 + ((emissionTypeId * 31 + locationId * 17 + year) % 100) / 100.0;
+    }
+
+    // One generated row: indexes into getEmissionTypes() and getLocations()
+    @FunctionalInterface
+    public interface RowConsumer {
+        void accept(int emissionTypeIndex, int locationIndex, LocalDate date, double amount);
+    }
+
+    // Generate the rows in order. Dates are shared LocalDate instances,
+    // so keeping 10M rows in memory takes a few hundred MB, not GBs.
+    public void generate(int rows, RowConsumer consumer){
+        SplittableRandom random = new SplittableRandom(SEED);
+        LocalDate start = LocalDate.of(FIRST_YEAR, 1, 1);
+
+        LocalDate[] dates = new LocalDate[DAYS];
+        for (int day = 0; day < DAYS; day++) {
+            dates[day] = start.plusDays(day);
+        }
+
+        for (int i = 0; i < rows; i++) {
+            consumer.accept(
+                    random.nextInt(this.emissionTypes.size()),
+                    random.nextInt(LOCATIONS),
+                    dates[random.nextInt(DAYS)],
+                    random.nextDouble(1.0, 1000.0));
+        }
+    }
+
+    // In-memory entities, e.g. for mapToDTO
+    public EmissionsData[] entities(int rows){
+        EmissionsData[] data = new EmissionsData[rows];
+        int[] next = {0};
+
+        generate(rows, (emissionTypeIndex, locationIndex, date, amount) -> {
+            EmissionsData row = new EmissionsData(date, amount, this.emissionTypes.get(emissionTypeIndex), this.locations.get(locationIndex));
+            row.setId((long) next[0] + 1);
+            data[next[0]++] = row;
+        });
+
+        return data;
+    }
+
+    // The same rows as an emissions CSV (emissionType, location, date, amount),
+    // the format read by EmissionsDataSeeder and the CSV import
+    public void writeCsv(int rows, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("emissionType,location,date,amount\n");
+
+            generate(rows, (emissionTypeIndex, locationIndex, date, amount) -> {
+                try {
+                    writer.write(this.emissionTypes.get(emissionTypeIndex).getName());
+                    writer.write(',');
+                    writer.write(this.locations.get(locationIndex).getName());
+                    writer.write(',');
+                    writer.write(date.toString());
+                    writer.write(',');
+                    writer.write(Double.toString(amount));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    static String locationName(int index){
+        return "Location " + (index + 1);
+    }
+}
@@ -0,0 +1,59 @@
+package com.emission_impossible.carbon_modelling_tool.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Request latencies for one endpoint, in nanoseconds.
+ *
+ * Every sample is kept (8 bytes each), so percentiles are exact. Not thread
+ * safe: each virtual user records into its own instances, which are merged
+ * once the run is over.
+ */
+final class LatencySamples {
+
+    private long[] samples = new long[1024];
+    private int size;
+    private boolean sorted = true;
+    private long errors;
+
+    void record(long nanos){
+        if (this.size == this.samples.length) {
+            this.samples = Arrays.copyOf(this.samples, this.size * 2);
+        }
+        this.samples[this.size++] = nanos;
+        this.sorted = false;
+    }
+
+    void recordError(){
+        this.errors++;
+    }
+
+    void addAll(LatencySamples other){
+        if (this.size + other.size > this.samples.length) {
+            this.samples = Arrays.copyOf(this.samples, Math.max(this.samples.length * 2, this.size + other.size));
+        }
+        System.arraycopy(other.samples, 0, this.samples, this.size, other.size);
+        this.size += other.size;
+        this.sorted = false;
+        this.errors += other.errors;
+    }
+
+    int count() { return this.size; }
+
+    long errors() { return this.errors; }
+
+    // percentile is 0-100, e.g. 99.9
+    long percentile(double percentile){
+        if (this.size == 0) {
+            return 0;
+        }
+
+        if (!this.sorted) {
+            Arrays.sort(this.samples, 0, this.size);
+            this.sorted = true;
+        }
+
+        int index = (int) Math.ceil(percentile / 100.0 * this.size) - 1;
+        return this.samples[Math.max(0, Math.min(index, this.size - 1))];
+    }
+}
@@ -0,0 +1,349 @@
+package com.emission_impossible.carbon_modelling_tool.loadtest;
+
+import com.emission_impossible.carbon_modelling_tool.benchmarks.SyntheticDatabase;
+import com.emission_impossible.carbon_modelling_tool.benchmarks.SyntheticDataset;
+import com.emission_impossible.carbon_modelling_tool.model.User;
+import com.emission_impossible.carbon_modelling_tool.repository.UserRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * HTTP load test against the backend, all in one process.
+ *
+ * Starts CarbonModellingToolApplication on an in-memory H2 database filled with
+ * a SyntheticDataset (many clients and sites, daily readings), creates one
+ * account per virtual user, then has the virtual users drive the API over
+ * localhost:
+ *
+ * - POST /auth/signin, once at the start and then every --signin-every requests
+ * - GET /api/get-authenticated-user
+ * - GET /api/emissions/locations/{id}, /api/emissions/clients/{id} and
+ *   /api/emissions?start=...&end=...&locationId=... (first page of 100)
+ *
+ * Each virtual user is a closed loop: send a request, wait for the response,
+ * wait --think-time, repeat. Latency is measured from sending to the end of the
+ * response body. Results from the --warmup period are discarded. At the end the
+ * request count, errors, throughput and p50/p99/p99.9/max latency are printed per
+ * endpoint.
+ *
+ * Run from backend/benchmarks after ../mvnw package:
+ *
+ *   java -Xmx8g -cp target/benchmarks.jar com.emission_impossible.carbon_modelling_tool.loadtest.LoadTest \
+ *       --locations=2000 --users=100 --duration=60s --warmup=15s --think-time=10ms
+ *
+ * Options (defaults in brackets): --clients [100], --locations [1000],
+ * --years [2], --seed [42], --users [50], --duration [60s], --warmup [15s],
+ * --think-time [0ms], --signin-every [0: only at the start].
+ * Durations take ms, s or m. The defaults load about 2M readings.
+ *
+ * --virtual-threads [false] runs the backend with spring.threads.virtual.enabled
+ * set to the given value; "both" runs the test twice, on platform threads and
+ * then on virtual threads, for a side by side comparison. --pool-size [10] sets
+ * the connection pool size. For example, 2,000 dashboard users:
+ *
+ *   java -Xmx8g -cp target/benchmarks.jar com.emission_impossible.carbon_modelling_tool.loadtest.LoadTest \
+ *       --users=2000 --think-time=100ms --virtual-threads=both
+ *
+ * On platform threads Tomcat serves at most 200 requests at once (its default
+ * pool) and the rest queue for a thread; on virtual threads every request gets
+ * a thread and they queue for a database connection instead.
+ *
+ * Nothing leaves the machine: the server listens on a random local port.
+ */
+public class LoadTest {
+
+    private static final String PASSWORD = "password";
+
+    private static final Pattern JWT = Pattern.compile("\"jwt\"\\s*:\\s*\"([^\"]+)\"");
+
+    private static final String SIGNIN = "POST /auth/signin";
+    private static final String AUTHENTICATED_USER = "GET /api/get-authenticated-user";
+    private static final String BY_LOCATION = "GET /api/emissions/locations/{id}";
+    private static final String BY_CLIENT = "GET /api/emissions/clients/{id}";
+    private static final String BY_DATE_RANGE = "GET /api/emissions?start&end&locationId";
+
+    private static final Duration SIGNIN_RETRY = Duration.ofMillis(100);
+
+    private static final List<String> READS = List.of(AUTHENTICATED_USER, BY_LOCATION, BY_CLIENT, BY_DATE_RANGE);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final String baseUrl;
+    private final SyntheticDatabase.Loaded dataset;
+    private final int firstYear;
+
+    private final Duration thinkTime;
+    private final int signinEvery;
+
+    private LoadTest(String baseUrl, SyntheticDatabase.Loaded dataset, int firstYear, Duration thinkTime, int signinEvery){
+        this.baseUrl = baseUrl;
+        this.dataset = dataset;
+        this.firstYear = firstYear;
+        this.thinkTime = thinkTime;
+        this.signinEvery = signinEvery;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+
+        SyntheticDataset.Scale scale = new SyntheticDataset.Scale(
+                Integer.parseInt(options.getOrDefault("clients", "100")),
+                Integer.parseInt(options.getOrDefault("locations", "1000")),
+                2020,
+                Integer.parseInt(options.getOrDefault("years", "2")));
+        SyntheticDataset synthetic = new SyntheticDataset(Long.parseLong(options.getOrDefault("seed", "42")), scale);
+        int users = Integer.parseInt(options.getOrDefault("users", "50"));
+        Duration duration = parseDuration(options.getOrDefault("duration", "60s"));
+        Duration warmup = parseDuration(options.getOrDefault("warmup", "15s"));
+        Duration thinkTime = parseDuration(options.getOrDefault("think-time", "0ms"));
+        int signinEvery = Integer.parseInt(options.getOrDefault("signin-every", "0"));
+        int poolSize = Integer.parseInt(options.getOrDefault("pool-size", "10"));
+
+        String virtualThreads = options.getOrDefault("virtual-threads", "false");
+        List<Boolean> modes = switch (virtualThreads) {
+            case "false" -> List.of(false);
+            case "true" -> List.of(true);
+            case "both" -> List.of(false, true);
+            default -> throw new IllegalArgumentException(String.format("--virtual-threads must be true, false or both, got '%s'", virtualThreads));
+        };
+
+        for (boolean virtual : modes) {
+            System.out.printf("%nStarting the backend on %s threads and loading %,d emissions records...%n",
+                    virtual ? "virtual" : "platform", synthetic.readingCount());
+
+            runAgainstBackend(synthetic, virtual, poolSize, users, warmup, duration, thinkTime, signinEvery);
+        }
+    }
+
+    private static void runAgainstBackend(SyntheticDataset synthetic, boolean virtualThreads, int poolSize, int users,
+                                          Duration warmup, Duration duration, Duration thinkTime, int signinEvery) throws Exception {
+        // Every user signs in at once at the start: queue their password checks rather than refuse them
+        try (ConfigurableApplicationContext context = SyntheticDatabase.start(WebApplicationType.SERVLET,
+                "--server.port=0", "--management.server.port=-1",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "--security.password.queue-capacity=" + Math.max(100, users))) {
+
+            long loadStart = System.nanoTime();
+            SyntheticDatabase.Loaded dataset = SyntheticDatabase.load(context, synthetic);
+            createAccounts(context, users);
+            System.out.printf("Loaded in %d s.%n", (System.nanoTime() - loadStart) / 1_000_000_000);
+
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            LoadTest loadTest = new LoadTest(baseUrl, dataset, synthetic.getScale().firstYear(), thinkTime, signinEvery);
+
+            System.out.printf("Running %d virtual users for %s after a %s warmup (think time %s).%n",
+                    users, duration, warmup, thinkTime);
+
+            Map<String, LatencySamples> results = loadTest.run(users, warmup, duration);
+            report(results, duration);
+        }
+    }
+
+    // All accounts share a password, so it is only hashed once
+    private static void createAccounts(ConfigurableApplicationContext context, int users){
+        String encoded = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+
+        List<User> accounts = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            accounts.add(new User("Load Test User " + i, email(i), encoded));
+        }
+        context.getBean(UserRepository.class).saveAll(accounts);
+    }
+
+    private static String email(int user){
+        return "user" + user + "@loadtest.local";
+    }
+
+    private Map<String, LatencySamples> run(int users, Duration warmup, Duration duration) throws Exception {
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long stopAt = measureFrom + duration.toNanos();
+
+        List<Future<Map<String, LatencySamples>>> virtualUsers = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < users; i++) {
+                int user = i;
+                virtualUsers.add(executor.submit(() -> virtualUser(user, measureFrom, stopAt)));
+            }
+
+            Map<String, LatencySamples> merged = new LinkedHashMap<>();
+            for (String endpoint : List.of(SIGNIN, AUTHENTICATED_USER, BY_LOCATION, BY_CLIENT, BY_DATE_RANGE)) {
+                merged.put(endpoint, new LatencySamples());
+            }
+
+            for (Future<Map<String, LatencySamples>> virtualUser : virtualUsers) {
+                virtualUser.get().forEach((endpoint, samples) -> merged.get(endpoint).addAll(samples));
+            }
+            return merged;
+        }
+    }
+
+    private Map<String, LatencySamples> virtualUser(int user, long measureFrom, long stopAt) throws InterruptedException {
+        Map<String, LatencySamples> samples = new HashMap<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        String token = null;
+        long requests = 0;
+
+        while (System.nanoTime() < stopAt) {
+            boolean measuring = System.nanoTime() >= measureFrom;
+
+            if (token == null || (this.signinEvery > 0 && requests % this.signinEvery == 0 && requests > 0)) {
+                HttpResponse<String> response = send(SIGNIN, signin(user), measuring, samples);
+                token = response != null && response.statusCode() == 200 ? jwt(response.body()) : null;
+
+                // Back off before trying again, even with no think time
+                if (token == null) {
+                    Thread.sleep(SIGNIN_RETRY);
+                    continue;
+                }
+            }
+
+            String endpoint = READS.get((int) (requests % READS.size()));
+            send(endpoint, read(endpoint, token, random), measuring, samples);
+            requests++;
+
+            pause();
+        }
+
+        return samples;
+    }
+
+    // Returns null if the request failed to complete
+    private HttpResponse<String> send(String endpoint, HttpRequest request, boolean measuring, Map<String, LatencySamples> samples){
+        LatencySamples endpointSamples = samples.computeIfAbsent(endpoint, key -> new LatencySamples());
+        long start = System.nanoTime();
+
+        try {
+            HttpResponse<String> response = this.client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            if (measuring) {
+                if (response.statusCode() == 200) {
+                    endpointSamples.record(System.nanoTime() - start);
+                } else {
+                    endpointSamples.recordError();
+                }
+            }
+            return response;
+        } catch (Exception e) {
+            if (measuring) {
+                endpointSamples.recordError();
+            }
+            return null;
+        }
+    }
+
+    private HttpRequest signin(int user){
+        String body = "{\"email\":\"" + email(user) + "\",\"password\":\"" + PASSWORD + "\"}";
+
+        return HttpRequest.newBuilder(URI.create(this.baseUrl + "/auth/signin"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest read(String endpoint, String token, ThreadLocalRandom random){
+        long[] locationIds = this.dataset.locationIds();
+        long locationId = locationIds[random.nextInt(locationIds.length)];
+        long[] clientIds = this.dataset.clientIds();
+        long clientId = clientIds[random.nextInt(clientIds.length)];
+
+        String path = switch (endpoint) {
+            case AUTHENTICATED_USER -> "/api/get-authenticated-user";
+            case BY_LOCATION -> "/api/emissions/locations/" + locationId + "?size=100";
+            case BY_CLIENT -> "/api/emissions/clients/" + clientId + "?size=100";
+            case BY_DATE_RANGE -> "/api/emissions?start=" + this.firstYear + "-01-01&end=" + this.firstYear + "-12-31&locationId=" + locationId + "&size=100";
+            default -> throw new IllegalArgumentException(endpoint);
+        };
+
+        return HttpRequest.newBuilder(URI.create(this.baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    private void pause() throws InterruptedException {
+        if (!this.thinkTime.isZero()) {
+            Thread.sleep(this.thinkTime);
+        }
+    }
+
+    private static String jwt(String body){
+        Matcher matcher = JWT.matcher(body);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static void report(Map<String, LatencySamples> results, Duration duration){
+        double seconds = duration.toNanos() / 1_000_000_000.0;
+
+        System.out.println();
+        System.out.printf("%-42s %10s %8s %10s %9s %9s %9s %9s%n",
+                "Endpoint", "Requests", "Errors", "Req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        LatencySamples total = new LatencySamples();
+        results.forEach((endpoint, samples) -> {
+            print(endpoint, samples, seconds);
+            total.addAll(samples);
+        });
+        print("Total", total, seconds);
+    }
+
+    private static void print(String endpoint, LatencySamples samples, double seconds){
+        System.out.printf("%-42s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                endpoint,
+                samples.count(),
+                samples.errors(),
+                samples.count() / seconds,
+                samples.percentile(50) / 1_000_000.0,
+                samples.percentile(99) / 1_000_000.0,
+                samples.percentile(99.9) / 1_000_000.0,
+                samples.percentile(100) / 1_000_000.0);
+    }
+
+    private static Map<String, String> parseOptions(String[] args){
+        Map<String, String> options = new HashMap<>();
+
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException(String.format("Expected --name=value, got '%s'", arg));
+            }
+            int equals = arg.indexOf('=');
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    private static Duration parseDuration(String value){
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        throw new IllegalArgumentException(String.format("Invalid duration '%s': use ms, s or m", value));
+    }
+}
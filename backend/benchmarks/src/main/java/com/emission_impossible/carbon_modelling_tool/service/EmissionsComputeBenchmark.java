@@ -0,0 +1,86 @@
+package com.emission_impossible.carbon_modelling_tool.service;
+
+import com.emission_impossible.carbon_modelling_tool.analytics.EmissionsColumnStore;
+import com.emission_impossible.carbon_modelling_tool.benchmarks.SyntheticEmissions;
+import com.emission_impossible.carbon_modelling_tool.cache.ConversionRateMatrix;
+import com.emission_impossible.carbon_modelling_tool.model.EmissionType;
+import com.emission_impossible.carbon_modelling_tool.model.EmissionsData;
+import com.emission_impossible.carbon_modelling_tool.model.Location;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EmissionsDataService.mapToDTO and calculateCO2e over every row of an
+ * in-memory dataset.
+ *
+ * One operation is one pass over all rows: divide the score (and
+ * gc.alloc.rate.norm) by the row count for per-row figures.
+ *
+ * Lives in the service package because mapToDTO is package-private. The
+ * service is built without Spring: neither method touches the repositories,
+ * and every conversion rate is already in the matrix.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class EmissionsComputeBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private EmissionsDataService emissionsDataService;
+
+    private EmissionsData[] data;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticEmissions dataset = new SyntheticEmissions();
+
+        ConversionRateMatrix matrix = new ConversionRateMatrix(null);
+        for (EmissionType type : dataset.getEmissionTypes()) {
+            for (Location location : dataset.getLocations()) {
+                for (int year = SyntheticEmissions.FIRST_YEAR; year < SyntheticEmissions.FIRST_YEAR + SyntheticEmissions.YEARS + 1; year++) {
+                    matrix.updateRate(type.getId(), location.getId(), year, SyntheticEmissions.rate(type.getId(), location.getId(), year));
+                }
+            }
+        }
+
+        this.emissionsDataService = new EmissionsDataService(null, null, null, matrix, null, null, null,
+                new DefaultListableBeanFactory().getBeanProvider(EmissionsColumnStore.class),
+                null, new SimpleMeterRegistry());
+
+        this.data = dataset.entities(this.rows);
+    }
+
+    @Benchmark
+    public void calculateCO2e(Blackhole blackhole) {
+        for (EmissionsData row : this.data) {
+            blackhole.consume(this.emissionsDataService.calculateCO2e(row));
+        }
+    }
+
+    @Benchmark
+    public void mapToDTO(Blackhole blackhole) {
+        for (EmissionsData row : this.data) {
+            blackhole.consume(this.emissionsDataService.mapToDTO(row));
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.emission_impossible.carbon_modelling_tool.SecurityConfig;
 
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.Customizer;
@@ -23,7 +25,7 @@ public class ApplicationConfig {
     @Bean
     // Intercepts each and every HTTP requests such that
         // this code is executed before every HTTP request.
-    SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    SecurityFilterChain filterChain(HttpSecurity http, JwtTokenValidator jwtTokenValidator) throws Exception {
         http
 
 
@@ -60,7 +62,7 @@ public class ApplicationConfig {
                              */
                         authorize -> authorize.requestMatchers("/api/**")
                                 .authenticated().anyRequest().permitAll())
-                .addFilterBefore(new JwtTokenValidator(), BasicAuthenticationFilter.class)
+                .addFilterBefore(jwtTokenValidator, BasicAuthenticationFilter.class)
                 .csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()));
         //.httpBasic(Customizer.withDefaults())
@@ -69,6 +71,22 @@ public class ApplicationConfig {
     }
 
 
+    // A bean so its cache and metrics live as long as the application
+    @Bean
+    JwtTokenValidator jwtTokenValidator(@Value("${security.jwt.cache.max-size:10000}") int cacheMaxSize, TokenRevocationService tokenRevocationService) {
+        return new JwtTokenValidator(new JwtTokenCache(cacheMaxSize), tokenRevocationService);
+    }
+
+    // Filter beans are also registered as servlet filters by default.
+    // The validator should only run inside the SecurityFilterChain above.
+    @Bean
+    FilterRegistrationBean<JwtTokenValidator> jwtTokenValidatorRegistration(JwtTokenValidator jwtTokenValidator) {
+        FilterRegistrationBean<JwtTokenValidator> registration = new FilterRegistrationBean<>(jwtTokenValidator);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+
     // Prevent Cross-Origin Resource Sharing (CORS) error when HTTP
     // requests are made from frontend. To that end, allow requests
     // from localhost 5173: localhost uses port 5173
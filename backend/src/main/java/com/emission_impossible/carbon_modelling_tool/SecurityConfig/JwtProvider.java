@@ -1,8 +1,11 @@
 package com.emission_impossible.carbon_modelling_tool.SecurityConfig;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 
@@ -16,21 +19,35 @@ import java.util.Set;
  * Generates JWT token
  */
 public class JwtProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtProvider.class);
+
     static SecretKey key = Keys.hmacShaKeyFor(JwtConstant.SECRET_KEY.getBytes());
 
+    // Tokens are valid for 24 hours
+    static final long TOKEN_LIFETIME_MILLIS = 86400000;
+
+    // Parsers are immutable and thread safe, so build one and reuse it
+    static final JwtParser parser = Jwts.parser().verifyWith(key).build();
+
     // Takes authenticated user session. Returns json web token as string value
+    //
+    // If the principal is a JwtUser, their full name is carried as a claim so
+    // /api/get-authenticated-user can answer without a database lookup.
     public static String generateToken(Authentication auth) {
         Collection<? extends GrantedAuthority> authorities = auth.getAuthorities();
         String roles = populateAuthorities(authorities);
+        String fullName = auth.getPrincipal() instanceof JwtUser user ? user.fullName() : null;
         @SuppressWarnings("deprecation")
         String jwt = Jwts.builder()
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(new Date().getTime()+86400000))
+                .setExpiration(new Date(new Date().getTime()+TOKEN_LIFETIME_MILLIS))
                 .claim("email", auth.getName())
                 .claim( "authorities",roles)
+                .claim("fullName", fullName)
                 .signWith(key)
                 .compact();
-        System.out.println("Token for parsing in JwtProvider: " + jwt);
+        log.debug("Token generated for {}", auth.getName());
         return jwt;
 
     }
@@ -44,18 +61,16 @@ public class JwtProvider {
     }
 
 
-    @SuppressWarnings("deprecation")
     public static String getEmailFromJwtToken(String jwt) {
         jwt = jwt.substring(7); // Assuming "Bearer " is removed from the token
         try {
             //Claims claims=Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(jwt).getBody();
-            Claims claims = Jwts.parser().setSigningKey(key).build().parseClaimsJws(jwt).getBody();
+            Claims claims = parser.parseSignedClaims(jwt).getPayload();
             String email = String.valueOf(claims.get("email"));
-            System.out.println("Email extracted from JWT: " + claims);
+            log.debug("Email extracted from JWT: {}", email);
             return email;
         } catch (Exception e) {
-            System.err.println("Error extracting email from JWT: " + e.getMessage());
-            e.printStackTrace();
+            log.warn("Error extracting email from JWT: {}", e.getMessage(), e);
             return null;
         }
     }
@@ -0,0 +1,103 @@
+package com.emission_impossible.carbon_modelling_tool.SecurityConfig;
+
+import org.springframework.security.core.Authentication;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tokens that have already been verified, so repeat requests with the same
+ * token skip signature checking and JSON parsing.
+ *
+ * <p>Entries are keyed by the SHA-256 digest of the token (the token itself is
+ * never stored) and are dropped once the token expires. The cache holds at
+ * most {@code maxSize} tokens; when full, an arbitrary entry makes room.</p>
+ */
+public class JwtTokenCache {
+
+    private final int maxSize;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private record Entry(Authentication authentication, long expiresAtMillis) {}
+
+    public JwtTokenCache(int maxSize){
+        this.maxSize = maxSize;
+    }
+
+    // The authentication for a token digest, or null if it is not cached or has expired
+    public Authentication get(String digest){
+        Entry entry = this.entries.get(digest);
+
+        if (entry == null) {
+            this.misses.increment();
+            return null;
+        }
+
+        if (entry.expiresAtMillis() <= System.currentTimeMillis()) {
+            this.entries.remove(digest, entry);
+            this.misses.increment();
+            return null;
+        }
+
+        this.hits.increment();
+        return entry.authentication();
+    }
+
+    public void put(String digest, Authentication authentication, long expiresAtMillis){
+        if (this.maxSize <= 0 || expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+
+        if (this.entries.size() >= this.maxSize) {
+            Iterator<String> keys = this.entries.keySet().iterator();
+            if (keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+
+        this.entries.put(digest, new Entry(authentication, expiresAtMillis));
+    }
+
+    public void invalidate(String digest){
+        this.entries.remove(digest);
+    }
+
+    public void clear(){
+        this.entries.clear();
+    }
+
+    public int size() { return this.entries.size(); }
+
+    public long getHits() { return this.hits.sum(); }
+
+    public long getMisses() { return this.misses.sum(); }
+
+    // Share of lookups served from the cache, from 0 to 1
+    public double getHitRate() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    // SHA-256 of the token, base64url encoded
+    public static String digest(String token){
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // Every JVM must support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package com.emission_impossible.carbon_modelling_tool.SecurityConfig;
 
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -16,9 +21,10 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 
-import javax.crypto.SecretKey;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Enforce that all requests to /api/** have JWT token in request header.
@@ -26,35 +32,139 @@ import java.util.List;
  * Instantiated, therefore, in 'ApplicationConfig', used in the SecurityFilterChain:
  *
  * SecurityFilterChain intercepts all HTTP requests, executing before all HTTP requests
+ *
+ * Verified tokens are kept in a JwtTokenCache until they expire, so the
+ * dashboard's repeat requests skip signature checking and parsing.
+ * Revoked tokens (see TokenRevocationService) are rejected.
+ *
+ * As a MeterBinder, its timings and cache counters are published with the other
+ * metrics (security.jwt.filter, security.jwt.cache.*).
  */
-public class JwtTokenValidator extends OncePerRequestFilter {
+public class JwtTokenValidator extends OncePerRequestFilter implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtTokenValidator.class);
+
+    private final JwtTokenCache tokenCache;
+
+    // Null when revocation is not checked (e.g. in unit tests)
+    private final TokenRevocationService tokenRevocationService;
+
+    // Time spent in this filter, excluding the rest of the chain
+    private final LongAdder filterCount = new LongAdder();
+    private final LongAdder filterNanos = new LongAdder();
+
+    // Set once metrics are bound. Null until then (e.g. in unit tests).
+    private volatile Timer filterTimer;
+
+    public JwtTokenValidator(JwtTokenCache tokenCache, TokenRevocationService tokenRevocationService){
+        this.tokenCache = tokenCache;
+        this.tokenRevocationService = tokenRevocationService;
+    }
+
+    // Without revocation checks
+    public JwtTokenValidator(JwtTokenCache tokenCache){
+        this(tokenCache, null);
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
-        String jwt = request.getHeader(JwtConstant.JWT_HEADER);
-        System.out.println("JWT Token in JwtTokenValidator: " + jwt);
-        if (jwt != null && jwt.startsWith("Bearer ")) {
-            jwt = jwt.substring(7);
-
-            System.out.println("JWT Token in JwtTokenValidator: " + jwt);
-            try {
-                SecretKey key = Keys.hmacShaKeyFor(JwtConstant.SECRET_KEY.getBytes());
-                @SuppressWarnings("deprecation")
-                Claims claims = Jwts.parser().setSigningKey(key).build().parseClaimsJws(jwt).getBody();
-                System.out.print(claims);
-
-                String email = String.valueOf(claims.get("email"));
-                System.out.print(email);
-                String authorities = String.valueOf(claims.get("authorities"));
-                List<GrantedAuthority> auth = AuthorityUtils.commaSeparatedStringToAuthorityList(authorities);
-                Authentication authentication = new UsernamePasswordAuthenticationToken(email, null, auth);
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-
-            } catch (Exception e) {
-                throw new BadCredentialsException("Invalid token", e);
+        long start = System.nanoTime();
+
+        try {
+            String jwt = request.getHeader(JwtConstant.JWT_HEADER);
+            if (jwt != null && jwt.startsWith("Bearer ")) {
+                jwt = jwt.substring(7);
+
+                SecurityContextHolder.getContext().setAuthentication(authenticate(jwt));
+            }
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            this.filterCount.increment();
+            this.filterNanos.add(elapsed);
+
+            Timer timer = this.filterTimer;
+            if (timer != null) {
+                timer.record(elapsed, TimeUnit.NANOSECONDS);
             }
         }
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private Authentication authenticate(String jwt){
+        String digest = JwtTokenCache.digest(jwt);
+
+        // Checked before the cache, so a revoked token stops working at once.
+        // Usually answered by the in-memory Bloom filter alone.
+        if (this.tokenRevocationService != null && this.tokenRevocationService.isRevoked(digest)) {
+            throw new BadCredentialsException("Token has been revoked");
+        }
+
+        Authentication cached = this.tokenCache.get(digest);
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            // Reuses the parser built once in JwtProvider
+            Claims claims = JwtProvider.parser.parseSignedClaims(jwt).getPayload();
+
+            String email = String.valueOf(claims.get("email"));
+            log.debug("JWT verified for {}", email);
+            String fullName = claims.get("fullName", String.class);
+            String authorities = String.valueOf(claims.get("authorities"));
+            List<GrantedAuthority> auth = AuthorityUtils.commaSeparatedStringToAuthorityList(authorities);
+            Authentication authentication = new UsernamePasswordAuthenticationToken(new JwtUser(email, fullName), null, auth);
+
+            if (claims.getExpiration() != null) {
+                this.tokenCache.put(digest, authentication, claims.getExpiration().getTime());
+            }
+
+            return authentication;
+
+        } catch (Exception e) {
+            throw new BadCredentialsException("Invalid token", e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.filterTimer = Timer.builder("security.jwt.filter")
+                .description("Time spent validating the JWT, excluding the rest of the filter chain")
+                .publishPercentileHistogram()
+                .register(registry);
+
+        FunctionCounter.builder("security.jwt.cache.lookups", this.tokenCache, JwtTokenCache::getHits)
+                .description("Token cache lookups")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("security.jwt.cache.lookups", this.tokenCache, JwtTokenCache::getMisses)
+                .description("Token cache lookups")
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("security.jwt.cache.size", this.tokenCache, JwtTokenCache::size)
+                .description("Verified tokens held in the cache")
+                .register(registry);
+
+        if (this.tokenRevocationService != null) {
+            FunctionCounter.builder("security.jwt.revocation.checks", this.tokenRevocationService, TokenRevocationService::getChecks)
+                    .description("Revocation checks")
+                    .register(registry);
+            FunctionCounter.builder("security.jwt.revocation.exact.lookups", this.tokenRevocationService, TokenRevocationService::getExactLookups)
+                    .description("Revocation checks that went to the database")
+                    .register(registry);
+        }
+    }
+
+    public JwtTokenCache getTokenCache() { return this.tokenCache; }
+
+    public long getFilterCount() { return this.filterCount.sum(); }
+
+    public long getFilterNanos() { return this.filterNanos.sum(); }
+
+    // Mean time spent in this filter per request, in nanoseconds
+    public double getAverageFilterNanos() {
+        long count = getFilterCount();
+        return count == 0 ? 0.0 : (double) getFilterNanos() / count;
+    }
+}
@@ -0,0 +1,19 @@
+package com.emission_impossible.carbon_modelling_tool.SecurityConfig;
+
+import java.security.Principal;
+
+/**
+ * The signed in user, as described by the claims of their JWT.
+ *
+ * Used as the principal of requests authenticated by JwtTokenValidator, so
+ * handlers can read the user's profile without querying the users table.
+ * fullName is null for tokens issued before it became a claim.
+ */
+public record JwtUser(String email, String fullName) implements Principal {
+
+    // authentication.getName() stays the email address
+    @Override
+    public String getName() {
+        return this.email;
+    }
+}
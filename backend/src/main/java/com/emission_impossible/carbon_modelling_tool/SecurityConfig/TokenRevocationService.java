@@ -0,0 +1,204 @@
+package com.emission_impossible.carbon_modelling_tool.SecurityConfig;
+
+import com.emission_impossible.carbon_modelling_tool.model.RevokedToken;
+import com.emission_impossible.carbon_modelling_tool.repository.RevokedTokenRepository;
+import com.emission_impossible.carbon_modelling_tool.util.BloomFilter;
+import io.jsonwebtoken.Claims;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Revoked JWTs, checked on every /api request by JwtTokenValidator.
+ *
+ * <p>The revoked_tokens table is the source of truth. In front of it sits an
+ * in-memory Bloom filter of every revoked token digest: a token the filter has
+ * never seen is certainly not revoked, so almost every request is answered
+ * without a query. Only possible matches (revoked tokens, plus about
+ * {@code security.revocation.false-positive-rate} of the rest) are checked
+ * against the table.</p>
+ *
+ * <p>Other instances revoke tokens too, so the filter is brought up to date
+ * with every row revoked since the last sync, at most every
+ * {@code security.revocation.sync-interval}. A filter that has not been synced
+ * within that interval is not trusted: until the next sync succeeds, every
+ * check goes to the table. A token revoked on another instance may therefore
+ * still be accepted here for up to one sync interval.</p>
+ *
+ * <p>The filter only grows; it is rebuilt from the table, minus expired
+ * tokens, at startup.</p>
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    // How far back each sync looks before the previous one started: covers
+    // revocations committed late and clocks that differ between instances
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private final long expectedTokens;
+
+    private final double falsePositiveRate;
+
+    private final long syncIntervalNanos;
+
+    private volatile BloomFilter bloomFilter;
+
+    // Until the filter is loaded, every check goes to the table
+    private volatile boolean loaded = false;
+
+    // When the last load or sync started (System.nanoTime), and the revoked_at
+    // it read from: the filter holds every row revoked before then
+    private volatile long syncedAtNanos;
+    private volatile Instant syncedUpTo;
+
+    private final AtomicBoolean syncing = new AtomicBoolean();
+
+    // Guards swapping the filter. Digests added while load() builds a new
+    // filter are also kept here, and added to the new one before the swap.
+    private final Object filterLock = new Object();
+    private Set<String> addedDuringLoad;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder exactLookups = new LongAdder();
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  @Value("${security.revocation.expected-tokens:100000}") long expectedTokens,
+                                  @Value("${security.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+                                  @Value("${security.revocation.sync-interval:5s}") Duration syncInterval){
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedTokens = expectedTokens;
+        this.falsePositiveRate = falsePositiveRate;
+        this.syncIntervalNanos = syncInterval.toNanos();
+        this.bloomFilter = new BloomFilter(expectedTokens, falsePositiveRate);
+    }
+
+    // Drop expired rows and rebuild the filter from what is left
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void load(){
+        long startedNanos = System.nanoTime();
+        Instant startedAt = Instant.now();
+
+        synchronized (this.filterLock) {
+            this.addedDuringLoad = new HashSet<>();
+        }
+
+        List<String> digests;
+        try {
+            this.revokedTokenRepository.deleteExpired(startedAt);
+
+            digests = this.revokedTokenRepository.findAllTokenDigests();
+
+            BloomFilter filter = new BloomFilter(Math.max(this.expectedTokens, digests.size() * 2L), this.falsePositiveRate);
+            digests.forEach(filter::put);
+
+            synchronized (this.filterLock) {
+                this.addedDuringLoad.forEach(filter::put);
+                this.bloomFilter = filter;
+            }
+        } finally {
+            synchronized (this.filterLock) {
+                this.addedDuringLoad = null;
+            }
+        }
+
+        this.syncedUpTo = startedAt;
+        this.syncedAtNanos = startedNanos;
+        this.loaded = true;
+
+        log.info("Token revocation filter loaded with {} revoked tokens.", digests.size());
+    }
+
+    // Revoke a token (without its "Bearer " prefix). Invalid tokens are rejected.
+    @Transactional
+    public void revoke(String token){
+        Claims claims = JwtProvider.parser.parseSignedClaims(token).getPayload();
+        String digest = JwtTokenCache.digest(token);
+
+        if (!this.revokedTokenRepository.existsByTokenDigest(digest)) {
+            Instant expiresAt = claims.getExpiration() != null
+                    ? claims.getExpiration().toInstant()
+                    : Instant.now().plusMillis(JwtProvider.TOKEN_LIFETIME_MILLIS);
+
+            this.revokedTokenRepository.save(new RevokedToken(digest, expiresAt, Instant.now()));
+        }
+
+        // Added straight away: if the transaction rolls back, the worst case
+        // is one extra exact lookup for this token
+        add(digest);
+    }
+
+    // Whether the token with this digest (see JwtTokenCache.digest) has been revoked
+    public boolean isRevoked(String digest){
+        this.checks.increment();
+
+        if (this.loaded && isStale()) {
+            syncIfIdle();
+        }
+
+        if (this.loaded && !isStale() && !this.bloomFilter.mightContain(digest)) {
+            return false;
+        }
+
+        this.exactLookups.increment();
+        return this.revokedTokenRepository.existsByTokenDigest(digest);
+    }
+
+    private boolean isStale(){
+        return System.nanoTime() - this.syncedAtNanos > this.syncIntervalNanos;
+    }
+
+    // Add rows revoked since the last sync, on this thread, unless another
+    // thread is already doing so. Checks on other threads meanwhile go to the
+    // table.
+    private void syncIfIdle(){
+        if (!this.syncing.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            long startedNanos = System.nanoTime();
+            Instant startedAt = Instant.now();
+
+            this.revokedTokenRepository.findTokenDigestsRevokedSince(this.syncedUpTo.minus(SYNC_OVERLAP)).forEach(this::add);
+
+            this.syncedUpTo = startedAt;
+            this.syncedAtNanos = startedNanos;
+        } catch (RuntimeException e) {
+            // Still stale, so checks keep going to the table; retried on the next one
+            log.warn("Could not sync the token revocation filter.", e);
+        } finally {
+            this.syncing.set(false);
+        }
+    }
+
+    private void add(String digest){
+        synchronized (this.filterLock) {
+            this.bloomFilter.put(digest);
+            if (this.addedDuringLoad != null) {
+                this.addedDuringLoad.add(digest);
+            }
+        }
+    }
+
+    public long getChecks() { return this.checks.sum(); }
+
+    // Checks that had to query revoked_tokens
+    public long getExactLookups() { return this.exactLookups.sum(); }
+}
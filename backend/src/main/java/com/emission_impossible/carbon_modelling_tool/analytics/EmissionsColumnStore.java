@@ -0,0 +1,295 @@
+package com.emission_impossible.carbon_modelling_tool.analytics;
+
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionsFact;
+import com.emission_impossible.carbon_modelling_tool.repository.EmissionsDataRepository;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Optional in-memory copy of emissions_data, held as primitive column arrays.
+ *
+ * <p>Each record is one index across the columns: epoch day, value, conversion
+ * rate (already joined), and dictionary-coded location, emission type and scope.
+ * Dashboard aggregates (date range x locations x scope) are then a single loop
+ * over the arrays, with no entities or DTOs created.</p>
+ *
+ * <p>Only created when {@code analytics.columnar.enabled=true}.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "analytics.columnar.enabled", havingValue = "true")
+public class EmissionsColumnStore {
+
+    private static final Logger log = LoggerFactory.getLogger(EmissionsColumnStore.class);
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final EmissionsDataRepository emissionsDataRepository;
+
+    // Guards the columns and dictionaries. Queries share the read lock.
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Columns columns = new Columns(INITIAL_CAPACITY);
+
+    private volatile boolean loaded = false;
+
+    // Set while load() reads the database. Changes committed meanwhile are
+    // applied to the current columns and also kept here, to be replayed onto
+    // the loaded columns before they replace the current ones.
+    private List<Consumer<Columns>> changesDuringLoad;
+
+    public EmissionsColumnStore(EmissionsDataRepository emissionsDataRepository){
+        this.emissionsDataRepository = emissionsDataRepository;
+    }
+
+    // Replace the columns with every record currently in the database.
+    // Streams flat rows (EmissionsFact), so no entities are materialised.
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void load(){
+        Columns loadedColumns = new Columns(INITIAL_CAPACITY);
+
+        this.lock.writeLock().lock();
+        try {
+            this.changesDuringLoad = new ArrayList<>();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+
+        try {
+            try (Stream<EmissionsFact> facts = this.emissionsDataRepository.streamFacts()) {
+                facts.forEach(loadedColumns::append);
+            }
+
+            this.lock.writeLock().lock();
+            try {
+                // The read may or may not have seen these: rate changes are
+                // safe to apply twice, and an append is only seen twice if its
+                // commit landed just before the read started
+                this.changesDuringLoad.forEach(change -> change.accept(loadedColumns));
+                this.columns = loadedColumns;
+                this.loaded = true;
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+        } finally {
+            this.lock.writeLock().lock();
+            try {
+                this.changesDuringLoad = null;
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+        }
+
+        log.info("Emissions column store loaded with {} records.", loadedColumns.size);
+    }
+
+    public boolean isLoaded() { return this.loaded; }
+
+    public int size() {
+        this.lock.readLock().lock();
+        try {
+            return this.columns.size;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    // Add a newly inserted record. Inside a transaction the record is only
+    // added once that transaction commits.
+    public void append(EmissionsFact fact){
+        afterCommit(() -> apply(columns -> columns.append(fact)));
+    }
+
+    // Apply a changed conversion rate to every record it covers
+    public void updateRate(Long emissionTypeId, Long locationId, int year, double rate){
+        afterCommit(() -> apply(columns -> columns.updateRate(emissionTypeId, locationId, year, rate)));
+    }
+
+    private void apply(Consumer<Columns> change){
+        this.lock.writeLock().lock();
+        try {
+            change.accept(this.columns);
+            if (this.changesDuringLoad != null) {
+                this.changesDuringLoad.add(change);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Total CO2e for records dated between {@code start} and {@code end} (inclusive).
+     *
+     * @param locationIds locations to include, or null for all locations
+     * @param scope       scope to include (e.g. "Scope 2"), or null for all scopes
+     */
+    public double sumCO2e(LocalDate start, LocalDate end, Collection<Long> locationIds, String scope){
+        this.lock.readLock().lock();
+        try {
+            return this.columns.sumCO2e((int) start.toEpochDay(), (int) end.toEpochDay(), locationIds, scope);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private static void afterCommit(Runnable action){
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // The column arrays and their dictionaries. Not thread safe on its own:
+    // EmissionsColumnStore guards it with its lock.
+    private static final class Columns {
+
+        private int size;
+
+        private int[] epochDay;
+        private double[] value;
+        private double[] rate;
+        private int[] locationIndex;
+        private int[] emissionTypeIndex;
+        private int[] scopeIndex;
+
+        // Dictionaries: id (or scope name) <-> small dense index
+        private final Map<Long, Integer> locationIndexById = new HashMap<>();
+        private final List<Long> locationIds = new ArrayList<>();
+        private final Map<Long, Integer> emissionTypeIndexById = new HashMap<>();
+        private final List<Long> emissionTypeIds = new ArrayList<>();
+        private final Map<String, Integer> scopeIndexByName = new HashMap<>();
+
+        Columns(int capacity){
+            this.epochDay = new int[capacity];
+            this.value = new double[capacity];
+            this.rate = new double[capacity];
+            this.locationIndex = new int[capacity];
+            this.emissionTypeIndex = new int[capacity];
+            this.scopeIndex = new int[capacity];
+        }
+
+        void append(EmissionsFact fact){
+            if (this.size == this.epochDay.length) {
+                grow();
+            }
+
+            int i = this.size;
+            this.epochDay[i] = (int) fact.date().toEpochDay();
+            this.value[i] = fact.value();
+            this.rate[i] = fact.rate();
+            this.locationIndex[i] = encode(fact.locationId(), this.locationIndexById, this.locationIds);
+            this.emissionTypeIndex[i] = encode(fact.emissionTypeId(), this.emissionTypeIndexById, this.emissionTypeIds);
+            this.scopeIndex[i] = this.scopeIndexByName.computeIfAbsent(fact.scope(), key -> this.scopeIndexByName.size());
+            this.size++;
+        }
+
+        void updateRate(Long emissionTypeId, Long locationId, int year, double newRate){
+            Integer type = this.emissionTypeIndexById.get(emissionTypeId);
+            Integer location = this.locationIndexById.get(locationId);
+
+            if (type == null || location == null) {
+                return;
+            }
+
+            int from = (int) LocalDate.of(year, 1, 1).toEpochDay();
+            int to = (int) LocalDate.of(year, 12, 31).toEpochDay();
+
+            for (int i = 0; i < this.size; i++) {
+                if (this.emissionTypeIndex[i] == type && this.locationIndex[i] == location
+                        && this.epochDay[i] >= from && this.epochDay[i] <= to) {
+                    this.rate[i] = newRate;
+                }
+            }
+        }
+
+        double sumCO2e(int from, int to, Collection<Long> locationIdsToInclude, String scope){
+            // Turn the filters into dictionary terms once, outside the loop
+            boolean[] includeLocation = new boolean[this.locationIds.size()];
+            if (locationIdsToInclude == null) {
+                Arrays.fill(includeLocation, true);
+            } else {
+                for (Long locationId : locationIdsToInclude) {
+                    Integer index = this.locationIndexById.get(locationId);
+                    if (index != null) {
+                        includeLocation[index] = true;
+                    }
+                }
+            }
+
+            int scopeToInclude = -1;
+            if (scope != null) {
+                Integer index = this.scopeIndexByName.get(scope);
+                if (index == null) {
+                    return 0.0;
+                }
+                scopeToInclude = index;
+            }
+
+            // Hot loop: primitive arrays only, no allocation, no branches on the
+            // accumulation so the JIT can keep it tight.
+            int[] epochDay = this.epochDay;
+            double[] value = this.value;
+            double[] rate = this.rate;
+            int[] locationIndex = this.locationIndex;
+            int[] scopeIndex = this.scopeIndex;
+            boolean anyScope = scopeToInclude < 0;
+
+            double total = 0.0;
+            for (int i = 0; i < this.size; i++) {
+                int day = epochDay[i];
+                boolean match = day >= from && day <= to
+                        && includeLocation[locationIndex[i]]
+                        && (anyScope || scopeIndex[i] == scopeToInclude);
+                total += match ? value[i] * rate[i] : 0.0;
+            }
+
+            return total;
+        }
+
+        private void grow(){
+            int capacity = this.epochDay.length * 2;
+            this.epochDay = Arrays.copyOf(this.epochDay, capacity);
+            this.value = Arrays.copyOf(this.value, capacity);
+            this.rate = Arrays.copyOf(this.rate, capacity);
+            this.locationIndex = Arrays.copyOf(this.locationIndex, capacity);
+            this.emissionTypeIndex = Arrays.copyOf(this.emissionTypeIndex, capacity);
+            this.scopeIndex = Arrays.copyOf(this.scopeIndex, capacity);
+        }
+
+        private static int encode(Long id, Map<Long, Integer> indexById, List<Long> ids){
+            Integer index = indexById.get(id);
+            if (index == null) {
+                index = ids.size();
+                indexById.put(id, index);
+                ids.add(id);
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.emission_impossible.carbon_modelling_tool.cache;
+
+import com.emission_impossible.carbon_modelling_tool.dto.ConversionRateEntry;
+import com.emission_impossible.carbon_modelling_tool.model.ConversionRate;
+import com.emission_impossible.carbon_modelling_tool.repository.ConversionRateRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory matrix of conversion rates, indexed by (emissionTypeId, locationId, year).
+ *
+ * <p>Loaded once the application is ready (i.e. after the seeders have run) so that
+ * CO2e can be calculated without a SELECT per emissions record. A rate that is not
+ * in the matrix yet is read through from the database and added to it.</p>
+ *
+ * <p>Rates are held in a RateTable: primitive long keys and double values, with
+ * lock-free reads. A read-through that started before a rate was updated is not
+ * cached, so it cannot overwrite the updated rate with the one it read.</p>
+ *
+ * <p>Hit and miss counters are kept so the hit rate can be checked in production.
+ * They are published as conversion.rates.lookups (tagged hit or miss).</p>
+ */
+@Component
+public class ConversionRateMatrix implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversionRateMatrix.class);
+
+    // The three parts of the key are packed into a single long:
+    //   | emission type id (21 bits) | location id (28 bits) | year (14 bits) |
+    // Ids outside these ranges are not cached and always go to the database.
+    private static final int YEAR_BITS = 14;
+    private static final int LOCATION_BITS = 28;
+    private static final int EMISSION_TYPE_BITS = 63 - LOCATION_BITS - YEAR_BITS;
+
+    private static final long NO_KEY = -1L;
+
+    private final ConversionRateRepository conversionRateRepository;
+
+    private final RateTable rates = new RateTable(1024);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ConversionRateMatrix(ConversionRateRepository conversionRateRepository){
+        this.conversionRateRepository = conversionRateRepository;
+    }
+
+    // Load every conversion rate with a single query.
+    @EventListener(ApplicationReadyEvent.class)
+    public void load(){
+        // Taken before reading, as in findRate: if any rate is updated
+        // meanwhile, none of the (possibly older) values read here are cached,
+        // and each is read through on first use instead
+        long generation = this.rates.generation();
+
+        List<ConversionRateEntry> entries = this.conversionRateRepository.findAllEntries();
+
+        for (ConversionRateEntry entry : entries) {
+            long key = key(entry.emissionTypeId(), entry.locationId(), entry.year());
+            if (key != NO_KEY) {
+                this.rates.putIfGeneration(key, entry.rate(), generation);
+            }
+        }
+
+        log.info("Conversion rate matrix loaded with {} rates.", this.rates.size());
+    }
+
+    // Returns the rate for the given emission type, location and year.
+    // Throws if no such rate exists, matching ConversionRateService.getRate.
+    public double getRate(Long emissionTypeId, Long locationId, int year){
+        return findRate(emissionTypeId, locationId, year)
+                .orElseThrow(() -> new RuntimeException(String.format("No conversion rate found for emission type %d at location %d for year %d", emissionTypeId, locationId, year)));
+    }
+
+    // As getRate, but empty if no such rate exists. Database failures are
+    // still thrown.
+    public OptionalDouble findRate(Long emissionTypeId, Long locationId, int year){
+        long key = key(emissionTypeId, locationId, year);
+
+        if (key != NO_KEY) {
+            double rate = this.rates.get(key);
+            if (!Double.isNaN(rate)) {
+                this.hits.increment();
+                return OptionalDouble.of(rate);
+            }
+        }
+
+        this.misses.increment();
+
+        // Taken before reading, so an update committed meanwhile stops this
+        // (possibly older) rate from being cached
+        long generation = this.rates.generation();
+
+        Optional<ConversionRate> conversionRate = this.conversionRateRepository.findByEmissionTypeIdAndLocationIdAndYear(emissionTypeId, locationId, year);
+        if (conversionRate.isEmpty()) {
+            return OptionalDouble.empty();
+        }
+
+        if (key != NO_KEY) {
+            this.rates.putIfGeneration(key, conversionRate.get().getRate(), generation);
+        }
+
+        return OptionalDouble.of(conversionRate.get().getRate());
+    }
+
+    // Called by ConversionRateService when a rate is created or updated.
+    //
+    // The old entry is dropped straight away, so reads inside the updating
+    // transaction go to the database. The new rate is only put in the matrix
+    // once the transaction commits; on rollback the entry stays dropped.
+    // Both steps invalidate read-throughs in flight (see getRate).
+    public void updateRate(Long emissionTypeId, Long locationId, int year, double rate){
+        long key = key(emissionTypeId, locationId, year);
+
+        if (key == NO_KEY) {
+            return;
+        }
+
+        this.rates.invalidate(key, Double.NaN);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.rates.invalidate(key, rate);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                rates.invalidate(key, status == STATUS_COMMITTED ? rate : Double.NaN);
+            }
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("conversion.rates.lookups", this, ConversionRateMatrix::getHits)
+                .description("Conversion rate lookups")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("conversion.rates.lookups", this, ConversionRateMatrix::getMisses)
+                .description("Conversion rate lookups")
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("conversion.rates.size", this, ConversionRateMatrix::size)
+                .description("Conversion rates held in memory")
+                .register(registry);
+    }
+
+    public long getHits() { return this.hits.sum(); }
+
+    public long getMisses() { return this.misses.sum(); }
+
+    public int size() { return this.rates.size(); }
+
+    private static long key(Long emissionTypeId, Long locationId, int year){
+        if (emissionTypeId == null || locationId == null
+                || emissionTypeId < 0 || emissionTypeId >= (1L << EMISSION_TYPE_BITS)
+                || locationId < 0 || locationId >= (1L << LOCATION_BITS)
+                || year < 0 || year >= (1 << YEAR_BITS)) {
+            return NO_KEY;
+        }
+
+        return (emissionTypeId << (LOCATION_BITS + YEAR_BITS)) | (locationId << YEAR_BITS) | year;
+    }
+}
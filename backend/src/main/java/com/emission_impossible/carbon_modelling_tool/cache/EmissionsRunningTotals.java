@@ -0,0 +1,151 @@
+package com.emission_impossible.carbon_modelling_tool.cache;
+
+import com.emission_impossible.carbon_modelling_tool.dto.LocationCO2eTotal;
+import com.emission_impossible.carbon_modelling_tool.repository.EmissionsMonthlyRollupRepository;
+import com.emission_impossible.carbon_modelling_tool.repository.LocationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Running CO2e totals per location, per client and per emission type, kept in
+ * memory so the dashboard totals are a map lookup instead of a query.
+ *
+ * <p>Loaded from the monthly rollup once the application is ready, then kept
+ * up to date by EmissionsRollupService: every change to the rollup (new
+ * records, conversion rate changes, rebuilds) is applied here once its
+ * transaction commits. Each total is a DoubleAdder, so concurrent inserts for
+ * the same location do not contend on a single value.</p>
+ *
+ * <p>Inside a transaction, callers should read the rollup instead (see
+ * isAvailable): these totals only include committed changes.</p>
+ *
+ * <p>A record committed while a reload is running may be missed until the next
+ * reload. Reloads only follow a full rollup rebuild.</p>
+ */
+@Component
+public class EmissionsRunningTotals {
+
+    private static final Logger log = LoggerFactory.getLogger(EmissionsRunningTotals.class);
+
+    private final EmissionsMonthlyRollupRepository rollupRepository;
+
+    private final LocationRepository locationRepository;
+
+    // Replaced as a whole on reload; null until the first load
+    private volatile Totals totals;
+
+    // Client of each location seen so far. Locations do not change client.
+    private final Map<Long, Long> clientOfLocation = new ConcurrentHashMap<>();
+
+    private record Totals(Map<Long, DoubleAdder> byLocation, Map<Long, DoubleAdder> byClient, Map<Long, DoubleAdder> byEmissionType) {
+
+        Totals() {
+            this(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        }
+
+        void add(Long emissionTypeId, Long locationId, Long clientId, double co2e) {
+            this.byLocation.computeIfAbsent(locationId, id -> new DoubleAdder()).add(co2e);
+            this.byClient.computeIfAbsent(clientId, id -> new DoubleAdder()).add(co2e);
+            this.byEmissionType.computeIfAbsent(emissionTypeId, id -> new DoubleAdder()).add(co2e);
+        }
+    }
+
+    public EmissionsRunningTotals(EmissionsMonthlyRollupRepository rollupRepository, LocationRepository locationRepository){
+        this.rollupRepository = rollupRepository;
+        this.locationRepository = locationRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load(){
+        Totals loaded = read();
+        this.totals = loaded;
+
+        log.info("Running CO2e totals loaded for {} locations and {} clients.", loaded.byLocation().size(), loaded.byClient().size());
+    }
+
+    // Called after the rollup has been rebuilt. The totals are read now, in
+    // the rebuilding transaction, and replace the current ones once it commits.
+    public void reloadAfterCommit(){
+        Totals loaded = read();
+        afterCommit(() -> this.totals = loaded);
+    }
+
+    // Sum the rollup into fresh totals with a single query
+    private Totals read(){
+        Totals loaded = new Totals();
+
+        for (LocationCO2eTotal total : this.rollupRepository.sumCO2eByLocationAndEmissionType()) {
+            this.clientOfLocation.put(total.getLocationId(), total.getClientId());
+            loaded.add(total.getEmissionTypeId(), total.getLocationId(), total.getClientId(), total.getTotalCO2e());
+        }
+        return loaded;
+    }
+
+    // Add CO2e for a location and emission type (negative to take it away).
+    // Called by EmissionsRollupService in the transaction that changes the
+    // rollup; the totals change when it commits.
+    public void add(Long emissionTypeId, Long locationId, double co2e){
+        // Looked up now, in the caller's transaction, the first time a location is seen
+        Long clientId = this.clientOfLocation.get(locationId);
+        if (clientId == null) {
+            clientId = this.locationRepository.findClientIdById(locationId)
+                    .orElseThrow(() -> new RuntimeException(String.format("Location %d not found", locationId)));
+            this.clientOfLocation.put(locationId, clientId);
+        }
+        Long resolvedClientId = clientId;
+
+        afterCommit(() -> {
+            Totals current = this.totals;
+            if (current != null) {
+                current.add(emissionTypeId, locationId, resolvedClientId, co2e);
+            }
+        });
+    }
+
+    // Whether the totals can answer on this thread: they must be loaded, and
+    // the thread must not be in a transaction, which may have uncommitted
+    // changes of its own.
+    public boolean isAvailable(){
+        return this.totals != null && !TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    public double getForLocation(Long locationId){
+        return sum(this.totals.byLocation(), locationId);
+    }
+
+    public double getForClient(Long clientId){
+        return sum(this.totals.byClient(), clientId);
+    }
+
+    public double getForEmissionType(Long emissionTypeId){
+        return sum(this.totals.byEmissionType(), emissionTypeId);
+    }
+
+    private static double sum(Map<Long, DoubleAdder> totals, Long id){
+        DoubleAdder total = totals.get(id);
+        return total == null ? 0.0 : total.sum();
+    }
+
+    private static void afterCommit(Runnable action){
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,177 @@
+package com.emission_impossible.carbon_modelling_tool.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Open-addressed hash table from a non-negative long key to a double, for
+ * ConversionRateMatrix. Keys and values are kept in plain long[] and double[]
+ * arrays, so nothing is boxed.
+ *
+ * Reads are lock-free in the common case (an optimistic StampedLock read,
+ * retried under the read lock if a write got in the way). Writes take the
+ * write lock; they are rare.
+ *
+ * Keys are never removed, only their value set to NaN, so a probe always ends
+ * at the key or at an empty slot. NaN therefore means "no value".
+ *
+ * The generation counts invalidations. A writer that read its value from
+ * somewhere slower (the database) passes the generation it started with, and
+ * its value is dropped if any invalidation happened in between.
+ */
+final class RateTable {
+
+    private static final long EMPTY = -1L;
+
+    // Both arrays of one table, swapped together on resize
+    private record Slots(long[] keys, double[] values) {
+
+        Slots(int capacity) {
+            this(new long[capacity], new double[capacity]);
+            Arrays.fill(this.keys, EMPTY);
+            Arrays.fill(this.values, Double.NaN);
+        }
+    }
+
+    private final StampedLock lock = new StampedLock();
+
+    private Slots slots;
+
+    // Slots holding a key, and keys holding a value (not NaN)
+    private int used;
+    private int size;
+
+    private volatile long generation;
+
+    RateTable(int expected) {
+        this.slots = new Slots(capacityFor(expected));
+    }
+
+    // The value for key, or NaN if there is none
+    double get(long key) {
+        long stamp = this.lock.tryOptimisticRead();
+        double value = find(this.slots, key);
+        if (this.lock.validate(stamp)) {
+            return value;
+        }
+
+        stamp = this.lock.readLock();
+        try {
+            return find(this.slots, key);
+        } finally {
+            this.lock.unlockRead(stamp);
+        }
+    }
+
+    long generation() { return this.generation; }
+
+    int size() { return this.size; }
+
+    // Put only if nothing was invalidated since generation() returned generation
+    boolean putIfGeneration(long key, double value, long generation) {
+        long stamp = this.lock.writeLock();
+        try {
+            if (this.generation != generation) {
+                return false;
+            }
+            store(key, value);
+            return true;
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    // Set the value (NaN to drop it) and fail every putIfGeneration in flight
+    void invalidate(long key, double value) {
+        long stamp = this.lock.writeLock();
+        try {
+            this.generation++;
+            store(key, value);
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    private static double find(Slots slots, long key) {
+        long[] keys = slots.keys();
+        int mask = keys.length - 1;
+
+        for (int i = index(key, mask); ; i = (i + 1) & mask) {
+            long candidate = keys[i];
+            if (candidate == key) {
+                return slots.values()[i];
+            }
+            if (candidate == EMPTY) {
+                return Double.NaN;
+            }
+        }
+    }
+
+    // Caller holds the write lock
+    private void store(long key, double value) {
+        long[] keys = this.slots.keys();
+        int mask = keys.length - 1;
+
+        int i = index(key, mask);
+        while (keys[i] != key && keys[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+
+        if (keys[i] == EMPTY) {
+            if (Double.isNaN(value)) {
+                return;
+            }
+            if ((this.used + 1) * 2 > keys.length) {
+                resize();
+                store(key, value);
+                return;
+            }
+            keys[i] = key;
+            this.used++;
+        }
+
+        double previous = this.slots.values()[i];
+        this.slots.values()[i] = value;
+        this.size += (Double.isNaN(value) ? 0 : 1) - (Double.isNaN(previous) ? 0 : 1);
+    }
+
+    // Double the capacity, leaving behind keys without a value
+    private void resize() {
+        Slots old = this.slots;
+        Slots resized = new Slots(capacityFor(Math.max(this.size + 1, old.keys().length / 2)) * 2);
+        int mask = resized.keys().length - 1;
+
+        for (int j = 0; j < old.keys().length; j++) {
+            if (old.keys()[j] == EMPTY || Double.isNaN(old.values()[j])) {
+                continue;
+            }
+            int i = index(old.keys()[j], mask);
+            while (resized.keys()[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            resized.keys()[i] = old.keys()[j];
+            resized.values()[i] = old.values()[j];
+        }
+
+        this.slots = resized;
+        this.used = this.size;
+    }
+
+    private static int index(long key, int mask) {
+        // Spread the packed key's bits before masking (the 64-bit finaliser of MurmurHash3)
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    // Smallest power of two keeping expected entries at most half full
+    private static int capacityFor(int expected) {
+        int capacity = 16;
+        while (capacity < expected * 2L) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -1,6 +1,10 @@
 package com.emission_impossible.carbon_modelling_tool.controller;
 
+import com.emission_impossible.carbon_modelling_tool.SecurityConfig.JwtConstant;
+import com.emission_impossible.carbon_modelling_tool.SecurityConfig.JwtUser;
+import com.emission_impossible.carbon_modelling_tool.SecurityConfig.TokenRevocationService;
 import com.emission_impossible.carbon_modelling_tool.model.User;
+import com.emission_impossible.carbon_modelling_tool.response.AuthResponse;
 import com.emission_impossible.carbon_modelling_tool.response.UserResponse;
 import com.emission_impossible.carbon_modelling_tool.service.UserService;
 import org.springframework.http.HttpStatus;
@@ -23,8 +27,11 @@ public class ApiController {
 
     private final UserService userService;
 
-    public ApiController(UserService userService){
+    private final TokenRevocationService tokenRevocationService;
+
+    public ApiController(UserService userService, TokenRevocationService tokenRevocationService){
         this.userService = userService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
 
@@ -39,6 +46,12 @@ public class ApiController {
             throw new AuthenticationCredentialsNotFoundException("No Authentication details found. There is no currently authenticated user.");
         }
 
+        // The token carries the user's profile: no need to query the users table
+        if (authentication.getPrincipal() instanceof JwtUser jwtUser && jwtUser.fullName() != null) {
+            return new ResponseEntity<>(new UserResponse(jwtUser.fullName(), jwtUser.email()), HttpStatus.OK);
+        }
+
+        // Tokens issued before fullName became a claim
         // Stores email address of signed in user
         String currentPrincipalName = authentication.getName();
 
@@ -50,4 +63,18 @@ public class ApiController {
 
     }
 
+    // Revoke the JWT used for this request, so it cannot be used again
+    // even though it has not expired.
+    @PostMapping("/logout")
+    public ResponseEntity<AuthResponse> logoutHandler(@RequestHeader(JwtConstant.JWT_HEADER) String authorization) {
+
+        this.tokenRevocationService.revoke(authorization.substring(7));
+
+        AuthResponse authResponse = new AuthResponse();
+        authResponse.setMessage("Logout success");
+        authResponse.setStatus(true);
+
+        return new ResponseEntity<>(authResponse, HttpStatus.OK);
+    }
+
 }
@@ -0,0 +1,104 @@
+package com.emission_impossible.carbon_modelling_tool.controller;
+
+import com.emission_impossible.carbon_modelling_tool.dto.BulkIngestResultDTO;
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionReadingDTO;
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionsPageDTO;
+import com.emission_impossible.carbon_modelling_tool.service.EmissionsDataService;
+import com.emission_impossible.carbon_modelling_tool.service.EmissionsExportService;
+import com.emission_impossible.carbon_modelling_tool.service.EmissionsIngestService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Handle emissions data requests from the frontend.
+//
+// All routes start with /api, so per ApplicationConfig they
+// require a JWT value in the Authorization header.
+@RestController
+@RequestMapping("/api/emissions")
+public class EmissionsDataController {
+
+    private final EmissionsDataService emissionsDataService;
+
+    private final EmissionsExportService emissionsExportService;
+
+    private final EmissionsIngestService emissionsIngestService;
+
+    public EmissionsDataController(EmissionsDataService emissionsDataService, EmissionsExportService emissionsExportService, EmissionsIngestService emissionsIngestService){
+        this.emissionsDataService = emissionsDataService;
+        this.emissionsExportService = emissionsExportService;
+        this.emissionsIngestService = emissionsIngestService;
+    }
+
+    // Paginated listings. Pass the nextCursor of a page as 'cursor' to get the
+    // following page; nextCursor is null on the last page.
+    //
+    // Example: GET /api/emissions/locations/1?size=100&cursor=MjAyNC0wMS0wMToxMg
+
+    @GetMapping("/locations/{locationId}")
+    public ResponseEntity<EmissionsPageDTO> getEmissionsForLocationHandler(
+            @PathVariable Long locationId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+
+        return new ResponseEntity<>(this.emissionsDataService.getEmissionsPageForLocation(locationId, cursor, size), HttpStatus.OK);
+    }
+
+    @GetMapping("/clients/{clientId}")
+    public ResponseEntity<EmissionsPageDTO> getEmissionsForClientHandler(
+            @PathVariable Long clientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+
+        return new ResponseEntity<>(this.emissionsDataService.getEmissionsPageForClient(clientId, cursor, size), HttpStatus.OK);
+    }
+
+    @GetMapping
+    public ResponseEntity<EmissionsPageDTO> getEmissionsByDateRangeHandler(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end,
+            @RequestParam(required = false) Long locationId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+
+        return new ResponseEntity<>(this.emissionsDataService.getEmissionsPageByDateRange(start, end, locationId, cursor, size), HttpStatus.OK);
+    }
+
+    // Download every emissions record as CSV.
+    // Rows are written to the response as they are read from the database,
+    // so memory use stays the same however many records there are.
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportEmissionsHandler() {
+
+        StreamingResponseBody body = this.emissionsExportService::exportCsv;
+
+        return ResponseEntity.status(HttpStatus.OK)
+                .contentType(new MediaType("text", "csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"emissions.csv\"")
+                .body(body);
+    }
+
+    // Add many readings at once. Rows that cannot be stored (missing fields, no
+    // conversion rate) are listed in the response; every other row is inserted.
+    //
+    // Example body: [{"emissionTypeId": 1, "locationId": 2, "date": "2024-01-01", "value": 120.5}]
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkIngestResultDTO> bulkIngestHandler(@RequestBody List<EmissionReadingDTO> readings) {
+
+        return new ResponseEntity<>(this.emissionsIngestService.ingest(readings), HttpStatus.OK);
+    }
+
+    // Invalid cursor, page size or too many readings
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.emission_impossible.carbon_modelling_tool.controller;
+
+import com.emission_impossible.carbon_modelling_tool.dto.ImportJobDTO;
+import com.emission_impossible.carbon_modelling_tool.service.EmissionsImportService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+
+// Background imports of emissions CSV files.
+//
+// All routes start with /api, so per ApplicationConfig they
+// require a JWT value in the Authorization header.
+//
+// Example: POST /api/emissions/imports (multipart/form-data, field 'file')
+// returns 202 with the job; poll GET /api/emissions/imports/{id} for progress.
+@RestController
+@RequestMapping("/api/emissions/imports")
+public class EmissionsImportController {
+
+    private final EmissionsImportService emissionsImportService;
+
+    public EmissionsImportController(EmissionsImportService emissionsImportService){
+        this.emissionsImportService = emissionsImportService;
+    }
+
+    @PostMapping
+    public ResponseEntity<ImportJobDTO> uploadHandler(@RequestParam("file") MultipartFile file) {
+
+        return new ResponseEntity<>(this.emissionsImportService.submit(file), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ImportJobDTO>> getJobsHandler() {
+
+        return new ResponseEntity<>(this.emissionsImportService.getJobs(), HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportJobDTO> getJobHandler(@PathVariable String id) {
+
+        return this.emissionsImportService.getJob(id)
+                .map(job -> new ResponseEntity<>(job, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    // Cancel a queued or running import
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ImportJobDTO> cancelJobHandler(@PathVariable String id) {
+
+        return this.emissionsImportService.cancel(id)
+                .map(job -> new ResponseEntity<>(job, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    // Empty upload
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+}
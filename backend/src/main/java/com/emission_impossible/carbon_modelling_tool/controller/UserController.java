@@ -2,26 +2,31 @@ package com.emission_impossible.carbon_modelling_tool.controller;
 
 
 import com.emission_impossible.carbon_modelling_tool.SecurityConfig.JwtProvider;
+import com.emission_impossible.carbon_modelling_tool.SecurityConfig.JwtUser;
 import com.emission_impossible.carbon_modelling_tool.model.User;
 import com.emission_impossible.carbon_modelling_tool.repository.UserRepository;
 import com.emission_impossible.carbon_modelling_tool.response.AuthResponse;
+import com.emission_impossible.carbon_modelling_tool.service.PasswordHashingService;
 import com.emission_impossible.carbon_modelling_tool.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 // Handle all requests from frontend to backend as part of authentication and authorisation process.
 // All such requests will start with /auth
@@ -29,22 +34,33 @@ import java.util.Optional;
 @RequestMapping("/auth")
 public class UserController {
 
+    private static final Logger log = LoggerFactory.getLogger(UserController.class);
+
     private final UserRepository userRepository;
-    // Password Encoder comes from spring boot security
-    private final PasswordEncoder passwordEncoder;
+    // BCrypt runs on its own bounded pool, not on request threads
+    private final PasswordHashingService passwordHashingService;
     private final UserService customUserDetails;
+    // Runs the work after hashing (saving the user, signing the token), so
+    // hashing threads are only ever busy with BCrypt
+    private final AsyncTaskExecutor taskExecutor;
 
     // Dependency injection
-    public UserController(UserRepository userRepository, PasswordEncoder passwordEncoder, UserService customUserDetails) {
+    public UserController(UserRepository userRepository, PasswordHashingService passwordHashingService, UserService customUserDetails,
+                          @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.customUserDetails = customUserDetails;
+        this.taskExecutor = taskExecutor;
     }
 
     // Create new user entry in User table. Password value
     // will be hashed for security using Bcrypt.
+    //
+    // Returns a CompletableFuture: the request thread is released while
+    // the password is hashed. Responds 503 if too many hashes are queued.
+    // The user is saved on the task executor, not on the hashing thread.
     @PostMapping("/signup")
-    public ResponseEntity<AuthResponse> createUserHandler(@RequestBody User user)  {
+    public CompletableFuture<ResponseEntity<AuthResponse>> createUserHandler(@RequestBody User user)  {
         String email = user.getEmail();
         String password = user.getPassword();
         String fullName = user.getFullName();
@@ -56,29 +72,30 @@ public class UserController {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Email Is Already Used With Another Account");
         }
 
-        User createdUser = new User();
-        createdUser.setEmail(email);
-        createdUser.setFullName(fullName);
-        createdUser.setPassword(passwordEncoder.encode(password));
+        return this.passwordHashingService.encode(password).thenApplyAsync(encodedPassword -> {
+            User createdUser = new User();
+            createdUser.setEmail(email);
+            createdUser.setFullName(fullName);
+            createdUser.setPassword(encodedPassword);
 
-        // Save the user in the 'users' database
-        userRepository.save(createdUser);
+            // Save the user in the 'users' database
+            userRepository.save(createdUser);
 
-        Authentication authentication = new UsernamePasswordAuthenticationToken(email,password);
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-        String token = JwtProvider.generateToken(authentication);
+            Authentication authentication = new UsernamePasswordAuthenticationToken(new JwtUser(email, fullName),null);
+            String token = JwtProvider.generateToken(authentication);
 
 
-        //NOTE: Once user is signed in.
-        // The way to get authenticated user:
-        //Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        //String currentPrincipalName = authentication.getName();
+            //NOTE: Once user is signed in.
+            // The way to get authenticated user:
+            //Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            //String currentPrincipalName = authentication.getName();
 
-        AuthResponse authResponse = new AuthResponse();
-        authResponse.setJwt(token);
-        authResponse.setMessage("Register Success");
-        authResponse.setStatus(true);
-        return new ResponseEntity<AuthResponse>(authResponse, HttpStatus.OK);
+            AuthResponse authResponse = new AuthResponse();
+            authResponse.setJwt(token);
+            authResponse.setMessage("Register Success");
+            authResponse.setStatus(true);
+            return new ResponseEntity<AuthResponse>(authResponse, HttpStatus.OK);
+        }, this.taskExecutor);
 
     }
 
@@ -88,55 +105,50 @@ public class UserController {
 
     // Throws 403 forbidden HTTP response if client is
     // trying to sign into an account that has not been
-    // registered. Otherwise will set the current authentication session,
-    // using the authorised sign in details submitted by the user.
+    // registered. Otherwise returns a JWT for the user.
+    //
+    // As with signup, the password check runs on the hashing pool.
     @PostMapping("/signin")
-    public ResponseEntity<AuthResponse> signin(@RequestBody User loginRequest) {
+    public CompletableFuture<ResponseEntity<AuthResponse>> signin(@RequestBody User loginRequest) {
         String username = loginRequest.getEmail();
         String password = loginRequest.getPassword();
 
-        System.out.println(username+"-------"+password);
-
-        Authentication authentication = authenticate(username,password);
-        SecurityContextHolder.getContext().setAuthentication(authentication);
+        return authenticate(username,password).thenApplyAsync(authentication -> {
+            String token = JwtProvider.generateToken(authentication);
+            AuthResponse authResponse = new AuthResponse();
 
-        String token = JwtProvider.generateToken(authentication);
-        AuthResponse authResponse = new AuthResponse();
+            authResponse.setMessage("Login success");
+            authResponse.setJwt(token);
+            authResponse.setStatus(true);
 
-        authResponse.setMessage("Login success");
-        authResponse.setJwt(token);
-        authResponse.setStatus(true);
-
-        return new ResponseEntity<AuthResponse>(authResponse,HttpStatus.OK);
+            return new ResponseEntity<AuthResponse>(authResponse,HttpStatus.OK);
+        }, this.taskExecutor);
     }
 
 
-    // Returns necessary information to start user session
-    // (calling relevant method from 'SecurityContextHolder'),
-    // providing the parameters passed into this method can be
-    // used to log the user into a valid user account.
-    private Authentication authenticate(String username, String password) {
-
-        System.out.println(username+"---++----"+password);
+    // Completes with the authentication for the user, providing the
+    // parameters passed into this method can be used to log the user
+    // into a valid user account.
+    //
+    // The authentication is not stored in SecurityContextHolder: it would be
+    // set on a hashing thread, and the API is stateless (the JWT is what counts).
+    private CompletableFuture<Authentication> authenticate(String username, String password) {
 
-        UserDetails userDetails = customUserDetails.loadUserByUsername(username);
+        // Load the User entity rather than UserDetails: its full name goes into the token
+        User user = customUserDetails.findByEmail(username);
 
-        System.out.println("Sig in in user details"+ userDetails);
+        log.debug("Sign in user details: {}", user.getEmail());
 
-        if(userDetails == null) {
-            System.out.println("Sign in details - null" + userDetails);
+        return this.passwordHashingService.matches(password, user.getPassword()).thenApply(matches -> {
+            if(!matches) {
+                log.debug("Sign in userDetails - password mismatch: {}", user.getEmail());
 
-            throw new BadCredentialsException("Invalid username and password");
-        }
-
-        if(!passwordEncoder.matches(password,userDetails.getPassword())) {
-            System.out.println("Sign in userDetails - password mismatch"+userDetails);
+                throw new BadCredentialsException("Invalid password");
 
-            throw new BadCredentialsException("Invalid password");
-
-        }
+            }
 
-        return new UsernamePasswordAuthenticationToken(userDetails,null,userDetails.getAuthorities());
+            return new UsernamePasswordAuthenticationToken(new JwtUser(user.getEmail(), user.getFullName()),null,List.of());
+        });
 
     }
 
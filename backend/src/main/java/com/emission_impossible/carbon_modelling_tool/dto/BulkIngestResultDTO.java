@@ -0,0 +1,75 @@
+package com.emission_impossible.carbon_modelling_tool.dto;
+
+import java.util.List;
+
+// Outcome of a bulk ingestion: how many rows went in, which rows did not and why,
+// and how fast the insert ran.
+public class BulkIngestResultDTO {
+
+    private int received;
+    private int inserted;
+    private List<RowFailureDTO> failures;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+
+    public BulkIngestResultDTO() {}
+
+    public BulkIngestResultDTO(int received, int inserted, List<RowFailureDTO> failures, long elapsedMillis, double rowsPerSecond) {
+        this.received = received;
+        this.inserted = inserted;
+        this.failures = failures;
+        this.elapsedMillis = elapsedMillis;
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public int getReceived() {
+        return received;
+    }
+
+    public void setReceived(int received) {
+        this.received = received;
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(int inserted) {
+        this.inserted = inserted;
+    }
+
+    public List<RowFailureDTO> getFailures() {
+        return failures;
+    }
+
+    public void setFailures(List<RowFailureDTO> failures) {
+        this.failures = failures;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkIngestResultDTO{" +
+                "received=" + received +
+                ", inserted=" + inserted +
+                ", failures=" + failures.size() +
+                ", elapsedMillis=" + elapsedMillis +
+                ", rowsPerSecond=" + rowsPerSecond +
+                '}';
+    }
+}
@@ -0,0 +1,6 @@
+package com.emission_impossible.carbon_modelling_tool.dto;
+
+// Flat view of a conversion rate: ids only, no EmissionType or Location entities.
+// Lets ConversionRateMatrix load every rate with one query and no joins to materialise.
+public record ConversionRateEntry(Long emissionTypeId, Long locationId, int year, double rate) {
+}
@@ -0,0 +1,63 @@
+package com.emission_impossible.carbon_modelling_tool.dto;
+
+import java.time.LocalDate;
+
+// One emissions reading submitted for bulk ingestion.
+// Same fields as EmissionsDataService.addEmission takes.
+public class EmissionReadingDTO {
+    private Long emissionTypeId;
+    private Long locationId;
+    private LocalDate date;
+    private Double value;
+
+    public EmissionReadingDTO() {}
+
+    public EmissionReadingDTO(Long emissionTypeId, Long locationId, LocalDate date, Double value) {
+        this.emissionTypeId = emissionTypeId;
+        this.locationId = locationId;
+        this.date = date;
+        this.value = value;
+    }
+
+    public Long getEmissionTypeId() {
+        return emissionTypeId;
+    }
+
+    public void setEmissionTypeId(Long emissionTypeId) {
+        this.emissionTypeId = emissionTypeId;
+    }
+
+    public Long getLocationId() {
+        return locationId;
+    }
+
+    public void setLocationId(Long locationId) {
+        this.locationId = locationId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public Double getValue() {
+        return value;
+    }
+
+    public void setValue(Double value) {
+        this.value = value;
+    }
+
+    @Override
+    public String toString() {
+        return "EmissionReadingDTO{" +
+                "emissionTypeId=" + emissionTypeId +
+                ", locationId=" + locationId +
+                ", date=" + date +
+                ", value=" + value +
+                '}';
+    }
+}
@@ -0,0 +1,17 @@
+package com.emission_impossible.carbon_modelling_tool.dto;
+
+// Projection for the per emission type totals calculated by the database
+// (see EmissionsMonthlyRollupRepository.summariseByEmissionTypeForLocation).
+// Each getter matches a column alias in the query.
+public interface EmissionTypeTotal {
+
+    String getEmissionTypeName();
+
+    String getUnit();
+
+    Double getTotalValue();
+
+    Double getTotalCO2e();
+
+    Long getRecordCount();
+}
@@ -8,7 +8,8 @@ public class EmissionsDataDTO {
     private Long id;
     private LocalDate date;
     private double value;
-    private double co2e;
+    // null when there is no conversion rate for the record
+    private Double co2e;
 
     private Long locationId;
     private String locationName;
@@ -21,7 +22,7 @@ public class EmissionsDataDTO {
 
     public EmissionsDataDTO() {}
 
-    public EmissionsDataDTO(Long id, LocalDate date, double value, double co2e, Long locationId, String locationName, String locationRegion, Long emissionTypeId, String emissionTypeName, String unit, String scope) {
+    public EmissionsDataDTO(Long id, LocalDate date, double value, Double co2e, Long locationId, String locationName, String locationRegion, Long emissionTypeId, String emissionTypeName, String unit, String scope) {
         this.id = id;
         this.date = date;
         this.value = value;
@@ -59,11 +60,11 @@ public class EmissionsDataDTO {
         this.value = value;
     }
 
-    public double getCo2e() {
+    public Double getCo2e() {
         return co2e;
     }
 
-    public void setCo2e(double co2e) {
+    public void setCo2e(Double co2e) {
         this.co2e = co2e;
     }
 
@@ -0,0 +1,8 @@
+package com.emission_impossible.carbon_modelling_tool.dto;
+
+import java.time.LocalDate;
+
+// One emissions record with its conversion rate already joined, ids only.
+// Streamed from the database to fill EmissionsColumnStore.
+public record EmissionsFact(LocalDate date, double value, Long locationId, Long emissionTypeId, String scope, double rate) {
+}
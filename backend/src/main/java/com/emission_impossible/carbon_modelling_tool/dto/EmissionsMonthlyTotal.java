@@ -0,0 +1,21 @@
+package com.emission_impossible.carbon_modelling_tool.dto;
+
+// Projection for monthly totals calculated from emissions_data
+// (see EmissionsDataRepository.findMonthlyTotals).
+// Used to rebuild the emissions_monthly_rollups table.
+public interface EmissionsMonthlyTotal {
+
+    Long getLocationId();
+
+    Long getEmissionTypeId();
+
+    Integer getYearValue();
+
+    Integer getMonthValue();
+
+    Double getTotalValue();
+
+    Double getTotalCO2e();
+
+    Long getRecordCount();
+}
@@ -0,0 +1,44 @@
+package com.emission_impossible.carbon_modelling_tool.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Position in an emissions listing ordered by (date, id): the last row of the previous page.
+//
+// Handed to the frontend as an opaque token (see encode/decode), so the
+// format can change without breaking clients.
+public record EmissionsPageCursor(LocalDate date, Long id) {
+
+    // Before every emissions record: used for the first page
+    public static final EmissionsPageCursor START = new EmissionsPageCursor(LocalDate.of(1, 1, 1), 0L);
+
+    public static EmissionsPageCursor after(EmissionsDataDTO lastRow) {
+        return new EmissionsPageCursor(lastRow.getDate(), lastRow.getId());
+    }
+
+    public String encode() {
+        String raw = date + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // A null or blank token means the first page
+    public static EmissionsPageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return START;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+
+            return new EmissionsPageCursor(
+                    LocalDate.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + token, e);
+        }
+    }
+}
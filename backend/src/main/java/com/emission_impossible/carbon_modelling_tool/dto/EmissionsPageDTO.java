@@ -0,0 +1,42 @@
+package com.emission_impossible.carbon_modelling_tool.dto;
+
+import java.util.List;
+
+// One page of an emissions listing.
+// nextCursor is passed back to fetch the following page; it is null on the last page.
+public class EmissionsPageDTO {
+
+    private List<EmissionsDataDTO> items;
+    private String nextCursor;
+
+    public EmissionsPageDTO() {}
+
+    public EmissionsPageDTO(List<EmissionsDataDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<EmissionsDataDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<EmissionsDataDTO> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    @Override
+    public String toString() {
+        return "EmissionsPageDTO{" +
+                "items=" + items +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
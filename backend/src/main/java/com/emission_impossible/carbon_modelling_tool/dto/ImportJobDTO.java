@@ -0,0 +1,72 @@
+package com.emission_impossible.carbon_modelling_tool.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+// Snapshot of a background CSV import, as returned by the import status endpoint
+public class ImportJobDTO {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    private String id;
+    private String fileName;
+    private Status status;
+
+    // Fraction of the file read so far, from 0 to 1
+    private double progress;
+    private long rowsProcessed;
+    private long rowsInserted;
+    private double rowsPerSecond;
+
+    // failures holds the first EmissionsImportService.MAX_REPORTED_FAILURES; failureCount is the total
+    private long failureCount;
+    private List<RowFailureDTO> failures;
+
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+
+    // Why the job failed, if it did
+    private String message;
+
+    public ImportJobDTO() {}
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public double getProgress() { return progress; }
+    public void setProgress(double progress) { this.progress = progress; }
+
+    public long getRowsProcessed() { return rowsProcessed; }
+    public void setRowsProcessed(long rowsProcessed) { this.rowsProcessed = rowsProcessed; }
+
+    public long getRowsInserted() { return rowsInserted; }
+    public void setRowsInserted(long rowsInserted) { this.rowsInserted = rowsInserted; }
+
+    public double getRowsPerSecond() { return rowsPerSecond; }
+    public void setRowsPerSecond(double rowsPerSecond) { this.rowsPerSecond = rowsPerSecond; }
+
+    public long getFailureCount() { return failureCount; }
+    public void setFailureCount(long failureCount) { this.failureCount = failureCount; }
+
+    public List<RowFailureDTO> getFailures() { return failures; }
+    public void setFailures(List<RowFailureDTO> failures) { this.failures = failures; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Instant getStartedAt() { return startedAt; }
+    public void setStartedAt(Instant startedAt) { this.startedAt = startedAt; }
+
+    public Instant getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(Instant finishedAt) { this.finishedAt = finishedAt; }
+
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
@@ -0,0 +1,15 @@
+package com.emission_impossible.carbon_modelling_tool.dto;
+
+// Projection for the CO2e total per (location, emission type), summed from
+// the monthly rollup (see EmissionsMonthlyRollupRepository.sumCO2eByLocationAndEmissionType).
+// Used to load EmissionsRunningTotals.
+public interface LocationCO2eTotal {
+
+    Long getLocationId();
+
+    Long getClientId();
+
+    Long getEmissionTypeId();
+
+    Double getTotalCO2e();
+}
@@ -0,0 +1,5 @@
+package com.emission_impossible.carbon_modelling_tool.dto;
+
+// A row that could not be ingested. rowNumber is 1-based within the submitted rows (or file).
+public record RowFailureDTO(long rowNumber, String message) {
+}
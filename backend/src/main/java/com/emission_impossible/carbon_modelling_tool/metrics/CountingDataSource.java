@@ -0,0 +1,101 @@
+package com.emission_impossible.carbon_modelling_tool.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * DataSource that reports each statement executed and each row read to
+ * SqlStatementCounter.
+ *
+ * Connections, statements and result sets are wrapped in JDK proxies that pass
+ * every call through to the real object. Counts are only kept while the
+ * thread has an open SqlStatementCounter scope.
+ */
+public class CountingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    public CountingDataSource(DataSource targetDataSource){
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(super.getConnection(username, password));
+    }
+
+    private static Connection wrapConnection(Connection connection){
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+
+            // createStatement, prepareStatement and prepareCall
+            if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                return wrapStatement(method.getReturnType(), statement);
+            }
+            return result;
+        });
+    }
+
+    private static Object wrapStatement(Class<?> type, Statement statement){
+        return proxy(type, (proxy, method, args) -> {
+            if (EXECUTE_METHODS.contains(method.getName())) {
+                SqlStatementCounter.statementExecuted();
+            }
+
+            Object result = invoke(statement, method, args);
+
+            // executeQuery and getResultSet
+            if (result instanceof ResultSet resultSet && method.getReturnType() == ResultSet.class) {
+                return wrapResultSet(resultSet);
+            }
+            return result;
+        });
+    }
+
+    private static ResultSet wrapResultSet(ResultSet resultSet){
+        return proxy(ResultSet.class, (proxy, method, args) -> {
+            Object result = invoke(resultSet, method, args);
+
+            if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                SqlStatementCounter.rowRead();
+            }
+            return result;
+        });
+    }
+
+    // equals and hashCode are answered by the proxy itself, so a proxy equals only itself
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<?> type, InvocationHandler handler){
+        InvocationHandler withIdentity = (proxy, method, args) -> switch (method.getName()) {
+            case "equals" -> args != null && args.length == 1 && proxy == args[0];
+            case "hashCode" -> args == null ? System.identityHashCode(proxy) : handler.invoke(proxy, method, args);
+            default -> handler.invoke(proxy, method, args);
+        };
+
+        return (T) Proxy.newProxyInstance(CountingDataSource.class.getClassLoader(), new Class<?>[]{type}, withIdentity);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
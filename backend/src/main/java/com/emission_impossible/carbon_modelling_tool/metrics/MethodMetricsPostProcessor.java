@@ -0,0 +1,123 @@
+package com.emission_impossible.carbon_modelling_tool.metrics;
+
+import com.emission_impossible.carbon_modelling_tool.service.EmissionsDataService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.ClassFilters;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.repository.Repository;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every call to EmissionsDataService and to the Spring Data repositories.
+ *
+ * <p>Each call is recorded in the app.method timer, tagged with the layer
+ * (service or repository), the class and the method, e.g.
+ * app.method{layer=repository, class=EmissionsDataRepository, method=findDtosByLocationId}.</p>
+ *
+ * <p>Each service call also counts its SQL statements and checks them against
+ * the SqlBudget, so N+1 query patterns in the service are reported.</p>
+ *
+ * <p>Only calls made through the bean are seen: a service method calling another
+ * method of its own class is not timed separately.</p>
+ */
+public class MethodMetricsPostProcessor extends AbstractAdvisingBeanPostProcessor {
+
+    public static final String METRIC_NAME = "app.method";
+
+    private static final String BASE_PACKAGE = "com.emission_impossible.carbon_modelling_tool";
+
+    public MethodMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry, ObjectProvider<SqlBudget> sqlBudget){
+        ClassFilter timedClasses = ClassFilters.union(
+                new RootClassFilter(EmissionsDataService.class),
+                new RootClassFilter(Repository.class));
+
+        this.advisor = new DefaultPointcutAdvisor(new ComposablePointcut(timedClasses), new TimingInterceptor(meterRegistry, sqlBudget));
+
+        // Outermost, so a call's time includes its transaction
+        this.beforeExistingAdvisors = true;
+    }
+
+    private static final class TimingInterceptor implements MethodInterceptor {
+
+        // The registry and budget are looked up on first use: bean post-processors
+        // are created before the rest of the application
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+        private final ObjectProvider<SqlBudget> sqlBudget;
+
+        private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+        private TimingInterceptor(ObjectProvider<MeterRegistry> meterRegistry, ObjectProvider<SqlBudget> sqlBudget){
+            this.meterRegistry = meterRegistry;
+            this.sqlBudget = sqlBudget;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            long start = System.nanoTime();
+
+            try {
+                if (Repository.class.isInstance(invocation.getThis())) {
+                    return invocation.proceed();
+                }
+
+                try (SqlStatementCounter.Scope scope = SqlStatementCounter.open(ownerName(beanType(invocation)) + "." + invocation.getMethod().getName())) {
+                    Object result = invocation.proceed();
+                    this.sqlBudget.getObject().check(scope);
+                    return result;
+                }
+            } finally {
+                timer(invocation).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private Timer timer(MethodInvocation invocation){
+            return this.timers.computeIfAbsent(new TimerKey(beanType(invocation), invocation.getMethod()), key -> {
+                String owner = ownerName(key.beanType());
+
+                return Timer.builder(METRIC_NAME)
+                        .description("Time spent in service and repository methods")
+                        .tag("layer", Repository.class.isAssignableFrom(key.beanType()) ? "repository" : "service")
+                        .tag("class", owner)
+                        .tag("method", key.method().getName())
+                        .register(this.meterRegistry.getObject());
+            });
+        }
+
+        private static Class<?> beanType(MethodInvocation invocation){
+            return invocation instanceof ProxyMethodInvocation proxyInvocation
+                    ? proxyInvocation.getProxy().getClass()
+                    : invocation.getMethod().getDeclaringClass();
+        }
+
+        // Repositories are JDK proxies: name them after their interface
+        // (e.g. EmissionsDataRepository) rather than the proxy class
+        private static String ownerName(Class<?> beanType){
+            if (Proxy.isProxyClass(beanType)) {
+                for (Class<?> type : beanType.getInterfaces()) {
+                    if (type.getName().startsWith(BASE_PACKAGE)) {
+                        return type.getSimpleName();
+                    }
+                }
+            }
+
+            return ClassUtils.getUserClass(beanType).getSimpleName();
+        }
+    }
+
+    private record TimerKey(Class<?> beanType, Method method) {}
+}
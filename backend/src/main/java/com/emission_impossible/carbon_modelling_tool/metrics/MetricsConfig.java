@@ -0,0 +1,50 @@
+package com.emission_impossible.carbon_modelling_tool.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Application metrics, on top of those Spring Boot records itself (HTTP requests,
+ * JVM, connection pool).
+ *
+ * Scraped from /actuator/prometheus on the management port (management.server.port).
+ * The other hot-path meters are registered by the classes they measure:
+ * JwtTokenValidator, ConversionRateMatrix, EmissionsDataService.calculateCO2e
+ * and PasswordHashingService.
+ *
+ * SQL statements are counted per HTTP request and per service call
+ * (see SqlStatementCounter and SqlBudget) when sql.counting.enabled is set, as
+ * in the test profile. Counting wraps every connection, statement and result
+ * set in a proxy, so it is off by default; without it the counts stay at zero
+ * and no budget is ever exceeded.
+ */
+@Configuration
+public class MetricsConfig {
+
+    // Static: bean post-processors are created before the other beans in this class
+    @Bean
+    static MethodMetricsPostProcessor methodMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry, ObjectProvider<SqlBudget> sqlBudget) {
+        return new MethodMetricsPostProcessor(meterRegistry, sqlBudget);
+    }
+
+    // Wraps the application's DataSource so SqlStatementCounter sees every statement
+    @Bean
+    @ConditionalOnProperty(name = "sql.counting.enabled", havingValue = "true")
+    static BeanPostProcessor countingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof CountingDataSource)) {
+                    return new CountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
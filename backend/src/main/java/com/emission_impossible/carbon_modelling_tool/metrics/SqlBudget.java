@@ -0,0 +1,46 @@
+package com.emission_impossible.carbon_modelling_tool.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limit on the SQL statements and rows a single HTTP request or
+ * EmissionsDataService call may use.
+ *
+ * Going over the limit is logged as a warning, or fails with an
+ * IllegalStateException when sql.budget.fail is set (as in the test profile),
+ * so N+1 query patterns show up in tests rather than in production.
+ */
+@Component
+public class SqlBudget {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlBudget.class);
+
+    private final long maxStatements;
+    private final long maxRows;
+    private final boolean fail;
+
+    public SqlBudget(@Value("${sql.budget.max-statements:50}") long maxStatements,
+                     @Value("${sql.budget.max-rows:10000}") long maxRows,
+                     @Value("${sql.budget.fail:false}") boolean fail){
+        this.maxStatements = maxStatements;
+        this.maxRows = maxRows;
+        this.fail = fail;
+    }
+
+    public void check(SqlStatementCounter.Scope scope){
+        if (scope.getStatements() <= this.maxStatements && scope.getRows() <= this.maxRows) {
+            return;
+        }
+
+        String message = String.format("%s executed %d SQL statements and read %d rows (budget: %d statements, %d rows)",
+                scope.getName(), scope.getStatements(), scope.getRows(), this.maxStatements, this.maxRows);
+
+        if (this.fail) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+}
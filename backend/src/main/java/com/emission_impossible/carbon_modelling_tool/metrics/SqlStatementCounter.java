@@ -0,0 +1,97 @@
+package com.emission_impossible.carbon_modelling_tool.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the SQL statements executed and rows read on the current thread.
+ *
+ * <p>Counting happens inside a scope:</p>
+ *
+ * <pre>
+ * try (SqlStatementCounter.Scope scope = SqlStatementCounter.open("getEmissionsForLocation")) {
+ *     ...
+ *     scope.getStatements();
+ * }
+ * </pre>
+ *
+ * <p>Scopes can be nested (e.g. a service call inside an HTTP request): a
+ * statement counts towards every open scope. Statements are reported by
+ * CountingDataSource, so anything using the application's DataSource is seen
+ * (Hibernate and JdbcTemplate alike), as long as sql.counting.enabled is set. Work handed to another thread is only
+ * seen if that thread opens its scope with the caller's as parent (see
+ * LocationFanOut).</p>
+ */
+public final class SqlStatementCounter {
+
+    private static final ThreadLocal<Scope> current = new ThreadLocal<>();
+
+    private SqlStatementCounter(){
+    }
+
+    // Start counting on this thread. Close the scope to stop.
+    public static Scope open(String name){
+        return open(name, current.get());
+    }
+
+    // Start counting on this thread, also counting towards parent, which may
+    // belong to another thread: e.g. the scope of the request a worker thread
+    // is doing part of. parent may be null.
+    public static Scope open(String name, Scope parent){
+        Scope scope = new Scope(name, parent, current.get());
+        current.set(scope);
+        return scope;
+    }
+
+    // The innermost open scope on this thread, or null
+    public static Scope current(){
+        return current.get();
+    }
+
+    static void statementExecuted(){
+        for (Scope scope = current.get(); scope != null; scope = scope.parent) {
+            scope.statements.increment();
+        }
+    }
+
+    static void rowRead(){
+        for (Scope scope = current.get(); scope != null; scope = scope.parent) {
+            scope.rows.increment();
+        }
+    }
+
+    public static final class Scope implements AutoCloseable {
+
+        private final String name;
+        private final Scope parent;
+
+        // The scope to restore on this thread when this one closes. The same
+        // as parent, unless parent came from another thread.
+        private final Scope previous;
+
+        // Child scopes on other threads may add to these at the same time
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+
+        private Scope(String name, Scope parent, Scope previous){
+            this.name = name;
+            this.parent = parent;
+            this.previous = previous;
+        }
+
+        public String getName() { return this.name; }
+
+        // Statements sent to the database. A JDBC batch counts once.
+        public long getStatements() { return this.statements.sum(); }
+
+        public long getRows() { return this.rows.sum(); }
+
+        @Override
+        public void close() {
+            if (this.previous == null) {
+                current.remove();
+            } else {
+                current.set(this.previous);
+            }
+        }
+    }
+}
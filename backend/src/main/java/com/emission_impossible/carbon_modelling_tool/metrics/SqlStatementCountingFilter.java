@@ -0,0 +1,40 @@
+package com.emission_impossible.carbon_modelling_tool.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Counts the SQL statements and rows each HTTP request uses on its request
+ * thread, and checks them against the SqlBudget.
+ *
+ * Streamed responses (e.g. the emissions export) and other asynchronous work
+ * run on other threads and are not counted.
+ */
+@Component
+// Outermost, so the security filters' queries are counted too
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlStatementCountingFilter extends OncePerRequestFilter {
+
+    private final SqlBudget sqlBudget;
+
+    public SqlStatementCountingFilter(SqlBudget sqlBudget){
+        this.sqlBudget = sqlBudget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open(request.getMethod() + " " + request.getRequestURI())) {
+            filterChain.doFilter(request, response);
+
+            this.sqlBudget.check(scope);
+        }
+    }
+}
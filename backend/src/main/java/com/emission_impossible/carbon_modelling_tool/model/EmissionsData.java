@@ -3,7 +3,11 @@ import jakarta.persistence.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "emissions_data")
+// Indexes match the (date, id) ordering used by the paginated listings
+@Table(name = "emissions_data", indexes = {
+        @Index(name = "idx_emissions_data_location_date_id", columnList = "location_id, date, id"),
+        @Index(name = "idx_emissions_data_date_id", columnList = "date, id")
+})
 public class EmissionsData {
 
     @Id
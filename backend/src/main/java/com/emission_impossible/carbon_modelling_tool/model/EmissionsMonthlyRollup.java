@@ -0,0 +1,79 @@
+package com.emission_impossible.carbon_modelling_tool.model;
+import jakarta.persistence.*;
+
+/**
+ * Pre-aggregated emissions for one location, emission type and month.
+ *
+ * Kept up to date by EmissionsDataService.addEmission, so that totals and
+ * summaries can be read without scanning every emissions_data row.
+ */
+@Entity
+// 'year' and 'month' are reserved keywords. So rename to 'year_value' and 'month_value'.
+@Table(name = "emissions_monthly_rollups", uniqueConstraints = { @UniqueConstraint(columnNames = { "location_id", "emission_type_id", "year_value", "month_value" }) })
+public class EmissionsMonthlyRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "location_id")
+    private Location location;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "emission_type_id")
+    private EmissionType emissionType;
+
+    @Column(name = "year_value")
+    private int year;
+
+    // 1 (January) to 12 (December)
+    @Column(name = "month_value")
+    private int month;
+
+    private double totalValue;
+    private double totalCO2e;
+    private long recordCount;
+
+    protected EmissionsMonthlyRollup() {}
+
+    // Constructor: an empty rollup, totals are added with add()
+    public EmissionsMonthlyRollup(Location location, EmissionType emissionType, int year, int month) {
+        this.location = location;
+        this.emissionType = emissionType;
+        this.year = year;
+        this.month = month;
+    }
+
+    // Add records to this month's totals
+    public void add(double value, double co2e, long count) {
+        this.totalValue += value;
+        this.totalCO2e += co2e;
+        this.recordCount += count;
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Location getLocation() { return location; }
+    public void setLocation(Location location) { this.location = location; }
+
+    public EmissionType getEmissionType() { return emissionType; }
+    public void setEmissionType(EmissionType emissionType) { this.emissionType = emissionType; }
+
+    public int getYear() { return year; }
+    public void setYear(int year) { this.year = year; }
+
+    public int getMonth() { return month; }
+    public void setMonth(int month) { this.month = month; }
+
+    public double getTotalValue() { return totalValue; }
+    public void setTotalValue(double totalValue) { this.totalValue = totalValue; }
+
+    public double getTotalCO2e() { return totalCO2e; }
+    public void setTotalCO2e(double totalCO2e) { this.totalCO2e = totalCO2e; }
+
+    public long getRecordCount() { return recordCount; }
+    public void setRecordCount(long recordCount) { this.recordCount = recordCount; }
+}
@@ -0,0 +1,52 @@
+package com.emission_impossible.carbon_modelling_tool.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * A JWT that can no longer be used, e.g. after the user logs out.
+ *
+ * Only the SHA-256 digest of the token is stored. Rows are kept until the token
+ * would have expired anyway.
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_revoked_at", columnList = "revoked_at")
+})
+public class RevokedToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "token_digest", nullable = false, unique = true, length = 64)
+    private String tokenDigest;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+
+    protected RevokedToken() {}
+
+    public RevokedToken(String tokenDigest, Instant expiresAt, Instant revokedAt) {
+        this.tokenDigest = tokenDigest;
+        this.expiresAt = expiresAt;
+        this.revokedAt = revokedAt;
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getTokenDigest() { return tokenDigest; }
+    public void setTokenDigest(String tokenDigest) { this.tokenDigest = tokenDigest; }
+
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+
+    public Instant getRevokedAt() { return revokedAt; }
+    public void setRevokedAt(Instant revokedAt) { this.revokedAt = revokedAt; }
+}
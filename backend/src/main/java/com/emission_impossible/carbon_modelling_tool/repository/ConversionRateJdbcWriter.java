@@ -0,0 +1,39 @@
+package com.emission_impossible.carbon_modelling_tool.repository;
+
+import com.emission_impossible.carbon_modelling_tool.model.ConversionRate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Inserts conversion_rates rows with plain JDBC batches.
+ *
+ * Same reasoning as {@link EmissionsDataJdbcWriter}: ConversionRate uses
+ * IDENTITY ids, so saveAll() would still be one INSERT per rate.
+ * Callers must refresh the ConversionRateMatrix if it is already loaded.
+ */
+@Repository
+public class ConversionRateJdbcWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO conversion_rates (year_value, rate, unit, description, emission_type_id, location_id) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ConversionRateJdbcWriter(JdbcTemplate jdbcTemplate){
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Only the ids of the emission type and location are used
+    public void insert(List<ConversionRate> conversionRates){
+        this.jdbcTemplate.batchUpdate(INSERT_SQL, conversionRates, EmissionsDataJdbcWriter.BATCH_SIZE, (statement, conversionRate) -> {
+            statement.setInt(1, conversionRate.getYear());
+            statement.setDouble(2, conversionRate.getRate());
+            statement.setString(3, conversionRate.getUnit());
+            statement.setString(4, conversionRate.getDescription());
+            statement.setLong(5, conversionRate.getEmissionType().getId());
+            statement.setLong(6, conversionRate.getLocation().getId());
+        });
+    }
+}
@@ -1,8 +1,10 @@
 package com.emission_impossible.carbon_modelling_tool.repository;
 
+import com.emission_impossible.carbon_modelling_tool.dto.ConversionRateEntry;
 import com.emission_impossible.carbon_modelling_tool.model.ConversionRate;
 import com.emission_impossible.carbon_modelling_tool.model.Location;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -21,4 +23,9 @@ public interface ConversionRateRepository extends JpaRepository<ConversionRate,
 
     public List<ConversionRate>  findByLocationAndYear(Location location, int year);
 
+    // Every rate as (emissionTypeId, locationId, year, rate) in a single query.
+    // Used to load ConversionRateMatrix without materialising the related entities.
+    @Query("SELECT new com.emission_impossible.carbon_modelling_tool.dto.ConversionRateEntry(cr.emissionType.id, cr.location.id, cr.year, cr.rate) FROM ConversionRate cr")
+    List<ConversionRateEntry> findAllEntries();
+
 }
\ No newline at end of file
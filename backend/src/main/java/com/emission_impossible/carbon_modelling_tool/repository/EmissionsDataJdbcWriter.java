@@ -0,0 +1,44 @@
+package com.emission_impossible.carbon_modelling_tool.repository;
+
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionReadingDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.util.List;
+
+/**
+ * Inserts emissions_data rows with plain JDBC batches.
+ *
+ * EmissionsData uses IDENTITY ids, which stops Hibernate from batching its
+ * inserts: every save() is its own round trip. Writing through JdbcTemplate
+ * sends BATCH_SIZE rows per round trip instead (and, on MySQL with
+ * rewriteBatchedStatements=true, as one multi-row INSERT).
+ *
+ * Rows written here bypass the persistence context, so callers are responsible
+ * for anything derived from emissions_data (e.g. the monthly rollup).
+ */
+@Repository
+public class EmissionsDataJdbcWriter {
+
+    public static final int BATCH_SIZE = 1000;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO emissions_data (date, emission_value, emission_type_id, location_id) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EmissionsDataJdbcWriter(JdbcTemplate jdbcTemplate){
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Rows must already be validated: every field set and a conversion rate present
+    public void insert(List<EmissionReadingDTO> readings){
+        this.jdbcTemplate.batchUpdate(INSERT_SQL, readings, BATCH_SIZE, (statement, reading) -> {
+            statement.setDate(1, Date.valueOf(reading.getDate()));
+            statement.setDouble(2, reading.getValue());
+            statement.setLong(3, reading.getEmissionTypeId());
+            statement.setLong(4, reading.getLocationId());
+        });
+    }
+}
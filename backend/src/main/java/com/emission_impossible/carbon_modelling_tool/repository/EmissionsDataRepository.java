@@ -1,16 +1,59 @@
 package com.emission_impossible.carbon_modelling_tool.repository;
 
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionsDataDTO;
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionsFact;
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionsMonthlyTotal;
 import com.emission_impossible.carbon_modelling_tool.model.EmissionType;
 import com.emission_impossible.carbon_modelling_tool.model.EmissionsData;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface EmissionsDataRepository extends JpaRepository<EmissionsData, Long> {
+
+    // emissions_data joined to its location, emission type and the conversion
+    // rate for the record's year. Shared by the aggregate queries below.
+    //
+    // Note: the conversion rate is an inner join, so aggregates only cover
+    // records with a conversion rate for their emission type, location and
+    // year. EmissionsDataService rejects new records without one; the rest
+    // (e.g. seeded records, or rates deleted later) are counted by
+    // countWithoutConversionRate and reported by EmissionsRollupService.
+    String EMISSIONS_JOIN = "FROM EmissionsData e "
+            + "JOIN e.location l "
+            + "JOIN e.emissionType t "
+            + "JOIN ConversionRate cr ON cr.emissionType = t AND cr.location = l AND cr.year = EXTRACT(YEAR FROM e.date) ";
+
+    // As EMISSIONS_JOIN, but keeping records without a conversion rate (cr is null)
+    String EMISSIONS_LEFT_JOIN = "FROM EmissionsData e "
+            + "JOIN e.location l "
+            + "JOIN e.emissionType t "
+            + "LEFT JOIN ConversionRate cr ON cr.emissionType = t AND cr.location = l AND cr.year = EXTRACT(YEAR FROM e.date) ";
+
+    // Builds EmissionsDataDTO (including co2e) directly in the database,
+    // so no extra queries are run per row. Every record is listed: co2e is
+    // null for records without a conversion rate.
+    String DTO_SELECT = "SELECT new com.emission_impossible.carbon_modelling_tool.dto.EmissionsDataDTO("
+            + "e.id, e.date, e.value, e.value * cr.rate, "
+            + "l.id, l.name, l.region, "
+            + "t.id, t.name, t.unit, t.scope) "
+            + EMISSIONS_LEFT_JOIN;
+
+    // Keyset condition: rows strictly after the cursor in (date, id) order.
+    // Uses the (date, id) position instead of OFFSET, so deep pages cost the same as the first.
+    String AFTER_CURSOR = "(e.date > :afterDate OR (e.date = :afterDate AND e.id > :afterId)) ";
+
     List<EmissionsData> findByLocationId(Long locationId);
 
     List<EmissionsData> findByLocationIdIn(List<Long> locationIds);
@@ -22,4 +65,141 @@ public interface EmissionsDataRepository extends JpaRepository<EmissionsData, Lo
             LocalDate end,
             Long locationId
     );
-}
\ No newline at end of file
+
+    @Query(DTO_SELECT + "WHERE l.id = :locationId ORDER BY e.date, e.id")
+    List<EmissionsDataDTO> findDtosByLocationId(@Param("locationId") Long locationId);
+
+    @Query(DTO_SELECT + "WHERE l.client.id = :clientId ORDER BY e.date, e.id")
+    List<EmissionsDataDTO> findDtosByClientId(@Param("clientId") Long clientId);
+
+    // One partition of a client's locations (see LocationFanOut)
+    @Query(DTO_SELECT + "WHERE l.id IN :locationIds ORDER BY e.date, e.id")
+    List<EmissionsDataDTO> findDtosByLocationIdIn(@Param("locationIds") List<Long> locationIds);
+
+    @Query(DTO_SELECT + "ORDER BY e.date, e.id")
+    List<EmissionsDataDTO> findAllDtos();
+
+    @Query(DTO_SELECT + "WHERE e.date BETWEEN :start AND :end ORDER BY e.date, e.id")
+    List<EmissionsDataDTO> findDtosByDateBetween(
+            @Param("start") LocalDate start,
+            @Param("end") LocalDate end
+    );
+
+    @Query(DTO_SELECT + "WHERE e.date BETWEEN :start AND :end AND l.id = :locationId ORDER BY e.date, e.id")
+    List<EmissionsDataDTO> findDtosByDateBetweenAndLocationId(
+            @Param("start") LocalDate start,
+            @Param("end") LocalDate end,
+            @Param("locationId") Long locationId
+    );
+
+    // Paginated variants of the listings above (see EmissionsPageCursor)
+
+    @Query(DTO_SELECT + "WHERE l.id = :locationId AND " + AFTER_CURSOR + "ORDER BY e.date, e.id")
+    List<EmissionsDataDTO> findDtoPageByLocationId(
+            @Param("locationId") Long locationId,
+            @Param("afterDate") LocalDate afterDate,
+            @Param("afterId") Long afterId,
+            Limit limit
+    );
+
+    @Query(DTO_SELECT + "WHERE l.client.id = :clientId AND " + AFTER_CURSOR + "ORDER BY e.date, e.id")
+    List<EmissionsDataDTO> findDtoPageByClientId(
+            @Param("clientId") Long clientId,
+            @Param("afterDate") LocalDate afterDate,
+            @Param("afterId") Long afterId,
+            Limit limit
+    );
+
+    // One partition of a client's locations (see LocationFanOut)
+    @Query(DTO_SELECT + "WHERE l.id IN :locationIds AND " + AFTER_CURSOR + "ORDER BY e.date, e.id")
+    List<EmissionsDataDTO> findDtoPageByLocationIdIn(
+            @Param("locationIds") List<Long> locationIds,
+            @Param("afterDate") LocalDate afterDate,
+            @Param("afterId") Long afterId,
+            Limit limit
+    );
+
+    @Query(DTO_SELECT + "WHERE e.date BETWEEN :start AND :end AND " + AFTER_CURSOR + "ORDER BY e.date, e.id")
+    List<EmissionsDataDTO> findDtoPageByDateBetween(
+            @Param("start") LocalDate start,
+            @Param("end") LocalDate end,
+            @Param("afterDate") LocalDate afterDate,
+            @Param("afterId") Long afterId,
+            Limit limit
+    );
+
+    @Query(DTO_SELECT + "WHERE e.date BETWEEN :start AND :end AND l.id = :locationId AND " + AFTER_CURSOR + "ORDER BY e.date, e.id")
+    List<EmissionsDataDTO> findDtoPageByDateBetweenAndLocationId(
+            @Param("start") LocalDate start,
+            @Param("end") LocalDate end,
+            @Param("locationId") Long locationId,
+            @Param("afterDate") LocalDate afterDate,
+            @Param("afterId") Long afterId,
+            Limit limit
+    );
+
+    // Aggregates: calculated by the database, only the result rows are returned.
+
+    // Totals per location, emission type and month.
+    // Used to rebuild emissions_monthly_rollups from scratch.
+    @Query("SELECT l.id AS locationId, t.id AS emissionTypeId, "
+            + "EXTRACT(YEAR FROM e.date) AS yearValue, EXTRACT(MONTH FROM e.date) AS monthValue, "
+            + "SUM(e.value) AS totalValue, SUM(e.value * cr.rate) AS totalCO2e, COUNT(e) AS recordCount "
+            + EMISSIONS_JOIN
+            + "GROUP BY l.id, t.id, EXTRACT(YEAR FROM e.date), EXTRACT(MONTH FROM e.date)")
+    List<EmissionsMonthlyTotal> findMonthlyTotals();
+
+    // As findMonthlyTotals, for one emission type and location between two dates.
+    // Used to add records to the rollup once a conversion rate is created for them.
+    @Query("SELECT l.id AS locationId, t.id AS emissionTypeId, "
+            + "EXTRACT(YEAR FROM e.date) AS yearValue, EXTRACT(MONTH FROM e.date) AS monthValue, "
+            + "SUM(e.value) AS totalValue, SUM(e.value * cr.rate) AS totalCO2e, COUNT(e) AS recordCount "
+            + EMISSIONS_JOIN
+            + "WHERE t.id = :emissionTypeId AND l.id = :locationId AND e.date >= :from AND e.date < :to "
+            + "GROUP BY l.id, t.id, EXTRACT(YEAR FROM e.date), EXTRACT(MONTH FROM e.date)")
+    List<EmissionsMonthlyTotal> findMonthlyTotals(
+            @Param("emissionTypeId") Long emissionTypeId,
+            @Param("locationId") Long locationId,
+            @Param("from") LocalDate from,
+            @Param("to") LocalDate to
+    );
+
+    // Number of records that have a conversion rate, i.e. that the rollup should cover
+    @Query("SELECT COUNT(e) " + EMISSIONS_JOIN)
+    long countWithConversionRate();
+
+    // Number of records left out of every aggregate for want of a conversion rate
+    @Query("SELECT COUNT(e) " + EMISSIONS_LEFT_JOIN + "WHERE cr.id IS NULL")
+    long countWithoutConversionRate();
+
+    // Total CO2e for a date range, optionally restricted to one scope (null = all scopes)
+    @Query("SELECT COALESCE(SUM(e.value * cr.rate), 0.0) " + EMISSIONS_JOIN
+            + "WHERE e.date BETWEEN :start AND :end AND (:scope IS NULL OR t.scope = :scope)")
+    Double sumCO2eByDateBetween(
+            @Param("start") LocalDate start,
+            @Param("end") LocalDate end,
+            @Param("scope") String scope
+    );
+
+    @Query("SELECT COALESCE(SUM(e.value * cr.rate), 0.0) " + EMISSIONS_JOIN
+            + "WHERE e.date BETWEEN :start AND :end AND l.id IN :locationIds AND (:scope IS NULL OR t.scope = :scope)")
+    Double sumCO2eByDateBetweenAndLocationIdIn(
+            @Param("start") LocalDate start,
+            @Param("end") LocalDate end,
+            @Param("locationIds") List<Long> locationIds,
+            @Param("scope") String scope
+    );
+
+    // Every record with its conversion rate, as flat rows rather than entities.
+    // Must be consumed inside a transaction and closed (try-with-resources).
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.emission_impossible.carbon_modelling_tool.dto.EmissionsFact(e.date, e.value, l.id, t.id, t.scope, cr.rate) " + EMISSIONS_JOIN)
+    Stream<EmissionsFact> streamFacts();
+
+    // Every record as an EmissionsDataDTO, the same rows as the listings above,
+    // as a stream rather than a list. Fetched from the database in batches of
+    // 1000 rows. Must be consumed inside a transaction and closed (try-with-resources).
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(DTO_SELECT + "ORDER BY e.id")
+    Stream<EmissionsDataDTO> streamAllDtos();
+}
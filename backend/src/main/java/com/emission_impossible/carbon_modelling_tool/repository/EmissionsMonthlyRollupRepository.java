@@ -0,0 +1,95 @@
+package com.emission_impossible.carbon_modelling_tool.repository;
+
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionTypeTotal;
+import com.emission_impossible.carbon_modelling_tool.dto.LocationCO2eTotal;
+import com.emission_impossible.carbon_modelling_tool.model.EmissionsMonthlyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface EmissionsMonthlyRollupRepository extends JpaRepository<EmissionsMonthlyRollup, Long> {
+
+    Optional<EmissionsMonthlyRollup> findByLocationIdAndEmissionTypeIdAndYearAndMonth(
+            Long locationId,
+            Long emissionTypeId,
+            int year,
+            int month
+    );
+
+    // Add to a month's totals, creating its row if there is none yet, in one
+    // statement. Concurrent calls for the same month add up correctly, even for
+    // the first records of a month: a row lock cannot cover a row that does not
+    // exist yet, but the unique key turns the second insert into an update.
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO emissions_monthly_rollups "
+            + "(location_id, emission_type_id, year_value, month_value, totalValue, totalCO2e, recordCount) "
+            + "VALUES (:locationId, :emissionTypeId, :year, :month, :value, :co2e, :count) "
+            + "ON DUPLICATE KEY UPDATE totalValue = totalValue + :value, totalCO2e = totalCO2e + :co2e, recordCount = recordCount + :count",
+            nativeQuery = true)
+    int addToMonth(
+            @Param("locationId") Long locationId,
+            @Param("emissionTypeId") Long emissionTypeId,
+            @Param("year") int year,
+            @Param("month") int month,
+            @Param("value") double value,
+            @Param("co2e") double co2e,
+            @Param("count") long count
+    );
+
+    @Query("SELECT COALESCE(SUM(r.totalCO2e), 0.0) FROM EmissionsMonthlyRollup r WHERE r.location.id = :locationId")
+    Double sumCO2eByLocationId(@Param("locationId") Long locationId);
+
+    @Query("SELECT COALESCE(SUM(r.totalCO2e), 0.0) FROM EmissionsMonthlyRollup r WHERE r.location.client.id = :clientId")
+    Double sumCO2eByClientId(@Param("clientId") Long clientId);
+
+    @Query("SELECT COALESCE(SUM(r.totalCO2e), 0.0) FROM EmissionsMonthlyRollup r WHERE r.location.id IN :locationIds")
+    Double sumCO2eByLocationIdIn(@Param("locationIds") List<Long> locationIds);
+
+    @Query("SELECT COALESCE(SUM(r.totalCO2e), 0.0) FROM EmissionsMonthlyRollup r WHERE r.emissionType.id = :emissionTypeId")
+    Double sumCO2eByEmissionTypeId(@Param("emissionTypeId") Long emissionTypeId);
+
+    // Everything EmissionsRunningTotals needs, in one query
+    @Query("SELECT r.location.id AS locationId, r.location.client.id AS clientId, r.emissionType.id AS emissionTypeId, "
+            + "SUM(r.totalCO2e) AS totalCO2e "
+            + "FROM EmissionsMonthlyRollup r "
+            + "GROUP BY r.location.id, r.location.client.id, r.emissionType.id")
+    List<LocationCO2eTotal> sumCO2eByLocationAndEmissionType();
+
+    @Query("SELECT t.name AS emissionTypeName, t.unit AS unit, "
+            + "SUM(r.totalValue) AS totalValue, SUM(r.totalCO2e) AS totalCO2e, SUM(r.recordCount) AS recordCount "
+            + "FROM EmissionsMonthlyRollup r JOIN r.emissionType t "
+            + "WHERE r.location.id = :locationId GROUP BY t.name, t.unit")
+    List<EmissionTypeTotal> summariseByEmissionTypeForLocation(@Param("locationId") Long locationId);
+
+    // Number of emissions records covered by the rollup.
+    // Compared with emissions_data at startup to tell whether a rebuild is needed.
+    @Query("SELECT COALESCE(SUM(r.recordCount), 0) FROM EmissionsMonthlyRollup r")
+    Long sumRecordCount();
+
+    // How much updateCO2eForRate will change the total CO2e by
+    @Query("SELECT COALESCE(SUM(r.totalValue * :rate - r.totalCO2e), 0.0) FROM EmissionsMonthlyRollup r "
+            + "WHERE r.emissionType.id = :emissionTypeId AND r.location.id = :locationId AND r.year = :year")
+    Double co2eChangeForRate(
+            @Param("emissionTypeId") Long emissionTypeId,
+            @Param("locationId") Long locationId,
+            @Param("year") int year,
+            @Param("rate") double rate
+    );
+
+    // Recalculate CO2e after a conversion rate has changed
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE EmissionsMonthlyRollup r SET r.totalCO2e = r.totalValue * :rate "
+            + "WHERE r.emissionType.id = :emissionTypeId AND r.location.id = :locationId AND r.year = :year")
+    int updateCO2eForRate(
+            @Param("emissionTypeId") Long emissionTypeId,
+            @Param("locationId") Long locationId,
+            @Param("year") int year,
+            @Param("rate") double rate
+    );
+}
@@ -2,6 +2,8 @@ package com.emission_impossible.carbon_modelling_tool.repository;
 
 import com.emission_impossible.carbon_modelling_tool.model.EmissionType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.emission_impossible.carbon_modelling_tool.model.Location;
 
@@ -16,4 +18,11 @@ public interface LocationRepository extends JpaRepository<Location, Long> {
     // Find all Locations belonging to a given Client (by client ID)
     List<Location> findByClientId(Long clientId);
 
+    // Ids only, without loading the Location entities
+    @Query("SELECT l.id FROM Location l WHERE l.client.id = :clientId ORDER BY l.id")
+    List<Long> findIdsByClientId(@Param("clientId") Long clientId);
+
+    @Query("SELECT l.client.id FROM Location l WHERE l.id = :locationId")
+    Optional<Long> findClientIdById(@Param("locationId") Long locationId);
+
 }
\ No newline at end of file
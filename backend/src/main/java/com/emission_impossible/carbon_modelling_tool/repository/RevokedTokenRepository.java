@@ -0,0 +1,28 @@
+package com.emission_impossible.carbon_modelling_tool.repository;
+
+import com.emission_impossible.carbon_modelling_tool.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    boolean existsByTokenDigest(String tokenDigest);
+
+    @Query("SELECT r.tokenDigest FROM RevokedToken r")
+    List<String> findAllTokenDigests();
+
+    @Query("SELECT r.tokenDigest FROM RevokedToken r WHERE r.revokedAt >= :since")
+    List<String> findTokenDigestsRevokedSince(@Param("since") Instant since);
+
+    // Revoked tokens that have expired need no record: they are rejected anyway
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
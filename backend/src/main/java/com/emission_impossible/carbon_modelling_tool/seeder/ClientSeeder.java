@@ -4,16 +4,20 @@ import com.emission_impossible.carbon_modelling_tool.model.Client;
 import com.emission_impossible.carbon_modelling_tool.model.EmissionType;
 import com.emission_impossible.carbon_modelling_tool.repository.ClientRepository;
 import com.emission_impossible.carbon_modelling_tool.util.CsvUtils;
-import org.springframework.boot.CommandLineRunner;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
-import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+import java.util.stream.Stream;
+
 @Component
 // Do not run in test profile
 @Profile("!test")
-@Order(1)
-public class ClientSeeder implements CommandLineRunner {
+public class ClientSeeder implements Seeder {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientSeeder.class);
 
     private final ClientRepository clientRepository;
 
@@ -23,23 +27,25 @@ public class ClientSeeder implements CommandLineRunner {
 
 
     @Override
-    public void run(String... args) {
+    public void seed() {
         if (this.clientRepository.count() > 0) {
-            System.out.println("Client Database already contains clients.");
+            log.info("Client Database already contains clients.");
             return;
         }
 
         // For each row of data in CSV file
         // Important: requires file in /src/main/resources/seed-data to run
-        CsvUtils.read("seed-data/clients.csv").forEach(row -> {
+        try (Stream<CSVRecord> rows = CsvUtils.stream("seed-data/clients.csv")) {
+            rows.forEach(row -> {
 
-            // New client type to save
-            Client client = new Client(
-                    row.get("name")
-            );
+                // New client type to save
+                Client client = new Client(
+                        row.get("name")
+                );
 
-            // Save new emission type given current CSV row
-            this.clientRepository.save(client);
-        });
+                // Save new emission type given current CSV row
+                this.clientRepository.save(client);
+            });
+        }
     }
 }
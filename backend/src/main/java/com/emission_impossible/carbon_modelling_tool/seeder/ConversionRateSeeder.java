@@ -3,62 +3,88 @@ package com.emission_impossible.carbon_modelling_tool.seeder;
 import com.emission_impossible.carbon_modelling_tool.model.ConversionRate;
 import com.emission_impossible.carbon_modelling_tool.model.EmissionType;
 import com.emission_impossible.carbon_modelling_tool.model.Location;
+import com.emission_impossible.carbon_modelling_tool.repository.ConversionRateJdbcWriter;
 import com.emission_impossible.carbon_modelling_tool.repository.ConversionRateRepository;
 import com.emission_impossible.carbon_modelling_tool.repository.EmissionTypeRepository;
 import com.emission_impossible.carbon_modelling_tool.repository.LocationRepository;
 import com.emission_impossible.carbon_modelling_tool.util.CsvUtils;
-import org.springframework.boot.CommandLineRunner;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
-import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
 @Component
 // Do not run in test profile
 @Profile("!test")
-@Order(4)
-public class ConversionRateSeeder implements CommandLineRunner {
+public class ConversionRateSeeder implements Seeder {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversionRateSeeder.class);
 
     private final ConversionRateRepository conversionRateRepository;
+    private final ConversionRateJdbcWriter conversionRateJdbcWriter;
     private final EmissionTypeRepository emissionTypeRepository;
     private final LocationRepository locationRepository;
+    private final SeedingPipeline seedingPipeline;
 
-    public ConversionRateSeeder(ConversionRateRepository conversionRateRepository, EmissionTypeRepository emissionTypeRepository, LocationRepository locationRepository){
+    public ConversionRateSeeder(ConversionRateRepository conversionRateRepository, ConversionRateJdbcWriter conversionRateJdbcWriter, EmissionTypeRepository emissionTypeRepository, LocationRepository locationRepository, SeedingPipeline seedingPipeline){
         this.conversionRateRepository = conversionRateRepository;
+        this.conversionRateJdbcWriter = conversionRateJdbcWriter;
         this.emissionTypeRepository = emissionTypeRepository;
         this.locationRepository = locationRepository;
+        this.seedingPipeline = seedingPipeline;
+    }
+
+    // Rates are looked up by emission type and location name
+    @Override
+    public Set<Class<? extends Seeder>> dependsOn() {
+        return Set.of(EmissionTypeSeeder.class, LocationSeeder.class);
     }
 
     @Override
-    public void run(String... args) {
+    public void seed() {
         if (conversionRateRepository.count() > 0) {
-            System.out.println("Conversion Rate Database already contains conversion rates.");
+            log.info("Conversion Rate Database already contains conversion rates.");
             return;
         }
 
+        // Look up every emission type and location once, not once per row
+        Map<String, EmissionType> emissionTypes = SeedingPipeline.byName(emissionTypeRepository.findAll(), EmissionType::getName);
+        Map<String, Location> locations = SeedingPipeline.byName(locationRepository.findAll(), Location::getName);
+
         // For each row of data in CSV file
         // Important: requires file in /src/main/resources/seed-data to run
-        CsvUtils.read("seed-data/conversion_rates.csv").forEach(row -> {
+        //
+        // The conversion rate matrix loads once the application is ready,
+        // so it sees every rate written here.
+        try (Stream<CSVRecord> rows = CsvUtils.stream("seed-data/conversion_rates.csv")) {
+            seedingPipeline.run("conversion rate", rows::iterator, row -> {
 
-            EmissionType emissionType = emissionTypeRepository
-                    .findByName(row.get("emissionType"))
-                    .orElseThrow(() -> new RuntimeException("Emission Type not found"));
+                EmissionType emissionType = emissionTypes.get(row.get("emissionType"));
+                if (emissionType == null) {
+                    throw new RuntimeException("Emission Type not found");
+                }
 
-            Location location = locationRepository
-                    .findByName(row.get("location"))
-                    .orElseThrow(() -> new RuntimeException("Location not found"));
+                Location location = locations.get(row.get("location"));
+                if (location == null) {
+                    throw new RuntimeException("Location not found");
+                }
 
-            // New conversion rate to save
-            ConversionRate conversionRate = new ConversionRate(
-                    Integer.parseInt(row.get("year")),
-                    Double.parseDouble(row.get("value")),
-                    row.get("unit"),
-                    row.get("description"),
-                    emissionType,
-                    location
-            );
-
-            conversionRateRepository.save(conversionRate);
-        });
+                // New conversion rate to save
+                return new ConversionRate(
+                        Integer.parseInt(row.get("year")),
+                        Double.parseDouble(row.get("value")),
+                        row.get("unit"),
+                        row.get("description"),
+                        emissionType,
+                        location
+                );
+            }, conversionRateJdbcWriter::insert);
+        }
     }
 
 }
@@ -3,16 +3,20 @@ package com.emission_impossible.carbon_modelling_tool.seeder;
 import com.emission_impossible.carbon_modelling_tool.model.EmissionType;
 import com.emission_impossible.carbon_modelling_tool.repository.EmissionTypeRepository;
 import com.emission_impossible.carbon_modelling_tool.util.CsvUtils;
-import org.springframework.boot.CommandLineRunner;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
-import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+import java.util.stream.Stream;
+
 @Component
 // Do not run in test profile
 @Profile("!test")
-@Order(3)
-public class EmissionTypeSeeder implements CommandLineRunner {
+public class EmissionTypeSeeder implements Seeder {
+
+    private static final Logger log = LoggerFactory.getLogger(EmissionTypeSeeder.class);
 
     private final EmissionTypeRepository emissionTypeRepository;
 
@@ -22,26 +26,28 @@ public class EmissionTypeSeeder implements CommandLineRunner {
 
 
     @Override
-    public void run(String... args) {
+    public void seed() {
         if (this.emissionTypeRepository.count() > 0) {
-            System.out.println("Emission Type Database already contains emission types.");
+            log.info("Emission Type Database already contains emission types.");
             return;
         }
 
         // For each row of data in CSV file
         // Important: requires file in /src/main/resources/seed-data to run
-        CsvUtils.read("seed-data/emission_types.csv").forEach(row -> {
-
-            // New emission type to save
-            EmissionType emissionType = new EmissionType(
-                    row.get("name"),
-                    row.get("unit"),
-                    row.get("scope"),
-                    row.get("description")
-            );
-
-            // Save new emission type given current CSV row
-            this.emissionTypeRepository.save(emissionType);
-        });
+        try (Stream<CSVRecord> rows = CsvUtils.stream("seed-data/emission_types.csv")) {
+            rows.forEach(row -> {
+
+                // New emission type to save
+                EmissionType emissionType = new EmissionType(
+                        row.get("name"),
+                        row.get("unit"),
+                        row.get("scope"),
+                        row.get("description")
+                );
+
+                // Save new emission type given current CSV row
+                this.emissionTypeRepository.save(emissionType);
+            });
+        }
     }
 }
@@ -1,66 +1,89 @@
 package com.emission_impossible.carbon_modelling_tool.seeder;
 
-import com.emission_impossible.carbon_modelling_tool.model.ConversionRate;
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionReadingDTO;
 import com.emission_impossible.carbon_modelling_tool.model.EmissionType;
-import com.emission_impossible.carbon_modelling_tool.model.EmissionsData;
 import com.emission_impossible.carbon_modelling_tool.model.Location;
-import com.emission_impossible.carbon_modelling_tool.repository.ConversionRateRepository;
 import com.emission_impossible.carbon_modelling_tool.repository.EmissionTypeRepository;
+import com.emission_impossible.carbon_modelling_tool.repository.EmissionsDataJdbcWriter;
 import com.emission_impossible.carbon_modelling_tool.repository.EmissionsDataRepository;
 import com.emission_impossible.carbon_modelling_tool.repository.LocationRepository;
 import com.emission_impossible.carbon_modelling_tool.util.CsvUtils;
-import org.springframework.boot.CommandLineRunner;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
-import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Component
 // Do not run in test profile
 @Profile("!test")
-@Order(5)
-public class EmissionsDataSeeder implements CommandLineRunner {
+public class EmissionsDataSeeder implements Seeder {
+
+    private static final Logger log = LoggerFactory.getLogger(EmissionsDataSeeder.class);
 
     private final EmissionsDataRepository emissionsDataRepository;
+    private final EmissionsDataJdbcWriter emissionsDataJdbcWriter;
     private final EmissionTypeRepository emissionTypeRepository;
     private final LocationRepository locationRepository;
+    private final SeedingPipeline seedingPipeline;
 
-    public EmissionsDataSeeder(EmissionsDataRepository emissionsDataRepository, EmissionTypeRepository emissionTypeRepository, LocationRepository locationRepository){
+    public EmissionsDataSeeder(EmissionsDataRepository emissionsDataRepository, EmissionsDataJdbcWriter emissionsDataJdbcWriter, EmissionTypeRepository emissionTypeRepository, LocationRepository locationRepository, SeedingPipeline seedingPipeline){
         this.emissionsDataRepository = emissionsDataRepository;
+        this.emissionsDataJdbcWriter = emissionsDataJdbcWriter;
         this.emissionTypeRepository = emissionTypeRepository;
         this.locationRepository = locationRepository;
+        this.seedingPipeline = seedingPipeline;
+    }
+
+    // Readings are looked up by emission type and location name
+    @Override
+    public Set<Class<? extends Seeder>> dependsOn() {
+        return Set.of(EmissionTypeSeeder.class, LocationSeeder.class);
     }
 
     @Override
-    public void run(String... args) {
+    public void seed() {
         if (this.emissionsDataRepository.count() > 0) {
-            System.out.println("Emissions Data Database already contains emissions data.");
+            log.info("Emissions Data Database already contains emissions data.");
             return;
         }
 
+        // Look up every emission type and location once, not once per row
+        Map<String, EmissionType> emissionTypes = SeedingPipeline.byName(this.emissionTypeRepository.findAll(), EmissionType::getName);
+        Map<String, Location> locations = SeedingPipeline.byName(this.locationRepository.findAll(), Location::getName);
+
         // For each row of data in CSV file
         // Important: requires file in /src/main/resources/seed-data to run
-        CsvUtils.read("seed-data/emissions_data.csv").forEach(row -> {
-
-            EmissionType emissionType = emissionTypeRepository
-                    .findByName(row.get("emissionType"))
-                    .orElseThrow(() -> new RuntimeException("EmissionType not found"));
+        //
+        // Rows are written with JDBC batches. The monthly rollup is rebuilt
+        // from emissions_data once the application is ready.
+        try (Stream<CSVRecord> rows = CsvUtils.stream("seed-data/emissions_data.csv")) {
+            this.seedingPipeline.run("emissions data", rows::iterator, row -> {
 
-            Location location = locationRepository
-                    .findByName(row.get("location"))
-                    .orElseThrow(() -> new RuntimeException("Location not found"));
+                EmissionType emissionType = emissionTypes.get(row.get("emissionType"));
+                if (emissionType == null) {
+                    throw new RuntimeException("EmissionType not found");
+                }
 
-            // New emissions data to save
-            EmissionsData emissionData = new EmissionsData(
-                    LocalDate.parse(row.get("date")),
-                    Double.parseDouble(row.get("amount")),
-                    emissionType,
-                    location
-            );
+                Location location = locations.get(row.get("location"));
+                if (location == null) {
+                    throw new RuntimeException("Location not found");
+                }
 
-            this.emissionsDataRepository.save(emissionData);
-        });
+                // New emissions data to save
+                return new EmissionReadingDTO(
+                        emissionType.getId(),
+                        location.getId(),
+                        LocalDate.parse(row.get("date")),
+                        Double.parseDouble(row.get("amount"))
+                );
+            }, this.emissionsDataJdbcWriter::insert);
+        }
     }
 
 }
@@ -7,18 +7,22 @@ import com.emission_impossible.carbon_modelling_tool.model.Location;
 import com.emission_impossible.carbon_modelling_tool.repository.ClientRepository;
 import com.emission_impossible.carbon_modelling_tool.repository.LocationRepository;
 import com.emission_impossible.carbon_modelling_tool.util.CsvUtils;
-import org.springframework.boot.CommandLineRunner;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
-import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Component
 // Do not run in test profile
 @Profile("!test")
-@Order(2)
-public class LocationSeeder implements CommandLineRunner {
+public class LocationSeeder implements Seeder {
+
+    private static final Logger log = LoggerFactory.getLogger(LocationSeeder.class);
 
     private final LocationRepository locationRepository;
     private final ClientRepository clientRepository;
@@ -47,29 +51,37 @@ public class LocationSeeder implements CommandLineRunner {
 //    }
 
 
+    // Each location belongs to a client
     @Override
-    public void run(String... args) {
+    public Set<Class<? extends Seeder>> dependsOn() {
+        return Set.of(ClientSeeder.class);
+    }
+
+    @Override
+    public void seed() {
         if (this.locationRepository.count() > 0) {
-            System.out.println("Locations Database already contains locations data.");
+            log.info("Locations Database already contains locations data.");
             return;
         }
 
         // For each row of data in CSV file
         // Important: requires file in /src/main/resources/seed-data to run
-        CsvUtils.read("seed-data/locations.csv").forEach(row -> {
+        try (Stream<CSVRecord> rows = CsvUtils.stream("seed-data/locations.csv")) {
+            rows.forEach(row -> {
 
-            Client foundClient = this.clientRepository.findByName(row.get("clientName")).orElseThrow(() -> new RuntimeException("Client not found"));
+                Client foundClient = this.clientRepository.findByName(row.get("clientName")).orElseThrow(() -> new RuntimeException("Client not found"));
 
 
-            // New location to save
-            Location location = new Location(
-                    row.get("name"),
-                    row.get("region"),
-                    foundClient
-            );
+                // New location to save
+                Location location = new Location(
+                        row.get("name"),
+                        row.get("region"),
+                        foundClient
+                );
 
-            this.locationRepository.save(location);
-        });
+                this.locationRepository.save(location);
+            });
+        }
     }
 
 
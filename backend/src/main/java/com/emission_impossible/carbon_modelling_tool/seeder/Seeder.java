@@ -0,0 +1,20 @@
+package com.emission_impossible.carbon_modelling_tool.seeder;
+
+import java.util.Set;
+
+/**
+ * One step of seeding a fresh database, run at startup by {@link SeedingOrchestrator}.
+ *
+ * <p>A seeder only starts once every seeder it depends on has finished.
+ * Seeders with no dependency between them may run at the same time.</p>
+ */
+public interface Seeder {
+
+    // Seeders that must finish before this one starts
+    default Set<Class<? extends Seeder>> dependsOn() {
+        return Set.of();
+    }
+
+    // Populate the table(s) this seeder owns. Should do nothing if they already hold data.
+    void seed();
+}
@@ -0,0 +1,139 @@
+package com.emission_impossible.carbon_modelling_tool.seeder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs every {@link Seeder} at startup, in dependency order.
+ *
+ * <p>Each seeder starts as soon as the seeders it depends on have finished,
+ * so independent seeders (e.g. emission types and clients) run at the same
+ * time. Startup fails if any seeder fails; seeders that depend on it do not run.</p>
+ *
+ * <p>The time each seeder took is logged and kept in {@link #getTimings()}.</p>
+ */
+@Component
+// Do not run in test profile
+@Profile("!test")
+public class SeedingOrchestrator implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SeedingOrchestrator.class);
+
+    private final List<Seeder> seeders;
+
+    // Milliseconds per seeder, by seeder name
+    private final Map<String, Long> timings = new ConcurrentHashMap<>();
+
+    public SeedingOrchestrator(List<Seeder> seeders){
+        this.seeders = seeders;
+    }
+
+    @Override
+    public void run(String... args) {
+        seed();
+    }
+
+    public Map<String, Long> getTimings() {
+        return Map.copyOf(this.timings);
+    }
+
+    public void seed(){
+        long start = System.nanoTime();
+
+        List<Seeder> ordered = inDependencyOrder();
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, ordered.size()));
+        try {
+            Map<Class<?>, CompletableFuture<Void>> futures = new HashMap<>();
+
+            // Dependencies always come first in 'ordered', so their futures already exist
+            for (Seeder seeder : ordered) {
+                CompletableFuture<?>[] dependencies = seeder.dependsOn().stream()
+                        .map(futures::get)
+                        .toArray(CompletableFuture[]::new);
+
+                futures.put(ClassUtils.getUserClass(seeder), CompletableFuture.allOf(dependencies)
+                        .thenRunAsync(() -> runTimed(seeder), executor));
+            }
+
+            CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            throw new RuntimeException("Seeding failed", e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+
+        log.info("Seeding finished in {} ms. Per seeder (ms): {}",
+                (System.nanoTime() - start) / 1_000_000, this.timings);
+    }
+
+    private void runTimed(Seeder seeder){
+        long start = System.nanoTime();
+        try {
+            seeder.seed();
+        } finally {
+            this.timings.put(nameOf(seeder), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    // Seeders sorted so each comes after everything it depends on.
+    // Fails on a dependency that is not a registered seeder, or on a cycle.
+    List<Seeder> inDependencyOrder(){
+        Map<Class<?>, Seeder> byClass = new LinkedHashMap<>();
+        this.seeders.forEach(seeder -> byClass.put(ClassUtils.getUserClass(seeder), seeder));
+
+        List<Seeder> ordered = new ArrayList<>();
+        Set<Class<?>> done = new HashSet<>();
+        Set<Class<?>> visiting = new HashSet<>();
+
+        for (Class<?> type : byClass.keySet()) {
+            visit(type, byClass, done, visiting, ordered);
+        }
+
+        return ordered;
+    }
+
+    private static void visit(Class<?> type, Map<Class<?>, Seeder> byClass, Set<Class<?>> done, Set<Class<?>> visiting, List<Seeder> ordered){
+        if (done.contains(type)) {
+            return;
+        }
+
+        if (!visiting.add(type)) {
+            throw new IllegalStateException(String.format("Seeder dependency cycle through %s", type.getSimpleName()));
+        }
+
+        Seeder seeder = byClass.get(type);
+
+        for (Class<? extends Seeder> dependency : seeder.dependsOn()) {
+            if (!byClass.containsKey(dependency)) {
+                throw new IllegalStateException(String.format("%s depends on %s, which is not a registered seeder", type.getSimpleName(), dependency.getSimpleName()));
+            }
+            visit(dependency, byClass, done, visiting, ordered);
+        }
+
+        visiting.remove(type);
+        done.add(type);
+        ordered.add(seeder);
+    }
+
+    private static String nameOf(Seeder seeder){
+        return ClassUtils.getUserClass(seeder).getSimpleName();
+    }
+}
@@ -0,0 +1,81 @@
+package com.emission_impossible.carbon_modelling_tool.seeder;
+
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Shared write path for the large CSV seeders.
+ *
+ * <p>Rows are mapped one at a time and handed to the writer in chunks of
+ * {@link #CHUNK_SIZE}, each chunk in its own transaction, so a seed file never
+ * has to be held as entities and a failure only rolls back the current chunk.
+ * Throughput is logged once the file is done.</p>
+ *
+ * <p>Mappers should resolve names against maps built once with {@link #byName}
+ * rather than querying per row.</p>
+ */
+@Component
+public class SeedingPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(SeedingPipeline.class);
+
+    public static final int CHUNK_SIZE = 5000;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public SeedingPipeline(PlatformTransactionManager transactionManager){
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Map every row and write the results in chunked transactions. Returns the number of rows written.
+    public <T> long run(String name, Iterable<CSVRecord> rows, Function<CSVRecord, T> mapper, Consumer<List<T>> writer){
+        long start = System.nanoTime();
+        long count = 0;
+
+        List<T> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        for (CSVRecord row : rows) {
+            chunk.add(mapper.apply(row));
+
+            if (chunk.size() == CHUNK_SIZE) {
+                count += write(chunk, writer);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            count += write(chunk, writer);
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        double rowsPerSecond = elapsedNanos == 0 ? 0.0 : count / (elapsedNanos / 1_000_000_000.0);
+
+        log.info("Seeded {} {} rows in {} ms ({} rows/s).", count, name, elapsedNanos / 1_000_000, Math.round(rowsPerSecond));
+
+        return count;
+    }
+
+    // Index entities by name, e.g. to turn the 'location' column of a seed file into a Location
+    public static <E> Map<String, E> byName(Collection<E> entities, Function<E, String> name){
+        Map<String, E> byName = new HashMap<>();
+        entities.forEach(entity -> byName.put(name.apply(entity), entity));
+        return byName;
+    }
+
+    private <T> int write(List<T> chunk, Consumer<List<T>> writer){
+        this.transactionTemplate.executeWithoutResult(status -> writer.accept(chunk));
+        return chunk.size();
+    }
+}
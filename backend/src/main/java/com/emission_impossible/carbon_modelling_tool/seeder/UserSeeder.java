@@ -2,18 +2,19 @@ package com.emission_impossible.carbon_modelling_tool.seeder;
 
 import com.emission_impossible.carbon_modelling_tool.model.User;
 import com.emission_impossible.carbon_modelling_tool.repository.UserRepository;
-import org.springframework.boot.CommandLineRunner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Profile;
-import org.springframework.core.annotation.Order;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
 @Component
 // Do not run in test profile
 @Profile("!test")
-// Make the last seeder class to be run: it has no dependencies.
-@Order(6)
-public class UserSeeder implements CommandLineRunner {
+// Has no dependencies, so it runs alongside the other seeders.
+public class UserSeeder implements Seeder {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSeeder.class);
 
     private final UserRepository userRepository;
     // Password Encoder comes from spring boot security
@@ -33,14 +34,14 @@ public class UserSeeder implements CommandLineRunner {
      * not stored unencrypted in database
      */
     @Override
-    public void run(String... args) {
+    public void seed() {
         if (userRepository.count() == 0) {
             userRepository.save(new User("Jack Bauer", "jack@email.com", this.passwordEncoder.encode("password")));
             userRepository.save(new User("Fox Mulder", "fox@email.com", this.passwordEncoder.encode("password")));
 
-            System.out.println("Database initialised with default users.");
+            log.info("Database initialised with default users.");
         } else {
-            System.out.println("Database already contains users.");
+            log.info("Database already contains users.");
         }
     }
 }
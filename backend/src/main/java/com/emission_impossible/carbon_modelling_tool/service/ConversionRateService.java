@@ -1,21 +1,35 @@
 package com.emission_impossible.carbon_modelling_tool.service;
 
+import com.emission_impossible.carbon_modelling_tool.analytics.EmissionsColumnStore;
+import com.emission_impossible.carbon_modelling_tool.cache.ConversionRateMatrix;
 import com.emission_impossible.carbon_modelling_tool.model.ConversionRate;
 import com.emission_impossible.carbon_modelling_tool.model.EmissionType;
 import com.emission_impossible.carbon_modelling_tool.model.Location;
 import com.emission_impossible.carbon_modelling_tool.repository.ConversionRateRepository;
 import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class ConversionRateService {
 
     private final ConversionRateRepository conversionRateRepository;
 
-    public ConversionRateService(ConversionRateRepository conversionRateRepository){
+    private final ConversionRateMatrix conversionRateMatrix;
+
+    private final EmissionsRollupService rollupService;
+
+    // Optional columnar copy of emissions_data (analytics.columnar.enabled)
+    private final ObjectProvider<EmissionsColumnStore> columnStore;
+
+    public ConversionRateService(ConversionRateRepository conversionRateRepository, ConversionRateMatrix conversionRateMatrix, EmissionsRollupService rollupService, ObjectProvider<EmissionsColumnStore> columnStore){
         this.conversionRateRepository = conversionRateRepository;
+        this.conversionRateMatrix = conversionRateMatrix;
+        this.rollupService = rollupService;
+        this.columnStore = columnStore;
     }
 
     public ConversionRate getRate(Long emissionTypeId, Long locationId, int year){
@@ -53,12 +67,14 @@ public class ConversionRateService {
         Long locationId = newRate.getLocation().getId();
         int year = newRate.getYear();
 
-        return conversionRateRepository
+        Optional<ConversionRate> existing = conversionRateRepository
                 .findByEmissionTypeIdAndLocationIdAndYear(
                         emissionTypeId,
                         locationId,
                         year
-                )
+                );
+
+        ConversionRate savedRate = existing
                 .map(existingRate -> {
                     // Update fields
                     existingRate.setRate(newRate.getRate());
@@ -69,6 +85,21 @@ public class ConversionRateService {
                 })
                 // Add new rate if rate already exists
                 .orElseGet(() -> conversionRateRepository.save(newRate));
+
+        // Patch the in-memory matrix once this transaction commits
+        conversionRateMatrix.updateRate(emissionTypeId, locationId, year, savedRate.getRate());
+
+        if (existing.isPresent()) {
+            // Recalculate the CO2e held in the monthly rollup for that year
+            rollupService.updateRate(emissionTypeId, locationId, year, savedRate.getRate());
+        } else {
+            // The year's records had no rate, so are not in the rollup yet
+            rollupService.addRate(emissionTypeId, locationId, year);
+        }
+
+        columnStore.ifAvailable(store -> store.updateRate(emissionTypeId, locationId, year, savedRate.getRate()));
+
+        return savedRate;
     }
 
     public ConversionRate getRateFor(Location location, EmissionType type, int year) {
@@ -1,89 +1,169 @@
 package com.emission_impossible.carbon_modelling_tool.service;
 
+import com.emission_impossible.carbon_modelling_tool.analytics.EmissionsColumnStore;
+import com.emission_impossible.carbon_modelling_tool.cache.ConversionRateMatrix;
+import com.emission_impossible.carbon_modelling_tool.cache.EmissionsRunningTotals;
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionTypeTotal;
 import com.emission_impossible.carbon_modelling_tool.dto.EmissionsDataDTO;
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionsFact;
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionsPageCursor;
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionsPageDTO;
 import com.emission_impossible.carbon_modelling_tool.dto.EmissionsSummaryDTO;
-import com.emission_impossible.carbon_modelling_tool.model.ConversionRate;
 import com.emission_impossible.carbon_modelling_tool.model.EmissionType;
 import com.emission_impossible.carbon_modelling_tool.model.EmissionsData;
 import com.emission_impossible.carbon_modelling_tool.model.Location;
-import com.emission_impossible.carbon_modelling_tool.repository.ConversionRateRepository;
+import com.emission_impossible.carbon_modelling_tool.repository.EmissionTypeRepository;
 import com.emission_impossible.carbon_modelling_tool.repository.EmissionsDataRepository;
+import com.emission_impossible.carbon_modelling_tool.repository.EmissionsMonthlyRollupRepository;
 import com.emission_impossible.carbon_modelling_tool.repository.LocationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class EmissionsDataService {
 
+    // Largest page the paginated listings return
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    // The order of every listing
+    private static final Comparator<EmissionsDataDTO> PAGE_ORDER =
+            Comparator.comparing(EmissionsDataDTO::getDate).thenComparing(EmissionsDataDTO::getId);
+
     private final EmissionsDataRepository emissionsDataRepository;
 
-    private final ConversionRateRepository conversionRateRepository;
+    private final EmissionTypeRepository emissionTypeRepository;
 
     private final LocationRepository locationRepository;
 
-    public EmissionsDataService(EmissionsDataRepository emissionsDataRepository, ConversionRateRepository conversionRateRepository, LocationRepository locationRepository){
+    // Conversion rates are served from memory rather than queried per record
+    private final ConversionRateMatrix conversionRateMatrix;
+
+    // Monthly totals, read by the total and summary methods
+    private final EmissionsMonthlyRollupRepository rollupRepository;
+
+    private final EmissionsRollupService rollupService;
+
+    // Live totals per location, client and emission type, for the dashboard headers
+    private final EmissionsRunningTotals runningTotals;
+
+    // Optional columnar copy of emissions_data (analytics.columnar.enabled)
+    private final ObjectProvider<EmissionsColumnStore> columnStore;
+
+    // Splits client-wide queries by location when enabled (emissions.fan-out.enabled)
+    private final LocationFanOut locationFanOut;
+
+    // Scope of each emission type seen so far, for the column store.
+    // Emission types are never changed once added.
+    private final Map<Long, String> scopeByEmissionTypeId = new ConcurrentHashMap<>();
+
+    // calculateCO2e is mostly called from inside this class (mapToDTO), which the
+    // method timers (see MethodMetricsPostProcessor) cannot see, so it is timed here
+    private final Timer co2eTimer;
+
+    public EmissionsDataService(EmissionsDataRepository emissionsDataRepository, EmissionTypeRepository emissionTypeRepository, LocationRepository locationRepository, ConversionRateMatrix conversionRateMatrix, EmissionsMonthlyRollupRepository rollupRepository, EmissionsRollupService rollupService, EmissionsRunningTotals runningTotals, ObjectProvider<EmissionsColumnStore> columnStore, LocationFanOut locationFanOut, MeterRegistry meterRegistry){
         this.emissionsDataRepository = emissionsDataRepository;
-        this.conversionRateRepository = conversionRateRepository;
+        this.emissionTypeRepository = emissionTypeRepository;
         this.locationRepository = locationRepository;
+        this.conversionRateMatrix = conversionRateMatrix;
+        this.rollupRepository = rollupRepository;
+        this.rollupService = rollupService;
+        this.runningTotals = runningTotals;
+        this.columnStore = columnStore;
+        this.locationFanOut = locationFanOut;
+        this.co2eTimer = Timer.builder("emissions.co2e.calculate")
+                .description("Time to calculate CO2e for one emissions record")
+                .register(meterRegistry);
     }
 
     public double calculateCO2e(EmissionsData emissionsData){
-        int emissionsDataYear = emissionsData.getDate().getYear();
+        long start = System.nanoTime();
 
-        ConversionRate conversionRate = this.conversionRateRepository.findByEmissionTypeIdAndLocationIdAndYear(emissionsData.getEmissionType().getId(), emissionsData.getLocation().getId(), emissionsDataYear)
-                .orElseThrow(() -> new RuntimeException(String.format("No conversion rate found for emission type %d at location %d for year %d", emissionsData.getEmissionType().getId(),  emissionsData.getLocation().getId(), emissionsDataYear)));
+        try {
+            int emissionsDataYear = emissionsData.getDate().getYear();
 
-        return emissionsData.getValue() * conversionRate.getRate();
+            double rate = this.conversionRateMatrix.getRate(emissionsData.getEmissionType().getId(), emissionsData.getLocation().getId(), emissionsDataYear);
+
+            return emissionsData.getValue() * rate;
+        } finally {
+            this.co2eTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
     }
 
+    // The insert and the monthly rollup update commit (or roll back) together
+    @Transactional
     public EmissionsData addEmission(Long emissionTypeId, Long locationId, LocalDate date, double value){
 
         int emissionsDataYear = date.getYear();
 
+        // Throws if there is no conversion rate for this emission type, location and year
+        double rate = this.conversionRateMatrix.getRate(emissionTypeId, locationId, emissionsDataYear);
 
-        ConversionRate conversionRate = this.conversionRateRepository.findByEmissionTypeIdAndLocationIdAndYear(emissionTypeId, locationId, emissionsDataYear)
-                .orElseThrow(() -> new RuntimeException(String.format("No conversion rate found for emission type %d at location %d for year %d", emissionTypeId,  locationId, emissionsDataYear)));
-
+        // The conversion rate exists, so both ids are known to be valid.
+        // References avoid loading the EmissionType and Location rows.
+        EmissionType emissionType = this.emissionTypeRepository.getReferenceById(emissionTypeId);
+        Location location = this.locationRepository.getReferenceById(locationId);
 
-        EmissionsData newEmissionData = new EmissionsData(date, value, conversionRate.getEmissionType(), conversionRate.getLocation());
+        EmissionsData newEmissionData = new EmissionsData(date, value, emissionType, location);
 
         this.emissionsDataRepository.save(newEmissionData);
 
+        this.rollupService.record(emissionTypeId, locationId, emissionsDataYear, date.getMonthValue(), value, value * rate, 1);
+
+        this.columnStore.ifAvailable(store ->
+                store.append(new EmissionsFact(date, value, locationId, emissionTypeId, scopeOf(emissionTypeId), rate)));
+
         return newEmissionData;
     }
 
+    // Looked up once per emission type rather than through the reference above,
+    // which would load the EmissionType row on every insert
+    private String scopeOf(Long emissionTypeId){
+        return this.scopeByEmissionTypeId.computeIfAbsent(emissionTypeId,
+                id -> this.emissionTypeRepository.findById(id).orElseThrow().getScope());
+    }
+
+    // The list methods below each run a single query: the DTOs, including co2e,
+    // are built by the database (see EmissionsDataRepository.DTO_SELECT).
     public List<EmissionsDataDTO> getEmissionsForLocation(Long locationId) {
-        return emissionsDataRepository.findByLocationId(locationId)
-                .stream()
-                // Use collection of EmissionsData objects.
-                // Each object will map to an instance of EmissionsDataDTO.
-                // Return this new collection.
-                .map(this::mapToDTO)
-                .toList();
+        return emissionsDataRepository.findDtosByLocationId(locationId);
     }
 
+    // For clients with many locations, the query can instead be split by
+    // location and the parts run in parallel (see LocationFanOut). The
+    // result is the same either way.
     public List<EmissionsDataDTO> getEmissionsForClient(Long clientId) {
+        List<Long> locationIds = clientLocationIdsToFanOut(clientId);
+
+        if (locationIds == null) {
+            return emissionsDataRepository.findDtosByClientId(clientId);
+        }
 
-        List<Long> locationIds = locationRepository.findByClientId(clientId)
-                .stream()
-                .map(Location::getId)
-                .toList();
+        List<EmissionsDataDTO> merged = new ArrayList<>();
+        locationFanOut.map(locationIds, emissionsDataRepository::findDtosByLocationIdIn).forEach(merged::addAll);
 
-        return emissionsDataRepository.findByLocationIdIn(locationIds)
-                .stream()
-                .map(this::mapToDTO)
-                .toList();
+        // Each part is already in (date, id) order, and List.sort (TimSort)
+        // merges sorted runs in close to linear time
+        merged.sort(PAGE_ORDER);
+        return merged;
     }
 
+    // Holds every record in memory; use EmissionsExportService for large datasets
     public List<EmissionsDataDTO> getAllEmissions() {
-        return emissionsDataRepository.findAll()
-                .stream()
-                .map(this::mapToDTO)
-                .toList();
+        return emissionsDataRepository.findAllDtos();
     }
 
     public List<EmissionsDataDTO> getEmissionsByDateRange(
@@ -92,85 +172,188 @@ public class EmissionsDataService {
             Long locationId
     ) {
 
-        List<EmissionsData> emissions;
+        if (locationId != null) {
+            return emissionsDataRepository
+                    .findDtosByDateBetweenAndLocationId(startDate, endDate, locationId);
+        }
+
+        return emissionsDataRepository
+                .findDtosByDateBetween(startDate, endDate);
+    }
+
+    // Paginated listings, ordered by (date, id).
+    //
+    // cursor is the nextCursor of the previous page, or null for the first page.
+    // pageSize is capped at MAX_PAGE_SIZE.
+    public EmissionsPageDTO getEmissionsPageForLocation(Long locationId, String cursor, int pageSize) {
+        EmissionsPageCursor after = EmissionsPageCursor.decode(cursor);
+        int size = pageSize(pageSize);
+
+        return toPage(emissionsDataRepository.findDtoPageByLocationId(locationId, after.date(), after.id(), Limit.of(size + 1)), size);
+    }
+
+    // Split by location like getEmissionsForClient when fan-out applies: each
+    // group reads its own next size + 1 rows after the cursor, and the first
+    // size + 1 of their merge are the page.
+    public EmissionsPageDTO getEmissionsPageForClient(Long clientId, String cursor, int pageSize) {
+        EmissionsPageCursor after = EmissionsPageCursor.decode(cursor);
+        int size = pageSize(pageSize);
+        Limit limit = Limit.of(size + 1);
+
+        List<Long> locationIds = clientLocationIdsToFanOut(clientId);
+
+        if (locationIds == null) {
+            return toPage(emissionsDataRepository.findDtoPageByClientId(clientId, after.date(), after.id(), limit), size);
+        }
+
+        List<List<EmissionsDataDTO>> groups = locationFanOut.map(locationIds,
+                group -> emissionsDataRepository.findDtoPageByLocationIdIn(group, after.date(), after.id(), limit));
+
+        return toPage(merge(groups, size + 1), size);
+    }
+
+    public EmissionsPageDTO getEmissionsPageByDateRange(LocalDate startDate, LocalDate endDate, Long locationId, String cursor, int pageSize) {
+        EmissionsPageCursor after = EmissionsPageCursor.decode(cursor);
+        int size = pageSize(pageSize);
 
         if (locationId != null) {
-            emissions = emissionsDataRepository
-                    .findByDateBetweenAndLocationId(startDate, endDate, locationId);
-        } else {
-            emissions = emissionsDataRepository
-                    .findByDateBetween(startDate, endDate);
+            return toPage(emissionsDataRepository.findDtoPageByDateBetweenAndLocationId(startDate, endDate, locationId, after.date(), after.id(), Limit.of(size + 1)), size);
+        }
+
+        return toPage(emissionsDataRepository.findDtoPageByDateBetween(startDate, endDate, after.date(), after.id(), Limit.of(size + 1)), size);
+    }
+
+    private static int pageSize(int requested) {
+        if (requested < 1 || requested > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException(String.format("Page size must be between 1 and %d", MAX_PAGE_SIZE));
+        }
+        return requested;
+    }
+
+    // The first limit rows of lists that are each in (date, id) order, in that order
+    private static List<EmissionsDataDTO> merge(List<List<EmissionsDataDTO>> lists, int limit) {
+        // Position of the next row to take from each list, ordered by that row
+        PriorityQueue<int[]> next = new PriorityQueue<>(Comparator.comparing(
+                (int[] position) -> lists.get(position[0]).get(position[1]), PAGE_ORDER));
+
+        for (int i = 0; i < lists.size(); i++) {
+            if (!lists.get(i).isEmpty()) {
+                next.add(new int[]{i, 0});
+            }
+        }
+
+        List<EmissionsDataDTO> merged = new ArrayList<>(limit);
+        while (merged.size() < limit && !next.isEmpty()) {
+            int[] position = next.poll();
+            List<EmissionsDataDTO> list = lists.get(position[0]);
+            merged.add(list.get(position[1]));
+
+            if (++position[1] < list.size()) {
+                next.add(position);
+            }
+        }
+        return merged;
+    }
+
+    // One extra row is fetched: if it is there, another page follows
+    private static EmissionsPageDTO toPage(List<EmissionsDataDTO> rows, int pageSize) {
+        if (rows.size() <= pageSize) {
+            return new EmissionsPageDTO(rows, null);
         }
 
-        return emissions.stream()
-                .map(this::mapToDTO)
-                .toList();
+        List<EmissionsDataDTO> items = rows.subList(0, pageSize);
+        return new EmissionsPageDTO(items, EmissionsPageCursor.after(items.get(pageSize - 1)).encode());
     }
 
+    // Totals and summaries are read from the monthly rollup
+    // (see EmissionsRollupService) rather than scanning emissions_data.
+    //
+    // The location, client and emission type totals are served from
+    // EmissionsRunningTotals when it can answer, without a query.
     public double getTotalCO2eForLocation(Long locationId) {
-        return getEmissionsForLocation(locationId)
-                .stream()
-                .mapToDouble(EmissionsDataDTO::getCo2e)
-                .sum();
+        if (runningTotals.isAvailable()) {
+            return runningTotals.getForLocation(locationId);
+        }
+        return rollupRepository.sumCO2eByLocationId(locationId);
+    }
+
+    public double getTotalCO2eForEmissionType(Long emissionTypeId) {
+        if (runningTotals.isAvailable()) {
+            return runningTotals.getForEmissionType(emissionTypeId);
+        }
+        return rollupRepository.sumCO2eByEmissionTypeId(emissionTypeId);
     }
 
     public double getTotalCO2eForClient(Long clientId) {
-        return getEmissionsForClient(clientId)
-                .stream()
-                .mapToDouble(EmissionsDataDTO::getCo2e)
+        if (runningTotals.isAvailable()) {
+            return runningTotals.getForClient(clientId);
+        }
+
+        List<Long> locationIds = clientLocationIdsToFanOut(clientId);
+
+        if (locationIds == null) {
+            return rollupRepository.sumCO2eByClientId(clientId);
+        }
+
+        return locationFanOut.map(locationIds, rollupRepository::sumCO2eByLocationIdIn).stream()
+                .mapToDouble(Double::doubleValue)
                 .sum();
     }
 
-    // Find all the Emission Data records related to the given location id.
-    // Create an overall emission data summary HashMap. Each key value pair will be an overall summary of the emission data, the key for each summary being the emissionTypeName.
-    // Return the overall emission data summary HashMap.
-    public Map<String, EmissionsSummaryDTO> getEmissionsSummaryByType(Long locationId) {
+    // The client's location ids if its queries should be split by location,
+    // otherwise null. Costs one extra (small) query when fan-out is enabled.
+    private List<Long> clientLocationIdsToFanOut(Long clientId) {
+        if (!locationFanOut.isEnabled()) {
+            return null;
+        }
 
-        // Store final results in this HashMap. Will be returned.
-        Map<String, EmissionsSummaryDTO> summary = new HashMap<>();
+        List<Long> locationIds = locationRepository.findIdsByClientId(clientId);
+        return locationFanOut.appliesTo(locationIds.size()) ? locationIds : null;
+    }
 
-        // Use given location. Loop through all emission records belonging
-        // to the location
-        for (EmissionsDataDTO _emissionsDataDTO : getEmissionsForLocation(locationId)) {
-
-            // Using the emissionsTypeName as the key to find the emissions summary,
-            // create a new emissions summary if the key does not correspond to an existing
-            // emissions summary. Otherwise, do nothing and keep the existing emissions summary
-            // associated with the given key.
-            summary.computeIfAbsent(
-                    _emissionsDataDTO.getEmissionTypeName(),
-                    key -> {
-                        EmissionsSummaryDTO esDTO = new EmissionsSummaryDTO();
-                        esDTO.setUnit(_emissionsDataDTO.getUnit());
-
-                        // Set emissions summary
-                        return esDTO;
-                    }
-            );
+    // Total CO2e between two dates (inclusive).
+    // locationIds and scope are optional filters: null means no filter.
+    //
+    // Served by the in-memory column store when it is enabled and loaded,
+    // otherwise aggregated by the database.
+    public double getTotalCO2eForDateRange(LocalDate startDate, LocalDate endDate, List<Long> locationIds, String scope) {
+        EmissionsColumnStore store = columnStore.getIfAvailable();
 
-            // Get emissions summary from the overall emissions summary Map.
-            //
-            //This object was possibly just created and added to the
-            // overall emissions summary Map. Would have happened if the
-            // emissionTypeName could not find an existing emissions summary
-            // DTO object in the summary map.
-            EmissionsSummaryDTO extractedEmissionsSummaryDto = summary.get(_emissionsDataDTO.getEmissionTypeName());
+        if (store != null && store.isLoaded()) {
+            return store.sumCO2e(startDate, endDate, locationIds, scope);
+        }
 
-            // Add this record's value to the running total
-            // (for example: total fuel used, total gas emitted, etc.)
-            extractedEmissionsSummaryDto.setTotalValue(extractedEmissionsSummaryDto.getTotalValue() + _emissionsDataDTO.getValue());
+        if (locationIds == null) {
+            return emissionsDataRepository.sumCO2eByDateBetween(startDate, endDate, scope);
+        }
 
-            // Add this record's CO2 equivalent to the running total
-            // (this is the climate impact number, accumulated over all records)
-            extractedEmissionsSummaryDto.setTotalCO2e(extractedEmissionsSummaryDto.getTotalCO2e() + _emissionsDataDTO.getCo2e());
+        if (locationIds.isEmpty()) {
+            return 0.0;
+        }
 
+        return emissionsDataRepository.sumCO2eByDateBetweenAndLocationIdIn(startDate, endDate, locationIds, scope);
+    }
 
+    // Create an overall emission data summary HashMap for the given location id.
+    // Each key value pair will be an overall summary of the emission data, the key for each summary being the emissionTypeName.
+    // Return the overall emission data summary HashMap.
+    public Map<String, EmissionsSummaryDTO> getEmissionsSummaryByType(Long locationId) {
 
-            // Increase the count by 1
-            // This tracks how many individual records were combined
-            extractedEmissionsSummaryDto.setCount(extractedEmissionsSummaryDto.getCount() + 1);
-        }
+        // Store final results in this HashMap. Will be returned.
+        Map<String, EmissionsSummaryDTO> summary = new HashMap<>();
 
+        // One row per emission type, summed from the monthly rollup
+        for (EmissionTypeTotal total : rollupRepository.summariseByEmissionTypeForLocation(locationId)) {
+            summary.put(
+                    total.getEmissionTypeName(),
+                    new EmissionsSummaryDTO(
+                            total.getTotalValue(),
+                            total.getTotalCO2e(),
+                            total.getUnit(),
+                            Math.toIntExact(total.getRecordCount())
+                    )
+            );
+        }
 
         // Return the finished emissions summary:
         // A map where:
@@ -185,7 +368,9 @@ public class EmissionsDataService {
     // Takes EmissionsData.
     // Will take all the data from EmissionsData and map it to a newly created EmissionsDataDTO object.
     // Will return that EmissionsDataDTO object.
-    private EmissionsDataDTO mapToDTO(EmissionsData emissionsData) {
+    //
+    // Package-private: also called by EmissionsComputeBenchmark.
+    EmissionsDataDTO mapToDTO(EmissionsData emissionsData) {
 
 
         // DTO (Data Transfer Object). The purpose is to reduce boilerplate code
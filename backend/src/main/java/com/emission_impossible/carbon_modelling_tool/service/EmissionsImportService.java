@@ -0,0 +1,474 @@
+package com.emission_impossible.carbon_modelling_tool.service;
+
+import com.emission_impossible.carbon_modelling_tool.dto.BulkIngestResultDTO;
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionReadingDTO;
+import com.emission_impossible.carbon_modelling_tool.dto.ImportJobDTO;
+import com.emission_impossible.carbon_modelling_tool.dto.RowFailureDTO;
+import com.emission_impossible.carbon_modelling_tool.model.EmissionType;
+import com.emission_impossible.carbon_modelling_tool.model.Location;
+import com.emission_impossible.carbon_modelling_tool.repository.EmissionTypeRepository;
+import com.emission_impossible.carbon_modelling_tool.repository.LocationRepository;
+import com.emission_impossible.carbon_modelling_tool.util.ParallelCsvReader;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.stream.Collectors;
+
+/**
+ * Imports emissions CSV files in the background.
+ *
+ * <p>Files use the same columns as seed-data/emissions_data.csv
+ * (date, location, emissionType, amount). An upload is written to
+ * {@code imports.directory} and queued; the request returns straight away
+ * with the job id. Jobs run on a small pool ({@code imports.max-concurrent}).</p>
+ *
+ * <p>Each job splits its file into chunks that are parsed in parallel by
+ * ParallelCsvReader, a few chunks ahead, and hands the rows to
+ * EmissionsIngestService in file order, {@link #CHUNK_SIZE} rows per
+ * transaction. A bad row is reported and skipped rather than failing the
+ * file. Cancelling stops the job before its next chunk; chunks already
+ * written stay in the database.</p>
+ *
+ * <p>Jobs are held in memory, so their status is lost on restart. Finished
+ * jobs (completed, failed or cancelled) are kept for {@code imports.retention},
+ * and only the latest {@code imports.max-finished} of them.</p>
+ */
+@Service
+public class EmissionsImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmissionsImportService.class);
+
+    public static final int CHUNK_SIZE = 5000;
+
+    // Bytes of the file parsed per task (see ParallelCsvReader), and how many
+    // such tasks a job keeps in flight ahead of ingestion
+    static final long PARSE_CHUNK_BYTES = 1024 * 1024;
+    private static final int PARSE_AHEAD = Runtime.getRuntime().availableProcessors();
+
+    // Row failures kept per job. Later failures are only counted.
+    public static final int MAX_REPORTED_FAILURES = 1000;
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("date", "location", "emissionType", "amount");
+
+    private final EmissionsIngestService emissionsIngestService;
+
+    private final EmissionTypeRepository emissionTypeRepository;
+
+    private final LocationRepository locationRepository;
+
+    private final Path directory;
+
+    private final ExecutorService executor;
+
+    // Parses chunks of every running import, one thread per core. Parsing is
+    // CPU-bound, so these are platform threads even with virtual threads on.
+    private final ExecutorService parser;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    private final Duration retention;
+
+    private final int maxFinished;
+
+    public EmissionsImportService(EmissionsIngestService emissionsIngestService, EmissionTypeRepository emissionTypeRepository, LocationRepository locationRepository,
+                                  @Value("${imports.directory:${java.io.tmpdir}/carbon-iq-imports}") String directory,
+                                  @Value("${imports.max-concurrent:2}") int maxConcurrent,
+                                  @Value("${imports.retention:1h}") Duration retention,
+                                  @Value("${imports.max-finished:100}") int maxFinished,
+                                  @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads){
+        this.emissionsIngestService = emissionsIngestService;
+        this.emissionTypeRepository = emissionTypeRepository;
+        this.locationRepository = locationRepository;
+        this.directory = Path.of(directory);
+        this.retention = retention;
+        this.maxFinished = maxFinished;
+
+        // Still at most maxConcurrent imports at once. Imports spend much of
+        // their time in JDBC batches, so on virtual threads they give their
+        // carrier thread back while they wait.
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("emissions-import-", 1).factory()
+                : Thread.ofPlatform().name("emissions-import-", 1).daemon(true).factory();
+        this.executor = Executors.newFixedThreadPool(maxConcurrent, threadFactory);
+        this.parser = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                Thread.ofPlatform().name("emissions-import-parser-", 1).daemon(true).factory());
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        this.executor.shutdownNow();
+        this.parser.shutdownNow();
+    }
+
+    // Store the upload and queue it. Returns the new job.
+    public ImportJobDTO submit(MultipartFile file){
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("The uploaded file is empty");
+        }
+
+        String id = UUID.randomUUID().toString();
+        ImportJob job = new ImportJob(id, file.getOriginalFilename(), this.directory.resolve(id + ".csv"));
+
+        try {
+            Files.createDirectories(this.directory);
+            file.transferTo(job.path);
+            job.fileSize = Files.size(job.path);
+        } catch (IOException e) {
+            deleteQuietly(job.path);
+            throw new RuntimeException(String.format("Failed to store upload %s", file.getOriginalFilename()), e);
+        }
+
+        // The future is set before the job can be seen, so cancel always finds it
+        FutureTask<Void> task = new FutureTask<>(() -> run(job), null);
+        job.future = task;
+
+        evictFinished();
+        this.jobs.put(id, job);
+
+        try {
+            this.executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            this.jobs.remove(id);
+            deleteQuietly(job.path);
+            throw e;
+        }
+
+        return job.toDTO();
+    }
+
+    public Optional<ImportJobDTO> getJob(String id){
+        return Optional.ofNullable(this.jobs.get(id)).map(ImportJob::toDTO);
+    }
+
+    public List<ImportJobDTO> getJobs(){
+        evictFinished();
+
+        return this.jobs.values().stream()
+                .map(ImportJob::toDTO)
+                .sorted((a, b) -> a.getCreatedAt().compareTo(b.getCreatedAt()))
+                .toList();
+    }
+
+    // Ask a job to stop. A queued job never starts; a running job stops before its next chunk.
+    public Optional<ImportJobDTO> cancel(String id){
+        ImportJob job = this.jobs.get(id);
+
+        if (job == null) {
+            return Optional.empty();
+        }
+
+        if (job.cancel()) {
+            // Never started, and now never will: take it off the queue. If its
+            // thread has already picked it up, start() refuses to run it.
+            job.future.cancel(false);
+            deleteQuietly(job.path);
+        }
+
+        return Optional.of(job.toDTO());
+    }
+
+    // Drop finished jobs older than the retention period, then all but the latest maxFinished
+    private void evictFinished(){
+        Instant cutoff = Instant.now().minus(this.retention);
+        this.jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+
+        List<ImportJob> finished = this.jobs.values().stream()
+                .filter(job -> job.finishedAt != null)
+                .sorted(Comparator.comparingLong((ImportJob job) -> job.finishNanos).reversed())
+                .toList();
+
+        finished.stream().skip(this.maxFinished).forEach(job -> this.jobs.remove(job.id, job));
+    }
+
+    private void run(ImportJob job){
+        try {
+            process(job);
+        } finally {
+            deleteQuietly(job.path);
+        }
+    }
+
+    private void process(ImportJob job){
+        if (!job.start()) {
+            // Cancelled while queued, and already finished by cancel
+            return;
+        }
+
+        try {
+            List<String> header = Arrays.asList(ParallelCsvReader.readHeader(job.path));
+            List<String> missing = REQUIRED_COLUMNS.stream().filter(column -> !header.contains(column)).toList();
+            if (!missing.isEmpty()) {
+                job.finish(ImportJobDTO.Status.FAILED, "Missing columns: " + String.join(", ", missing));
+                return;
+            }
+
+            // Look up every emission type and location once, not once per row
+            Map<String, Long> emissionTypeIds = this.emissionTypeRepository.findAll().stream()
+                    .collect(Collectors.toMap(EmissionType::getName, EmissionType::getId, (a, b) -> a));
+            Map<String, Long> locationIds = this.locationRepository.findAll().stream()
+                    .collect(Collectors.toMap(Location::getName, Location::getId, (a, b) -> a));
+
+            String[] columns = header.toArray(String[]::new);
+            List<ParallelCsvReader.Chunk> chunks = ParallelCsvReader.split(job.path, PARSE_CHUNK_BYTES);
+
+            // Chunks being parsed, in file order. Up to PARSE_AHEAD are parsed
+            // while the oldest is being ingested.
+            Deque<Future<ParsedChunk>> parsing = new ArrayDeque<>();
+            int next = 0;
+
+            try {
+                while (next < chunks.size() || !parsing.isEmpty()) {
+                    while (next < chunks.size() && parsing.size() < PARSE_AHEAD) {
+                        ParallelCsvReader.Chunk chunk = chunks.get(next++);
+                        parsing.add(this.parser.submit(() -> ParallelCsvReader.readChunk(job.path, columns, chunk,
+                                (c, rows) -> parse(c, rows, emissionTypeIds, locationIds))));
+                    }
+
+                    ParsedChunk parsed = await(parsing.poll());
+
+                    parsed.failures().forEach(job::addFailure);
+                    job.rowsProcessed += parsed.rowCount();
+
+                    for (int from = 0; from < parsed.readings().size(); from += CHUNK_SIZE) {
+                        if (job.cancelRequested) {
+                            job.finish(ImportJobDTO.Status.CANCELLED, null);
+                            return;
+                        }
+
+                        int to = Math.min(from + CHUNK_SIZE, parsed.readings().size());
+                        ingestChunk(job, parsed.readings().subList(from, to), parsed.rowNumbers().subList(from, to));
+                    }
+
+                    job.bytesRead = parsed.chunk().end();
+                }
+            } finally {
+                parsing.forEach(future -> future.cancel(true));
+            }
+
+            if (job.cancelRequested) {
+                job.finish(ImportJobDTO.Status.CANCELLED, null);
+                return;
+            }
+
+            job.finish(ImportJobDTO.Status.COMPLETED, null);
+        } catch (RuntimeException e) {
+            job.finish(ImportJobDTO.Status.FAILED, e.getMessage());
+        }
+
+        log.info("Import {} ({}) finished: {}, {} of {} rows inserted.",
+                job.id, job.fileName, job.status, job.rowsInserted, job.rowsProcessed);
+    }
+
+    private void ingestChunk(ImportJob job, List<EmissionReadingDTO> readings, List<Long> rowNumbers){
+        BulkIngestResultDTO result = this.emissionsIngestService.ingest(new ArrayList<>(readings));
+
+        job.rowsInserted += result.getInserted();
+
+        // Failure row numbers are positions in this chunk (from 1): map them back to the file
+        result.getFailures().forEach(failure ->
+                job.addFailure(new RowFailureDTO(rowNumbers.get((int) failure.rowNumber() - 1), failure.message())));
+    }
+
+    // Runs on a parser thread: turn one chunk's rows into readings, keeping the bad rows aside
+    private static ParsedChunk parse(ParallelCsvReader.Chunk chunk, Iterator<ParallelCsvReader.Row> rows,
+                                     Map<String, Long> emissionTypeIds, Map<String, Long> locationIds){
+        List<EmissionReadingDTO> readings = new ArrayList<>();
+        List<Long> rowNumbers = new ArrayList<>();
+        List<RowFailureDTO> failures = new ArrayList<>();
+        long rowCount = 0;
+
+        while (rows.hasNext()) {
+            ParallelCsvReader.Row row = rows.next();
+            rowCount++;
+
+            try {
+                readings.add(toReading(row, emissionTypeIds, locationIds));
+                rowNumbers.add(row.lineNumber());
+            } catch (RuntimeException e) {
+                failures.add(new RowFailureDTO(row.lineNumber(), e.getMessage()));
+            }
+        }
+
+        return new ParsedChunk(chunk, readings, rowNumbers, failures, rowCount);
+    }
+
+    private static <T> T await(Future<T> future){
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while parsing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static EmissionReadingDTO toReading(ParallelCsvReader.Row row, Map<String, Long> emissionTypeIds, Map<String, Long> locationIds){
+        Long emissionTypeId = emissionTypeIds.get(row.get("emissionType"));
+        if (emissionTypeId == null) {
+            throw new RuntimeException(String.format("Emission type '%s' not found", row.get("emissionType")));
+        }
+
+        Long locationId = locationIds.get(row.get("location"));
+        if (locationId == null) {
+            throw new RuntimeException(String.format("Location '%s' not found", row.get("location")));
+        }
+
+        LocalDate date;
+        try {
+            date = LocalDate.parse(row.get("date"));
+        } catch (DateTimeParseException e) {
+            throw new RuntimeException(String.format("Invalid date '%s'", row.get("date")));
+        }
+
+        double amount;
+        try {
+            amount = Double.parseDouble(row.get("amount"));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException(String.format("Invalid amount '%s'", row.get("amount")));
+        }
+
+        return new EmissionReadingDTO(emissionTypeId, locationId, date, amount);
+    }
+
+    private static void deleteQuietly(Path path){
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete import file {}: {}", path, e.getMessage());
+        }
+    }
+
+    // One parsed chunk: its valid readings with their row numbers, and its bad rows
+    private record ParsedChunk(ParallelCsvReader.Chunk chunk, List<EmissionReadingDTO> readings, List<Long> rowNumbers,
+                               List<RowFailureDTO> failures, long rowCount) {}
+
+    // Live state of one job. Written by the job's thread, read by status requests.
+    private static final class ImportJob {
+
+        private final String id;
+        private final String fileName;
+        private final Path path;
+        private final Instant createdAt = Instant.now();
+
+        private final List<RowFailureDTO> failures = new ArrayList<>();
+
+        private volatile Future<?> future;
+        private volatile boolean cancelRequested;
+        private volatile ImportJobDTO.Status status = ImportJobDTO.Status.QUEUED;
+        private volatile long fileSize;
+        private volatile long bytesRead;
+        private volatile long rowsProcessed;
+        private volatile long rowsInserted;
+        private volatile long failureCount;
+        private volatile long startNanos;
+        private volatile long finishNanos;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile String message;
+
+        ImportJob(String id, String fileName, Path path){
+            this.id = id;
+            this.fileName = fileName;
+            this.path = path;
+        }
+
+        // Move from queued to running, unless cancelled first. start and
+        // cancel share the job's lock, so exactly one of them wins.
+        synchronized boolean start(){
+            if (this.cancelRequested) {
+                return false;
+            }
+            this.startNanos = System.nanoTime();
+            this.startedAt = Instant.now();
+            this.status = ImportJobDTO.Status.RUNNING;
+            return true;
+        }
+
+        // Ask the job to stop. True if it had not started, in which case it
+        // is finished as cancelled here; a running job finishes itself.
+        synchronized boolean cancel(){
+            boolean queued = this.status == ImportJobDTO.Status.QUEUED;
+            this.cancelRequested = true;
+            if (queued) {
+                finish(ImportJobDTO.Status.CANCELLED, null);
+            }
+            return queued;
+        }
+
+        void finish(ImportJobDTO.Status status, String message){
+            this.finishNanos = System.nanoTime();
+            this.finishedAt = Instant.now();
+            this.message = message;
+            this.status = status;
+        }
+
+        synchronized void addFailure(RowFailureDTO failure){
+            if (this.failures.size() < MAX_REPORTED_FAILURES) {
+                this.failures.add(failure);
+            }
+            this.failureCount++;
+        }
+
+        synchronized ImportJobDTO toDTO(){
+            ImportJobDTO dto = new ImportJobDTO();
+            dto.setId(this.id);
+            dto.setFileName(this.fileName);
+            dto.setStatus(this.status);
+            dto.setRowsProcessed(this.rowsProcessed);
+            dto.setRowsInserted(this.rowsInserted);
+            dto.setFailureCount(this.failureCount);
+            dto.setFailures(List.copyOf(this.failures));
+            dto.setCreatedAt(this.createdAt);
+            dto.setStartedAt(this.startedAt);
+            dto.setFinishedAt(this.finishedAt);
+            dto.setMessage(this.message);
+
+            if (this.status == ImportJobDTO.Status.COMPLETED) {
+                dto.setProgress(1.0);
+            } else if (this.fileSize > 0) {
+                dto.setProgress(Math.min(1.0, (double) this.bytesRead / this.fileSize));
+            }
+
+            if (this.startedAt != null) {
+                long end = this.finishedAt != null ? this.finishNanos : System.nanoTime();
+                double seconds = (end - this.startNanos) / 1_000_000_000.0;
+                dto.setRowsPerSecond(seconds > 0 ? this.rowsProcessed / seconds : 0.0);
+            }
+
+            return dto;
+        }
+    }
+}
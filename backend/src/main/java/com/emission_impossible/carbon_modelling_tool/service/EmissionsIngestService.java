@@ -0,0 +1,164 @@
+package com.emission_impossible.carbon_modelling_tool.service;
+
+import com.emission_impossible.carbon_modelling_tool.analytics.EmissionsColumnStore;
+import com.emission_impossible.carbon_modelling_tool.cache.ConversionRateMatrix;
+import com.emission_impossible.carbon_modelling_tool.dto.BulkIngestResultDTO;
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionReadingDTO;
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionsFact;
+import com.emission_impossible.carbon_modelling_tool.dto.RowFailureDTO;
+import com.emission_impossible.carbon_modelling_tool.model.EmissionType;
+import com.emission_impossible.carbon_modelling_tool.repository.EmissionTypeRepository;
+import com.emission_impossible.carbon_modelling_tool.repository.EmissionsDataJdbcWriter;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk ingestion of emissions readings.
+ *
+ * Each conversion rate is resolved once per (emission type, location, year)
+ * rather than once per row, valid rows are inserted with JDBC batches, and the
+ * monthly rollup gets one update per month touched rather than one per row.
+ * Invalid rows (missing fields, a value that is negative or not finite, no
+ * conversion rate) are reported back instead of failing the whole request;
+ * anything else, e.g. a database failure, fails it.
+ */
+@Service
+public class EmissionsIngestService {
+
+    private static final Logger log = LoggerFactory.getLogger(EmissionsIngestService.class);
+
+    // Largest number of rows accepted in one call
+    public static final int MAX_ROWS = 100_000;
+
+    private final EmissionsDataJdbcWriter emissionsDataJdbcWriter;
+
+    private final ConversionRateMatrix conversionRateMatrix;
+
+    private final EmissionsRollupService rollupService;
+
+    private final EmissionTypeRepository emissionTypeRepository;
+
+    // Optional columnar copy of emissions_data (analytics.columnar.enabled)
+    private final ObjectProvider<EmissionsColumnStore> columnStore;
+
+    public EmissionsIngestService(EmissionsDataJdbcWriter emissionsDataJdbcWriter, ConversionRateMatrix conversionRateMatrix, EmissionsRollupService rollupService, EmissionTypeRepository emissionTypeRepository, ObjectProvider<EmissionsColumnStore> columnStore){
+        this.emissionsDataJdbcWriter = emissionsDataJdbcWriter;
+        this.conversionRateMatrix = conversionRateMatrix;
+        this.rollupService = rollupService;
+        this.emissionTypeRepository = emissionTypeRepository;
+        this.columnStore = columnStore;
+    }
+
+    // Insert every valid reading in one transaction. Row numbers in the result start at 1.
+    @Transactional
+    public BulkIngestResultDTO ingest(List<EmissionReadingDTO> readings){
+        return ingest(readings, 1);
+    }
+
+    // As above, but row numbers start at firstRowNumber (e.g. for one chunk of a larger file)
+    @Transactional
+    public BulkIngestResultDTO ingest(List<EmissionReadingDTO> readings, long firstRowNumber){
+        if (readings.size() > MAX_ROWS) {
+            throw new IllegalArgumentException(String.format("At most %d readings can be ingested at once", MAX_ROWS));
+        }
+
+        long start = System.nanoTime();
+
+        List<EmissionReadingDTO> valid = new ArrayList<>(readings.size());
+        List<Double> rates = new ArrayList<>(readings.size());
+        List<RowFailureDTO> failures = new ArrayList<>();
+
+        // Rates already resolved for this batch. Empty = no conversion rate.
+        Map<RateKey, OptionalDouble> resolvedRates = new HashMap<>();
+
+        for (int i = 0; i < readings.size(); i++) {
+            EmissionReadingDTO reading = readings.get(i);
+            long rowNumber = firstRowNumber + i;
+
+            if (reading == null || reading.getEmissionTypeId() == null || reading.getLocationId() == null
+                    || reading.getDate() == null || reading.getValue() == null) {
+                failures.add(new RowFailureDTO(rowNumber, "emissionTypeId, locationId, date and value are required"));
+                continue;
+            }
+
+            double value = reading.getValue();
+            if (!Double.isFinite(value) || value < 0) {
+                failures.add(new RowFailureDTO(rowNumber, String.format("value must be a non-negative number, not %s", value)));
+                continue;
+            }
+
+            RateKey key = new RateKey(reading.getEmissionTypeId(), reading.getLocationId(), reading.getDate().getYear());
+            OptionalDouble rate = resolvedRates.computeIfAbsent(key,
+                    k -> this.conversionRateMatrix.findRate(k.emissionTypeId(), k.locationId(), k.year()));
+
+            if (rate.isEmpty()) {
+                failures.add(new RowFailureDTO(rowNumber, String.format("No conversion rate found for emission type %d at location %d for year %d", key.emissionTypeId(), key.locationId(), key.year())));
+                continue;
+            }
+
+            valid.add(reading);
+            rates.add(rate.getAsDouble());
+        }
+
+        this.emissionsDataJdbcWriter.insert(valid);
+
+        recordRollups(valid, rates);
+
+        this.columnStore.ifAvailable(store -> appendToColumnStore(store, valid, rates));
+
+        long elapsedNanos = System.nanoTime() - start;
+        long elapsedMillis = elapsedNanos / 1_000_000;
+        double rowsPerSecond = elapsedNanos == 0 ? 0.0 : valid.size() / (elapsedNanos / 1_000_000_000.0);
+
+        BulkIngestResultDTO result = new BulkIngestResultDTO(readings.size(), valid.size(), failures, elapsedMillis, rowsPerSecond);
+
+        log.info("Bulk ingest: {}", result);
+
+        return result;
+    }
+
+    // One rollup update per (emission type, location, month)
+    private void recordRollups(List<EmissionReadingDTO> valid, List<Double> rates){
+        Map<MonthKey, double[]> totals = new HashMap<>();
+
+        for (int i = 0; i < valid.size(); i++) {
+            EmissionReadingDTO reading = valid.get(i);
+            MonthKey key = new MonthKey(reading.getEmissionTypeId(), reading.getLocationId(), reading.getDate().getYear(), reading.getDate().getMonthValue());
+
+            // [total value, total CO2e, record count]
+            double[] total = totals.computeIfAbsent(key, k -> new double[3]);
+            total[0] += reading.getValue();
+            total[1] += reading.getValue() * rates.get(i);
+            total[2] += 1;
+        }
+
+        totals.forEach((key, total) ->
+                this.rollupService.record(key.emissionTypeId(), key.locationId(), key.year(), key.month(), total[0], total[1], (long) total[2]));
+    }
+
+    private void appendToColumnStore(EmissionsColumnStore store, List<EmissionReadingDTO> valid, List<Double> rates){
+        Map<Long, String> scopes = this.emissionTypeRepository
+                .findAllById(valid.stream().map(EmissionReadingDTO::getEmissionTypeId).distinct().toList())
+                .stream()
+                .collect(Collectors.toMap(EmissionType::getId, EmissionType::getScope));
+
+        for (int i = 0; i < valid.size(); i++) {
+            EmissionReadingDTO reading = valid.get(i);
+            store.append(new EmissionsFact(reading.getDate(), reading.getValue(), reading.getLocationId(), reading.getEmissionTypeId(), scopes.get(reading.getEmissionTypeId()), rates.get(i)));
+        }
+    }
+
+    private record RateKey(Long emissionTypeId, Long locationId, int year) {}
+
+    private record MonthKey(Long emissionTypeId, Long locationId, int year, int month) {}
+}
@@ -0,0 +1,162 @@
+package com.emission_impossible.carbon_modelling_tool.service;
+
+import com.emission_impossible.carbon_modelling_tool.cache.EmissionsRunningTotals;
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionsMonthlyTotal;
+import com.emission_impossible.carbon_modelling_tool.model.EmissionsMonthlyRollup;
+import com.emission_impossible.carbon_modelling_tool.repository.EmissionTypeRepository;
+import com.emission_impossible.carbon_modelling_tool.repository.EmissionsDataRepository;
+import com.emission_impossible.carbon_modelling_tool.repository.EmissionsMonthlyRollupRepository;
+import com.emission_impossible.carbon_modelling_tool.repository.LocationRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maintains emissions_monthly_rollups: total value, total CO2e and record count
+ * per (location, emission type, year-month).
+ *
+ * Records added through EmissionsDataService are added to the rollup in the same
+ * transaction, and records that had no conversion rate are added when one is
+ * created (see addRate). Records written any other way (e.g. by the seeders) are picked up by
+ * the rebuild that runs once the application is ready.
+ *
+ * Every change is passed on to EmissionsRunningTotals as well.
+ *
+ * Records without a conversion rate cannot be rolled up, so every total leaves
+ * them out. Their number is checked at startup and on every rebuild, logged as
+ * a warning and published as emissions.records.unrated.
+ */
+@Service
+public class EmissionsRollupService implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(EmissionsRollupService.class);
+
+    private final EmissionsMonthlyRollupRepository rollupRepository;
+
+    private final EmissionsDataRepository emissionsDataRepository;
+
+    private final EmissionTypeRepository emissionTypeRepository;
+
+    private final LocationRepository locationRepository;
+
+    private final EmissionsRunningTotals runningTotals;
+
+    // Records without a conversion rate, as of the last check
+    private final AtomicLong unratedRecords = new AtomicLong();
+
+    public EmissionsRollupService(EmissionsMonthlyRollupRepository rollupRepository, EmissionsDataRepository emissionsDataRepository, EmissionTypeRepository emissionTypeRepository, LocationRepository locationRepository, EmissionsRunningTotals runningTotals){
+        this.rollupRepository = rollupRepository;
+        this.emissionsDataRepository = emissionsDataRepository;
+        this.emissionTypeRepository = emissionTypeRepository;
+        this.locationRepository = locationRepository;
+        this.runningTotals = runningTotals;
+    }
+
+    // Add records to the rollup for the given location, emission type and month.
+    // Must be called in the same transaction as the emissions_data insert.
+    // A single upsert, so concurrent calls never race to create the month's row.
+    @Transactional
+    public void record(Long emissionTypeId, Long locationId, int year, int month, double value, double co2e, long count){
+        this.rollupRepository.addToMonth(locationId, emissionTypeId, year, month, value, co2e, count);
+
+        this.runningTotals.add(emissionTypeId, locationId, co2e);
+    }
+
+    // Conversion rates are per year, so every month of that year is recalculated
+    @Transactional
+    public void updateRate(Long emissionTypeId, Long locationId, int year, double rate){
+        double change = this.rollupRepository.co2eChangeForRate(emissionTypeId, locationId, year, rate);
+
+        this.rollupRepository.updateCO2eForRate(emissionTypeId, locationId, year, rate);
+
+        this.runningTotals.add(emissionTypeId, locationId, change);
+    }
+
+    // Called when a conversion rate is created. Records for that emission type,
+    // location and year had no rate until now, so were left out of the rollup:
+    // add their monthly totals.
+    @Transactional
+    public void addRate(Long emissionTypeId, Long locationId, int year){
+        List<EmissionsMonthlyTotal> totals = this.emissionsDataRepository.findMonthlyTotals(
+                emissionTypeId, locationId, LocalDate.of(year, 1, 1), LocalDate.of(year + 1, 1, 1));
+
+        for (EmissionsMonthlyTotal total : totals) {
+            record(emissionTypeId, locationId, year, total.getMonthValue(),
+                    total.getTotalValue(), total.getTotalCO2e(), total.getRecordCount());
+        }
+    }
+
+    // Rebuild the rollup if it does not cover every emissions record,
+    // e.g. on first boot after the seeders have run.
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildIfStale(){
+        checkUnratedRecords();
+
+        long expected = this.emissionsDataRepository.countWithConversionRate();
+        long covered = this.rollupRepository.sumRecordCount();
+
+        if (expected == covered) {
+            return;
+        }
+
+        log.info("Monthly rollup covers {} of {} emissions records. Rebuilding.", covered, expected);
+        rebuild();
+    }
+
+    // Replace the whole rollup with totals calculated from emissions_data
+    @Transactional
+    public void rebuild(){
+        this.rollupRepository.deleteAllInBatch();
+
+        List<EmissionsMonthlyTotal> totals = this.emissionsDataRepository.findMonthlyTotals();
+
+        List<EmissionsMonthlyRollup> rollups = totals.stream()
+                .map(total -> {
+                    EmissionsMonthlyRollup rollup = new EmissionsMonthlyRollup(
+                            this.locationRepository.getReferenceById(total.getLocationId()),
+                            this.emissionTypeRepository.getReferenceById(total.getEmissionTypeId()),
+                            total.getYearValue(),
+                            total.getMonthValue()
+                    );
+                    rollup.add(total.getTotalValue(), total.getTotalCO2e(), total.getRecordCount());
+                    return rollup;
+                })
+                .toList();
+
+        this.rollupRepository.saveAll(rollups);
+
+        this.runningTotals.reloadAfterCommit();
+
+        checkUnratedRecords();
+    }
+
+    private void checkUnratedRecords(){
+        long unrated = this.emissionsDataRepository.countWithoutConversionRate();
+        this.unratedRecords.set(unrated);
+
+        if (unrated > 0) {
+            log.warn("{} emissions records have no conversion rate for their emission type, location and year. "
+                    + "They are listed without CO2e and left out of every total.", unrated);
+        }
+    }
+
+    public long getUnratedRecords() { return this.unratedRecords.get(); }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("emissions.records.unrated", this, EmissionsRollupService::getUnratedRecords)
+                .description("Emissions records without a conversion rate, left out of CO2e totals")
+                .register(registry);
+    }
+}
@@ -0,0 +1,120 @@
+package com.emission_impossible.carbon_modelling_tool.service;
+
+import com.emission_impossible.carbon_modelling_tool.metrics.SqlStatementCounter;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+
+/**
+ * Splits a client-wide query into one query per group of locations and runs
+ * the groups in parallel, so the total time is that of the slowest group
+ * rather than the sum of them.
+ *
+ * Off by default (emissions.fan-out.enabled). When on, clients with at least
+ * emissions.fan-out.min-locations locations are split into up to
+ * emissions.fan-out.max-concurrent groups of consecutive location ids.
+ *
+ * Every group runs on a shared pool of max-concurrent threads, each holding
+ * one database connection while it runs, so fan-out never uses more than
+ * max-concurrent connections however many requests use it. Keep it well below
+ * the connection pool size: the requests themselves need connections too.
+ *
+ * Inside a transaction the groups run one after another on the calling thread
+ * instead: other threads would use other connections, and not see the
+ * transaction's uncommitted changes.
+ */
+@Component
+public class LocationFanOut {
+
+    private final boolean enabled;
+    private final int maxConcurrent;
+    private final int minLocations;
+
+    private final ExecutorService executor;
+
+    public LocationFanOut(@Value("${emissions.fan-out.enabled:false}") boolean enabled,
+                          @Value("${emissions.fan-out.max-concurrent:4}") int maxConcurrent,
+                          @Value("${emissions.fan-out.min-locations:16}") int minLocations,
+                          @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads){
+        this.enabled = enabled;
+        this.maxConcurrent = maxConcurrent;
+        this.minLocations = minLocations;
+
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("location-fan-out-", 1).factory()
+                : Thread.ofPlatform().name("location-fan-out-", 1).daemon(true).factory();
+        this.executor = Executors.newFixedThreadPool(maxConcurrent, threadFactory);
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        this.executor.shutdownNow();
+    }
+
+    public boolean isEnabled() { return this.enabled; }
+
+    // Whether a client with this many locations should be split
+    public boolean appliesTo(int locations){
+        return this.enabled && locations > 0 && locations >= this.minLocations;
+    }
+
+    // Run query once per group of locationIds. Results are in group order,
+    // and groups are in locationIds order.
+    public <R> List<R> map(List<Long> locationIds, Function<List<Long>, R> query){
+        List<List<Long>> groups = partition(locationIds, this.maxConcurrent);
+
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return groups.stream().map(query).toList();
+        }
+
+        // Statements run by the workers count towards the caller's scope
+        SqlStatementCounter.Scope caller = SqlStatementCounter.current();
+
+        List<CompletableFuture<R>> futures = groups.stream()
+                .map(group -> CompletableFuture.supplyAsync(() -> {
+                    try (SqlStatementCounter.Scope ignored = SqlStatementCounter.open("locationFanOut", caller)) {
+                        return query.apply(group);
+                    }
+                }, this.executor))
+                .toList();
+
+        try {
+            return futures.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            // Groups that have not started yet are skipped. Running ones are
+            // not interrupted (CompletableFuture ignores the flag): they run
+            // to the end, holding their connection, and their results are dropped.
+            futures.forEach(future -> future.cancel(false));
+
+            // Rethrow what the query threw, as if it had run on this thread
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Split into at most 'groups' consecutive runs, with sizes differing by at most one
+    static List<List<Long>> partition(List<Long> locationIds, int groups){
+        int count = Math.max(1, Math.min(groups, locationIds.size()));
+        List<List<Long>> partitions = new ArrayList<>(count);
+
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            int size = locationIds.size() / count + (i < locationIds.size() % count ? 1 : 0);
+            partitions.add(locationIds.subList(start, start + size));
+            start += size;
+        }
+        return partitions;
+    }
+}
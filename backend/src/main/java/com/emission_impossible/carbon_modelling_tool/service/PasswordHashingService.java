@@ -0,0 +1,108 @@
+package com.emission_impossible.carbon_modelling_tool.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt hashing and verification on a dedicated, bounded pool.
+ *
+ * <p>BCrypt is deliberately slow. Running it on Tomcat request threads lets a
+ * burst of sign-ins take every thread, stalling unrelated endpoints. Here at
+ * most {@code security.password.threads} hashes run at once, at most
+ * {@code security.password.queue-capacity} wait, and anything beyond that is
+ * refused straight away with 503.</p>
+ *
+ * <p>Hashing time and queue wait are recorded as histograms
+ * (auth.password.hash, auth.password.queue.wait), and refusals are counted
+ * (auth.password.rejected).</p>
+ */
+@Service
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejected;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                                  @Value("${security.password.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int threads,
+                                  @Value("${security.password.queue-capacity:100}") int queueCapacity){
+        this.passwordEncoder = passwordEncoder;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = hashTimer(meterRegistry, "encode");
+        this.matchesTimer = hashTimer(meterRegistry, "matches");
+        this.queueWaitTimer = Timer.builder("auth.password.queue.wait")
+                .description("Time a password operation waited for a hashing thread")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejected = Counter.builder("auth.password.rejected")
+                .description("Password operations refused because the hashing queue was full")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown(){
+        this.executor.shutdownNow();
+    }
+
+    // Hash a new password
+    public CompletableFuture<String> encode(String rawPassword){
+        return submit(this.encodeTimer, () -> this.passwordEncoder.encode(rawPassword));
+    }
+
+    // Check a password against its stored hash
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword){
+        return submit(this.matchesTimer, () -> this.passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    private <T> CompletableFuture<T> submit(Timer timer, Supplier<T> operation){
+        long queuedAt = System.nanoTime();
+
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                this.queueWaitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return timer.record(operation);
+            }, this.executor);
+        } catch (RejectedExecutionException e) {
+            this.rejected.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many sign-in requests. Please try again shortly.");
+        }
+    }
+
+    private static Timer hashTimer(MeterRegistry meterRegistry, String operation){
+        return Timer.builder("auth.password.hash")
+                .description("Time spent in BCrypt")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -2,6 +2,8 @@ package com.emission_impossible.carbon_modelling_tool.service;
 
 import com.emission_impossible.carbon_modelling_tool.model.User;
 import com.emission_impossible.carbon_modelling_tool.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -19,6 +21,8 @@ import java.util.Optional;
 @Service
 public class UserService implements UserDetailsService{
 
+    private static final Logger log = LoggerFactory.getLogger(UserService.class);
+
     private final UserRepository userRepository;
 
     public UserService(UserRepository userRepository){
@@ -46,7 +50,7 @@ public class UserService implements UserDetailsService{
         }
 
 
-        System.out.println("Loaded user: " + user.get().getEmail());
+        log.debug("Loaded user: {}", user.get().getEmail());
         List<GrantedAuthority> authorities = new ArrayList<>();
         return new org.springframework.security.core.userdetails.User(
                 user.get().getEmail(),
@@ -0,0 +1,104 @@
+package com.emission_impossible.carbon_modelling_tool.threading;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * DataSource that lets at most a fixed number of threads hold a connection at
+ * once. The others wait, in arrival order, for up to the acquire timeout.
+ *
+ * With virtual threads every request gets its own thread, so thousands of them
+ * can ask the pool for a connection at the same moment. The permits are set to
+ * the pool size, so the waiting happens here on a fair semaphore, which parks
+ * virtual threads cheaply, instead of inside the pool.
+ *
+ * A permit is taken in getConnection and given back when the connection is
+ * closed (once, however many times close is called).
+ */
+public class ConnectionLimitingDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final int maxConnections;
+    private final Duration acquireTimeout;
+
+    public ConnectionLimitingDataSource(DataSource targetDataSource, int maxConnections, Duration acquireTimeout){
+        super(targetDataSource);
+        this.permits = new Semaphore(maxConnections, true);
+        this.maxConnections = maxConnections;
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            this.permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            this.permits.release();
+            throw e;
+        }
+    }
+
+    // Threads waiting for a connection
+    public int getWaiting() { return this.permits.getQueueLength(); }
+
+    // Connections currently handed out
+    public int getActive() { return this.maxConnections - this.permits.availablePermits(); }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!this.permits.tryAcquire(this.acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(String.format(
+                        "No database connection available within %d ms (%d in use, %d threads waiting)",
+                        this.acquireTimeout.toMillis(), getActive(), getWaiting()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    private Connection releasingOnClose(Connection connection){
+        AtomicBoolean released = new AtomicBoolean();
+
+        return (Connection) Proxy.newProxyInstance(ConnectionLimitingDataSource.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    // Identity, so a proxy is only equal to itself
+                    switch (method.getName()) {
+                        case "equals" -> { return proxy == args[0]; }
+                        case "hashCode" -> { return System.identityHashCode(proxy); }
+                    }
+
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                            this.permits.release();
+                        }
+                    }
+                });
+    }
+}
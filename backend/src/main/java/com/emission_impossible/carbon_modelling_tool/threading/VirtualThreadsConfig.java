@@ -0,0 +1,70 @@
+package com.emission_impossible.carbon_modelling_tool.threading;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Settings for running on virtual threads (spring.threads.virtual.enabled=true).
+ *
+ * Spring Boot itself moves Tomcat's request handling and its task executors
+ * onto virtual threads; EmissionsImportService does the same for import jobs.
+ * Password hashing stays on its own platform-thread pool, as it is CPU-bound.
+ *
+ * What changes here is the database: requests are no longer limited by
+ * Tomcat's 200 threads, so the number of threads allowed to hold a connection
+ * at once is capped by ConnectionLimitingDataSource. By default the cap is the
+ * connection pool size (spring.datasource.hikari.maximum-pool-size).
+ *
+ * Sizing: the pool should be about what the database can run in parallel
+ * (cores x 2 is the usual starting point), not the number of users. Extra
+ * requests wait for a permit, which costs a parked virtual thread, not a
+ * platform thread. Watch datasource.limiter.waiting: if it stays high, the
+ * database is the bottleneck and a bigger pool will not help unless the
+ * database has spare capacity.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    // Static: bean post-processors are created before the other beans in this class
+    @Bean
+    static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment environment) {
+        int poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+        int maxConnections = environment.getProperty("datasource.max-concurrent", Integer.class, poolSize);
+        Duration acquireTimeout = environment.getProperty("datasource.acquire-timeout", Duration.class, Duration.ofSeconds(30));
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionLimitingDataSource)) {
+                    return new ConnectionLimitingDataSource(dataSource, maxConnections, acquireTimeout);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    MeterBinder connectionLimitMetrics(DataSource dataSource) throws SQLException {
+        // May also be wrapped by CountingDataSource (sql.counting.enabled), in either order
+        ConnectionLimitingDataSource limiter = dataSource.unwrap(ConnectionLimitingDataSource.class);
+
+        return registry -> {
+            Gauge.builder("datasource.limiter.waiting", limiter, ConnectionLimitingDataSource::getWaiting)
+                    .description("Threads waiting for a database connection permit")
+                    .register(registry);
+            Gauge.builder("datasource.limiter.active", limiter, ConnectionLimitingDataSource::getActive)
+                    .description("Database connections currently held")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,109 @@
+package com.emission_impossible.carbon_modelling_tool.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe Bloom filter of strings.
+ *
+ * <p>{@link #mightContain} never returns false for a value that was added, and
+ * returns true for a value that was not added with roughly the false positive
+ * rate the filter was sized for (while it holds no more than the expected
+ * number of values). Values cannot be removed.</p>
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+
+    private final long bitCount;
+
+    private final int hashCount;
+
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+
+        // Standard sizing: m = -n ln p / (ln 2)^2 bits, k = m/n ln 2 hash functions
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) this.bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    public void put(String value) {
+        long hash1 = hash1(value);
+        long hash2 = hash2(hash1);
+
+        for (int i = 0; i < this.hashCount; i++) {
+            setBit(index(hash1, hash2, i));
+        }
+    }
+
+    public boolean mightContain(String value) {
+        long hash1 = hash1(value);
+        long hash2 = hash2(hash1);
+
+        for (int i = 0; i < this.hashCount; i++) {
+            if (!getBit(index(hash1, hash2, i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public long getBitCount() { return this.bitCount; }
+
+    public int getHashCount() { return this.hashCount; }
+
+    // i-th hash from two base hashes (Kirsch and Mitzenmacher)
+    private long index(long hash1, long hash2, int i) {
+        return Math.floorMod(hash1 + i * hash2, this.bitCount);
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << (index & 63);
+
+        long current;
+        do {
+            current = this.words.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!this.words.compareAndSet(word, current, current | mask));
+    }
+
+    private boolean getBit(long index) {
+        return (this.words.get((int) (index >>> 6)) & (1L << (index & 63))) != 0;
+    }
+
+    // 64-bit FNV-1a over the characters, then a MurmurHash3 finaliser to spread the bits
+    private static long hash1(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // Odd, so stepping by it visits different bits
+    private static long hash2(long hash1) {
+        return mix(hash1 ^ 0x9e3779b97f4a7c15L) | 1L;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fe53ef5c5L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -5,20 +5,42 @@ import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import org.springframework.core.io.ClassPathResource;
 
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.stream.Stream;
 
 
 /**
- * Utility class for reading CSV files from the application classpath.
+ * Utility class for reading CSV files from the application classpath
+ * or the filesystem.
  *
+ * <p>{@link #read} returns every record at once, which is fine for small
+ * files. {@link #stream} parses records lazily, so memory use does not
+ * depend on the size of the file.</p>
  *
  * <p>The returned {@link CSVRecord} objects can be accessed by column
  * name or index.</p>
  */
 public class CsvUtils {
 
+    // Configure the CSV parser:
+    // - use the first row as headers
+    // - skip the header row in the returned records
+    // - trim surrounding whitespace from values
+    public static final CSVFormat FORMAT = CSVFormat.DEFAULT.builder()
+            // tells CSV to use the first record as column names
+            .setHeader()
+            // prevents that header row from appearing as a data record
+            .setSkipHeaderRecord(true)
+            .setTrim(true)
+            .build();
+
 
     /**
      * Reads a CSV file from the classpath and returns its records.
@@ -27,32 +49,64 @@ public class CsvUtils {
      * as column names and excluded from the returned data records.</p>
      */
     public static List<CSVRecord> read(String path) {
-        try {
+        try (Stream<CSVRecord> records = stream(path)) {
+            return records.toList();
+        } catch (UncheckedIOException e) {
+            throw new RuntimeException("Failed to read CSV: " + path, e);
+        }
+    }
 
+    /**
+     * Streams the records of a CSV file on the classpath, parsing each one
+     * only when it is reached.
+     *
+     * <p>The stream holds the file open: use it in a try-with-resources block.</p>
+     */
+    public static Stream<CSVRecord> stream(String path) {
+        try {
             // Load the CSV file from the classpath
-            Reader reader = new InputStreamReader(
-                    new ClassPathResource(path).getInputStream()
-            );
-
-            // Configure the CSV parser:
-            // - use the first row as headers
-            // - skip the header row in the returned records
-            // - trim surrounding whitespace from values
-            CSVParser parser = CSVFormat.DEFAULT.builder()
-                    // tells CSV to use the first record as column names
-                    .setHeader()
-                    // prevents that header row from appearing as a data record
-                    .setSkipHeaderRecord(true)
-                    .setTrim(true)
-                    .build()
-                    .parse(reader);
-
-            // Parse and return all records
-            return parser.getRecords();
+            return stream(new InputStreamReader(new ClassPathResource(path).getInputStream(), StandardCharsets.UTF_8), path);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read CSV: " + path, e);
+        }
+    }
+
+    /**
+     * As {@link #stream(String)}, for a file on the filesystem (e.g. an upload).
+     */
+    public static Stream<CSVRecord> stream(Path path) {
+        try {
+            return stream(Files.newBufferedReader(path, StandardCharsets.UTF_8), path.toString());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read CSV: " + path, e);
+        }
+    }
 
+    private static Stream<CSVRecord> stream(Reader reader, String name) {
+        CSVParser parser;
+        try {
+            parser = FORMAT.parse(reader);
         } catch (Exception e) {
+            closeQuietly(reader);
             // Wrap any IO or parsing exceptions in a runtime exception
-            throw new RuntimeException("Failed to read CSV: " + path, e);
+            throw new RuntimeException("Failed to read CSV: " + name, e);
+        }
+
+        // Closing the stream closes the parser, and with it the reader
+        return parser.stream().onClose(() -> {
+            try {
+                parser.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to close CSV: " + name, e);
+            }
+        });
+    }
+
+    private static void closeQuietly(Reader reader) {
+        try {
+            reader.close();
+        } catch (IOException ignored) {
+            // Already failing; the original exception is more useful
         }
     }
 }
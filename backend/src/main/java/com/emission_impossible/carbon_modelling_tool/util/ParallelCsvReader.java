@@ -0,0 +1,263 @@
+package com.emission_impossible.carbon_modelling_tool.util;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parses a large CSV file on several threads.
+ *
+ * <p>The file is first split into byte ranges of roughly {@code chunkBytes},
+ * each ending on a record boundary. Finding the boundaries is a single pass
+ * over the raw bytes that only tracks quotes and line breaks, which is much
+ * cheaper than parsing. Each chunk is then parsed on its own with Commons CSV,
+ * using the header of the file, so rows can be read by column name exactly as
+ * with {@link CsvUtils}.</p>
+ *
+ * <p>Every row carries the line of the file it starts on, so errors can be
+ * reported against the original file. The file must be UTF-8 (or ASCII).</p>
+ */
+public class ParallelCsvReader {
+
+    public static final long DEFAULT_CHUNK_BYTES = 8L * 1024 * 1024;
+
+    private static final int SCAN_BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * A byte range of the file holding whole records.
+     *
+     * @param index     position of the chunk in the file, from 0
+     * @param start     first byte (inclusive)
+     * @param end       last byte (exclusive)
+     * @param firstLine line number (1-based) of the first record in the chunk
+     */
+    public record Chunk(int index, long start, long end, long firstLine) {}
+
+    // One parsed record and the line of the file it starts on
+    public record Row(long lineNumber, CSVRecord record) {
+
+        public String get(String column) { return this.record.get(column); }
+    }
+
+    // Called once per chunk, on a worker thread. Results are returned in file order.
+    @FunctionalInterface
+    public interface ChunkHandler<R> {
+        R handle(Chunk chunk, Iterator<Row> rows);
+    }
+
+    /**
+     * Parses every chunk of the file on a pool with one thread per core.
+     */
+    public static <R> List<R> read(Path file, ChunkHandler<R> handler) {
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            return read(file, DEFAULT_CHUNK_BYTES, executor, handler);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Parses every chunk of the file on the given executor and returns the
+     * handler's results in file order. The first failure cancels the chunks
+     * that have not started yet and is rethrown.
+     */
+    public static <R> List<R> read(Path file, long chunkBytes, ExecutorService executor, ChunkHandler<R> handler) {
+        String[] header = readHeader(file);
+
+        List<Future<R>> futures = new ArrayList<>();
+        for (Chunk chunk : split(file, chunkBytes)) {
+            futures.add(executor.submit(() -> readChunk(file, header, chunk, handler)));
+        }
+
+        List<R> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new RuntimeException("Interrupted while reading CSV: " + file, e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Failed to read CSV: " + file, e.getCause());
+        }
+
+        return results;
+    }
+
+    // The column names from the first record of the file
+    public static String[] readHeader(Path file) {
+        try (CSVParser parser = CsvUtils.FORMAT.parse(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            return parser.getHeaderNames().toArray(String[]::new);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read CSV header: " + file, e);
+        }
+    }
+
+    /**
+     * Splits the file, after its header, into chunks of at least {@code chunkBytes}
+     * that end just after a line break outside quotes.
+     */
+    public static List<Chunk> split(Path file, long chunkBytes) {
+        if (chunkBytes <= 0) {
+            throw new IllegalArgumentException("chunkBytes must be positive");
+        }
+
+        List<Chunk> chunks = new ArrayList<>();
+
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[SCAN_BUFFER_BYTES];
+
+            boolean inQuotes = false;
+            boolean headerDone = false;
+            long line = 1;
+            long position = 0;
+
+            long chunkStart = 0;
+            long chunkFirstLine = 1;
+
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++, position++) {
+                    byte b = buffer[i];
+
+                    // A doubled quote ("") inside a quoted field toggles twice,
+                    // so the state is still right after it.
+                    if (b == '"') {
+                        inQuotes = !inQuotes;
+                    } else if (b == '\n') {
+                        line++;
+
+                        if (inQuotes) {
+                            continue;
+                        }
+
+                        if (!headerDone) {
+                            // The first chunk starts after the header record
+                            headerDone = true;
+                            chunkStart = position + 1;
+                            chunkFirstLine = line;
+                        } else if (position + 1 - chunkStart >= chunkBytes) {
+                            chunks.add(new Chunk(chunks.size(), chunkStart, position + 1, chunkFirstLine));
+                            chunkStart = position + 1;
+                            chunkFirstLine = line;
+                        }
+                    }
+                }
+            }
+
+            if (headerDone && position > chunkStart) {
+                chunks.add(new Chunk(chunks.size(), chunkStart, position, chunkFirstLine));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read CSV: " + file, e);
+        }
+
+        return chunks;
+    }
+
+    // Parse one chunk and pass its rows to the handler
+    public static <R> R readChunk(Path file, String[] header, Chunk chunk, ChunkHandler<R> handler) {
+        CSVFormat format = CsvUtils.FORMAT.builder()
+                .setHeader(header)
+                .setSkipHeaderRecord(false)
+                .build();
+
+        try (CSVParser parser = format.parse(new InputStreamReader(new ByteArrayInputStream(readBytes(file, chunk)), StandardCharsets.UTF_8))) {
+            return handler.handle(chunk, new RowIterator(file, chunk, parser));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read CSV: " + file, e);
+        }
+    }
+
+    private static byte[] readBytes(Path file, Chunk chunk) throws IOException {
+        long length = chunk.end() - chunk.start();
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalStateException(String.format("Chunk %d of %s is too large (%d bytes)", chunk.index(), file, length));
+        }
+
+        ByteBuffer bytes = ByteBuffer.allocate((int) length);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = chunk.start();
+            while (bytes.hasRemaining()) {
+                int read = channel.read(bytes, position);
+                if (read < 0) {
+                    break;
+                }
+                position += read;
+            }
+        }
+
+        return bytes.array();
+    }
+
+    // Rows of one chunk, numbered by the line of the file each one starts on
+    private static final class RowIterator implements Iterator<Row> {
+
+        private final Path file;
+        private final Chunk chunk;
+        private final CSVParser parser;
+        private final Iterator<CSVRecord> records;
+
+        private long nextLine;
+        private boolean advanced;
+
+        RowIterator(Path file, Chunk chunk, CSVParser parser) {
+            this.file = file;
+            this.chunk = chunk;
+            this.parser = parser;
+            this.records = parser.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!this.advanced) {
+                // Lines consumed so far = lines before the next record
+                this.nextLine = this.chunk.firstLine() + this.parser.getCurrentLineNumber();
+                this.advanced = true;
+            }
+
+            try {
+                return this.records.hasNext();
+            } catch (UncheckedIOException | IllegalStateException e) {
+                throw new RuntimeException(String.format("Failed to parse %s at line %d", this.file, this.nextLine), e);
+            }
+        }
+
+        @Override
+        public Row next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            this.advanced = false;
+            return new Row(this.nextLine, this.records.next());
+        }
+    }
+}
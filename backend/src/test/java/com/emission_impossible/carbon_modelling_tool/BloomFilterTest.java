@@ -0,0 +1,52 @@
+package com.emission_impossible.carbon_modelling_tool;
+
+import com.emission_impossible.carbon_modelling_tool.util.BloomFilter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * - Values that were added are always found
+ * - The false positive rate stays near the rate the filter was sized for
+ * - Invalid sizes are rejected
+ */
+class BloomFilterTest {
+
+    @Test
+    void addedValuesAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("token-" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("token-" + i));
+        }
+    }
+
+    @Test
+    void falsePositiveRateIsNearTarget() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("token-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Sized for 1%: allow some slack
+        assertTrue(falsePositives < 2_000, "False positives: " + falsePositives);
+    }
+
+    @Test
+    void invalidSizesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1.0));
+    }
+}
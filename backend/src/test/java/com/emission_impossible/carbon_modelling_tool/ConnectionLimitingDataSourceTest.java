@@ -0,0 +1,80 @@
+package com.emission_impossible.carbon_modelling_tool;
+
+import com.emission_impossible.carbon_modelling_tool.threading.ConnectionLimitingDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * - No more than the configured number of connections are handed out at once
+ * - A waiting thread gets a connection as soon as one is closed
+ * - Waiting longer than the acquire timeout fails
+ * - Closing a connection twice only gives its permit back once
+ */
+class ConnectionLimitingDataSourceTest {
+
+    private ConnectionLimitingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource h2 = new DriverManagerDataSource("jdbc:h2:mem:connection-limit;DB_CLOSE_DELAY=-1", "sa", "");
+        dataSource = new ConnectionLimitingDataSource(h2, 2, Duration.ofMillis(200));
+    }
+
+    @Test
+    void failsAfterTimeoutWhenAllConnectionsAreHeld() throws Exception {
+        try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+            assertEquals(2, dataSource.getActive());
+
+            assertThrows(SQLTransientConnectionException.class, () -> dataSource.getConnection());
+        }
+
+        assertEquals(0, dataSource.getActive());
+    }
+
+    @Test
+    void waiterGetsClosedConnectionsPermit() throws Exception {
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> {
+                try (Connection third = dataSource.getConnection()) {
+                    return third.isValid(1);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }, executor);
+
+            // Let the waiter queue up, then free a connection
+            Thread.sleep(50);
+            assertFalse(waiter.isDone());
+            first.close();
+
+            assertTrue(waiter.get(1, TimeUnit.SECONDS));
+        } finally {
+            second.close();
+        }
+    }
+
+    @Test
+    void closingTwiceReleasesOnce() throws Exception {
+        Connection first = dataSource.getConnection();
+        first.close();
+        first.close();
+
+        try (Connection second = dataSource.getConnection(); Connection third = dataSource.getConnection()) {
+            assertThrows(SQLTransientConnectionException.class, () -> dataSource.getConnection());
+        }
+    }
+}
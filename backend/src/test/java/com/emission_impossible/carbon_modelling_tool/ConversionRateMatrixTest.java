@@ -0,0 +1,164 @@
+package com.emission_impossible.carbon_modelling_tool;
+
+import com.emission_impossible.carbon_modelling_tool.cache.ConversionRateMatrix;
+import com.emission_impossible.carbon_modelling_tool.dto.ConversionRateEntry;
+import com.emission_impossible.carbon_modelling_tool.model.Client;
+import com.emission_impossible.carbon_modelling_tool.model.ConversionRate;
+import com.emission_impossible.carbon_modelling_tool.model.EmissionType;
+import com.emission_impossible.carbon_modelling_tool.model.Location;
+import com.emission_impossible.carbon_modelling_tool.repository.ClientRepository;
+import com.emission_impossible.carbon_modelling_tool.repository.ConversionRateRepository;
+import com.emission_impossible.carbon_modelling_tool.repository.EmissionTypeRepository;
+import com.emission_impossible.carbon_modelling_tool.repository.LocationRepository;
+import com.emission_impossible.carbon_modelling_tool.service.ConversionRateService;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * - Reading rates through from the database on a miss
+ * - Serving repeat lookups from memory
+ * - Picking up rates changed through ConversionRateService
+ * - Exception handling for missing rates (findRate returns empty instead)
+ * - Not caching a rate read (or loaded) before a concurrent update committed
+ * - Holding many rates (the table grows)
+ */
+class ConversionRateMatrixTest extends BaseRepositoryTest {
+
+    @Autowired
+    private ConversionRateMatrix conversionRateMatrix;
+
+    @Autowired
+    private ConversionRateService conversionRateService;
+
+    @Autowired
+    private ConversionRateRepository conversionRateRepository;
+
+    @Autowired
+    private EmissionTypeRepository emissionTypeRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Test
+    void getRateReadsThroughThenHits() {
+        Client client = clientRepository.save(new Client("Test Client"));
+        Location location = locationRepository.save(new Location("Test Location", "EU", client));
+        EmissionType type = emissionTypeRepository.save(
+                new EmissionType("Electricity", "kWh", "Scope 2", "Test")
+        );
+
+        conversionRateRepository.save(
+                new ConversionRate(2024, 0.5, "kg CO2e/kWh", "Test rate", type, location)
+        );
+
+        long hitsBefore = conversionRateMatrix.getHits();
+        long missesBefore = conversionRateMatrix.getMisses();
+
+        assertEquals(0.5, conversionRateMatrix.getRate(type.getId(), location.getId(), 2024), 0.001);
+        assertEquals(0.5, conversionRateMatrix.getRate(type.getId(), location.getId(), 2024), 0.001);
+
+        assertEquals(missesBefore + 1, conversionRateMatrix.getMisses());
+        assertEquals(hitsBefore + 1, conversionRateMatrix.getHits());
+    }
+
+    @Test
+    void getRateReflectsUpdatedRate() {
+        Client client = clientRepository.save(new Client("Test Client"));
+        Location location = locationRepository.save(new Location("Test Location", "EU", client));
+        EmissionType type = emissionTypeRepository.save(
+                new EmissionType("Electricity", "kWh", "Scope 2", "Test")
+        );
+
+        conversionRateRepository.save(
+                new ConversionRate(2024, 0.5, "kg CO2e/kWh", "Old rate", type, location)
+        );
+
+        assertEquals(0.5, conversionRateMatrix.getRate(type.getId(), location.getId(), 2024), 0.001);
+
+        conversionRateService.updateRate(
+                new ConversionRate(2024, 0.8, "kg CO2e/kWh", "New rate", type, location)
+        );
+
+        assertEquals(0.8, conversionRateMatrix.getRate(type.getId(), location.getId(), 2024), 0.001);
+    }
+
+    @Test
+    void getRateThrowsExceptionWhenNotFound() {
+        assertThrows(RuntimeException.class,
+                () -> conversionRateMatrix.getRate(999L, 999L, 2024));
+        assertTrue(conversionRateMatrix.findRate(999L, 999L, 2024).isEmpty());
+    }
+
+    // Outside the test transaction, so updateRate applies straight away
+    // rather than when the transaction completes
+    @Test
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    void readThroughDoesNotOverwriteConcurrentUpdate() {
+        EmissionType type = new EmissionType("Electricity", "kWh", "Scope 2", "Test");
+        Location location = new Location("Test Location", "EU", new Client("Test Client"));
+
+        ConversionRateMatrix[] matrix = new ConversionRateMatrix[1];
+
+        // The read-through reads the old rate; before it returns, an update
+        // to the same rate commits
+        ConversionRateRepository repository = (ConversionRateRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ConversionRateRepository.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("findByEmissionTypeIdAndLocationIdAndYear")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    matrix[0].updateRate(1L, 2L, 2024, 0.8);
+                    return Optional.of(new ConversionRate(2024, 0.5, "kg CO2e/kWh", "Old rate", type, location));
+                });
+        matrix[0] = new ConversionRateMatrix(repository);
+
+        assertEquals(0.5, matrix[0].getRate(1L, 2L, 2024), 0.001);
+        assertEquals(0.8, matrix[0].getRate(1L, 2L, 2024), 0.001);
+    }
+
+    @Test
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    void loadDoesNotOverwriteConcurrentUpdate() {
+        ConversionRateMatrix[] matrix = new ConversionRateMatrix[1];
+
+        // The load reads the old rate; before it is stored, an update commits
+        ConversionRateRepository repository = (ConversionRateRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ConversionRateRepository.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("findAllEntries")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    matrix[0].updateRate(1L, 2L, 2024, 0.8);
+                    return List.of(new ConversionRateEntry(1L, 2L, 2024, 0.5));
+                });
+        matrix[0] = new ConversionRateMatrix(repository);
+
+        matrix[0].load();
+
+        // Answered from memory: the repository only answers findAllEntries
+        assertEquals(0.8, matrix[0].getRate(1L, 2L, 2024), 0.001);
+    }
+
+    @Test
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    void holdsManyRates() {
+        ConversionRateMatrix matrix = new ConversionRateMatrix(null);
+
+        for (long location = 0; location < 10_000; location++) {
+            matrix.updateRate(1L, location, 2024, location / 10.0);
+        }
+
+        assertEquals(10_000, matrix.size());
+        for (long location = 0; location < 10_000; location++) {
+            assertEquals(location / 10.0, matrix.getRate(1L, location, 2024), 0.0);
+        }
+    }
+}
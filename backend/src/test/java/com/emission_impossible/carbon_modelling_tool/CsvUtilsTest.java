@@ -0,0 +1,60 @@
+package com.emission_impossible.carbon_modelling_tool;
+
+import com.emission_impossible.carbon_modelling_tool.util.CsvUtils;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * - Streaming a CSV file from the filesystem, by header name
+ * - Records are parsed lazily, so a stream can stop part way through
+ * - A missing file fails with a RuntimeException
+ */
+class CsvUtilsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void streamReadsFileByHeader() throws IOException {
+        Path file = tempDir.resolve("locations.csv");
+        Files.writeString(file, "name,region\nDublin Office, EU\n\"London, Office\",UK\n");
+
+        List<CSVRecord> records;
+        try (Stream<CSVRecord> rows = CsvUtils.stream(file)) {
+            records = rows.toList();
+        }
+
+        assertEquals(2, records.size());
+        assertEquals("EU", records.get(0).get("region"));
+        assertEquals("London, Office", records.get(1).get("name"));
+    }
+
+    @Test
+    void streamParsesLazily() throws IOException {
+        Path file = tempDir.resolve("emissions.csv");
+        // The third row is malformed: it is never reached
+        Files.writeString(file, "date,amount\n2024-01-01,1\n2024-01-02,2\n\"2024-01-03,3\n");
+
+        try (Stream<CSVRecord> rows = CsvUtils.stream(file)) {
+            Iterator<CSVRecord> iterator = rows.iterator();
+
+            assertEquals("1", iterator.next().get("amount"));
+            assertEquals("2", iterator.next().get("amount"));
+        }
+    }
+
+    @Test
+    void streamMissingFileThrows() {
+        assertThrows(RuntimeException.class, () -> CsvUtils.stream(tempDir.resolve("missing.csv")));
+    }
+}
@@ -0,0 +1,88 @@
+package com.emission_impossible.carbon_modelling_tool;
+
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionsDataDTO;
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionsPageDTO;
+import com.emission_impossible.carbon_modelling_tool.model.*;
+import com.emission_impossible.carbon_modelling_tool.repository.*;
+import com.emission_impossible.carbon_modelling_tool.service.EmissionsDataService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * - Client listings split by location return the same rows, in the same
+ *   (date, id) order, as a single query
+ * - Paging through a split client listing visits every row once, in order
+ *
+ * Inside the test transaction the groups run one after another on the test
+ * thread (see LocationFanOut), so this covers the split and the merge.
+ */
+@TestPropertySource(properties = {
+        "emissions.fan-out.enabled=true",
+        "emissions.fan-out.max-concurrent=3",
+        "emissions.fan-out.min-locations=2"
+})
+class EmissionsClientFanOutTest extends BaseRepositoryTest {
+
+    @Autowired
+    private EmissionsDataService emissionsDataService;
+
+    @Autowired
+    private EmissionsDataRepository emissionsDataRepository;
+
+    @Autowired
+    private ConversionRateRepository conversionRateRepository;
+
+    @Autowired
+    private EmissionTypeRepository emissionTypeRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Test
+    void pagesThroughSplitClientListingInOrder() {
+        Client client = clientRepository.save(new Client("Fan-out Client"));
+        EmissionType type = emissionTypeRepository.save(
+                new EmissionType("Electricity", "kWh", "Scope 2", "Test")
+        );
+
+        // Three locations with interleaved dates, some shared between locations
+        for (int l = 0; l < 3; l++) {
+            Location location = locationRepository.save(new Location("Location " + l, "EU", client));
+            conversionRateRepository.save(new ConversionRate(2024, 0.5, "kg CO2e/kWh", "Test rate", type, location));
+
+            for (int day = 1; day <= 7; day++) {
+                emissionsDataRepository.save(new EmissionsData(LocalDate.of(2024, 1, day * (l + 1) % 28 + 1), 10.0 * day, type, location));
+            }
+        }
+
+        List<EmissionsDataDTO> expected = emissionsDataRepository.findDtosByClientId(client.getId());
+        assertEquals(21, expected.size());
+
+        assertEquals(ids(expected), ids(emissionsDataService.getEmissionsForClient(client.getId())));
+
+        List<EmissionsDataDTO> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            EmissionsPageDTO page = emissionsDataService.getEmissionsPageForClient(client.getId(), cursor, 4);
+            assertTrue(page.getItems().size() <= 4);
+            paged.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(ids(expected), ids(paged));
+    }
+
+    private static List<Long> ids(List<EmissionsDataDTO> rows) {
+        return rows.stream().map(EmissionsDataDTO::getId).toList();
+    }
+}
@@ -0,0 +1,108 @@
+package com.emission_impossible.carbon_modelling_tool;
+
+import com.emission_impossible.carbon_modelling_tool.analytics.EmissionsColumnStore;
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionsFact;
+import com.emission_impossible.carbon_modelling_tool.model.*;
+import com.emission_impossible.carbon_modelling_tool.repository.*;
+import com.emission_impossible.carbon_modelling_tool.service.EmissionsDataService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * - Loading emissions data into the column store
+ * - Filtering totals by date range, location and scope
+ * - Serving EmissionsDataService date range totals from the store
+ * - Keeping records and rate changes committed while the store is loading
+ */
+@TestPropertySource(properties = "analytics.columnar.enabled=true")
+class EmissionsColumnStoreTest extends BaseRepositoryTest {
+
+    @Autowired
+    private EmissionsColumnStore columnStore;
+
+    @Autowired
+    private EmissionsDataService emissionsDataService;
+
+    @Autowired
+    private EmissionsDataRepository emissionsDataRepository;
+
+    @Autowired
+    private ConversionRateRepository conversionRateRepository;
+
+    @Autowired
+    private EmissionTypeRepository emissionTypeRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Test
+    void sumCO2eFiltersByDateLocationAndScope() {
+        Client client = clientRepository.save(new Client("Test Client"));
+        Location location1 = locationRepository.save(new Location("Location 1", "EU", client));
+        Location location2 = locationRepository.save(new Location("Location 2", "UK", client));
+        EmissionType electricity = emissionTypeRepository.save(
+                new EmissionType("Electricity", "kWh", "Scope 2", "Test")
+        );
+        EmissionType gas = emissionTypeRepository.save(
+                new EmissionType("Natural Gas", "m³", "Scope 1", "Test")
+        );
+
+        conversionRateRepository.save(new ConversionRate(2024, 0.5, "kg CO2e/kWh", "Test", electricity, location1));
+        conversionRateRepository.save(new ConversionRate(2024, 0.5, "kg CO2e/kWh", "Test", electricity, location2));
+        conversionRateRepository.save(new ConversionRate(2024, 2.0, "kg CO2e/m³", "Test", gas, location1));
+
+        emissionsDataRepository.save(new EmissionsData(LocalDate.of(2024, 1, 10), 100.0, electricity, location1));
+        emissionsDataRepository.save(new EmissionsData(LocalDate.of(2024, 1, 20), 200.0, electricity, location2));
+        emissionsDataRepository.save(new EmissionsData(LocalDate.of(2024, 1, 15), 10.0, gas, location1));
+        emissionsDataRepository.save(new EmissionsData(LocalDate.of(2024, 6, 1), 1000.0, electricity, location1));
+
+        columnStore.load();
+
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        LocalDate end = LocalDate.of(2024, 1, 31);
+
+        assertEquals(170.0, columnStore.sumCO2e(start, end, List.of(location1.getId(), location2.getId()), null), 0.001);
+        assertEquals(70.0, columnStore.sumCO2e(start, end, List.of(location1.getId()), null), 0.001);
+        assertEquals(150.0, columnStore.sumCO2e(start, end, List.of(location1.getId(), location2.getId()), "Scope 2"), 0.001);
+        assertEquals(0.0, columnStore.sumCO2e(start, end, List.of(location1.getId()), "Scope 3"), 0.001);
+
+        assertEquals(70.0, emissionsDataService.getTotalCO2eForDateRange(start, end, List.of(location1.getId()), null), 0.001);
+    }
+
+    @Test
+    void changesCommittedDuringLoadAreKept() {
+        EmissionsColumnStore[] store = new EmissionsColumnStore[1];
+
+        // While the records are being read, another thread (outside any
+        // transaction, so applied straight away) adds a record and changes the rate
+        EmissionsDataRepository repository = (EmissionsDataRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{EmissionsDataRepository.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("streamFacts")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    CompletableFuture.runAsync(() -> {
+                        store[0].append(new EmissionsFact(LocalDate.of(2024, 1, 20), 200.0, 1L, 2L, "Scope 2", 0.5));
+                        store[0].updateRate(2L, 1L, 2024, 2.0);
+                    }).join();
+                    return Stream.of(new EmissionsFact(LocalDate.of(2024, 1, 10), 100.0, 1L, 2L, "Scope 2", 0.5));
+                });
+
+        store[0] = new EmissionsColumnStore(repository);
+        store[0].load();
+
+        assertEquals(2, store[0].size());
+        assertEquals(600.0, store[0].sumCO2e(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31), null, null), 0.001);
+    }
+}
@@ -1,10 +1,14 @@
 package com.emission_impossible.carbon_modelling_tool;
 
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionsDataDTO;
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionsMonthlyTotal;
 import com.emission_impossible.carbon_modelling_tool.model.Client;
+import com.emission_impossible.carbon_modelling_tool.model.ConversionRate;
 import com.emission_impossible.carbon_modelling_tool.model.EmissionType;
 import com.emission_impossible.carbon_modelling_tool.model.EmissionsData;
 import com.emission_impossible.carbon_modelling_tool.model.Location;
 import com.emission_impossible.carbon_modelling_tool.repository.ClientRepository;
+import com.emission_impossible.carbon_modelling_tool.repository.ConversionRateRepository;
 import com.emission_impossible.carbon_modelling_tool.repository.EmissionTypeRepository;
 import com.emission_impossible.carbon_modelling_tool.repository.EmissionsDataRepository;
 import com.emission_impossible.carbon_modelling_tool.repository.LocationRepository;
@@ -12,8 +16,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.time.LocalDate;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 class EmissionsDataRepositoryTest extends BaseRepositoryTest {
 
@@ -29,6 +36,9 @@ class EmissionsDataRepositoryTest extends BaseRepositoryTest {
     @Autowired
     private ClientRepository clientRepository;
 
+    @Autowired
+    private ConversionRateRepository conversionRateRepository;
+
 
     @Test
     void createEmissionsData() {
@@ -53,5 +63,72 @@ class EmissionsDataRepositoryTest extends BaseRepositoryTest {
         EmissionsData saved = emissionsDataRepository.save(data);
         assertNotNull(saved.getId());
     }
-}
 
+    @Test
+    void findDtosByLocationId() {
+        Client client = clientRepository.save(new Client("Test Client"));
+        Location location = locationRepository.save(new Location("Test Location", "EU", client));
+        EmissionType type = emissionTypeRepository.save(
+                new EmissionType("Electricity", "kWh", "Scope 2", "Test")
+        );
+
+        conversionRateRepository.save(
+                new ConversionRate(2024, 0.5, "kg CO2e/kWh", "Test rate", type, location)
+        );
+
+        emissionsDataRepository.save(
+                new EmissionsData(LocalDate.of(2024, 2, 1), 200.0, type, location)
+        );
+        emissionsDataRepository.save(
+                new EmissionsData(LocalDate.of(2024, 1, 1), 100.0, type, location)
+        );
+
+        List<EmissionsDataDTO> dtoList = emissionsDataRepository.findDtosByLocationId(location.getId());
+
+        // Ordered by date, with co2e calculated by the query
+        assertEquals(2, dtoList.size());
+        assertEquals(LocalDate.of(2024, 1, 1), dtoList.get(0).getDate());
+        assertEquals(50.0, dtoList.get(0).getCo2e(), 0.001);
+        assertEquals(100.0, dtoList.get(1).getCo2e(), 0.001);
+        assertEquals("Test Location", dtoList.get(0).getLocationName());
+        assertEquals("Electricity", dtoList.get(0).getEmissionTypeName());
+        assertEquals("Scope 2", dtoList.get(0).getScope());
+    }
+
+    @Test
+    void findDtosListsRecordsWithoutConversionRate() {
+        Client client = clientRepository.save(new Client("Test Client"));
+        Location location = locationRepository.save(new Location("Test Location", "EU", client));
+        EmissionType type = emissionTypeRepository.save(
+                new EmissionType("Electricity", "kWh", "Scope 2", "Test")
+        );
+
+        conversionRateRepository.save(
+                new ConversionRate(2024, 0.5, "kg CO2e/kWh", "Test rate", type, location)
+        );
+
+        long unratedBefore = emissionsDataRepository.countWithoutConversionRate();
+
+        emissionsDataRepository.save(
+                new EmissionsData(LocalDate.of(2024, 1, 1), 100.0, type, location)
+        );
+        // No conversion rate for 2023
+        emissionsDataRepository.save(
+                new EmissionsData(LocalDate.of(2023, 1, 1), 100.0, type, location)
+        );
+
+        List<EmissionsDataDTO> dtoList = emissionsDataRepository.findDtosByLocationId(location.getId());
+
+        // Listed, but without CO2e, and left out of the totals the rollup is built from
+        assertEquals(2, dtoList.size());
+        assertNull(dtoList.get(0).getCo2e());
+        assertEquals(50.0, dtoList.get(1).getCo2e(), 0.001);
+
+        List<EmissionsMonthlyTotal> totals = emissionsDataRepository.findMonthlyTotals(
+                type.getId(), location.getId(), LocalDate.of(2023, 1, 1), LocalDate.of(2025, 1, 1));
+        assertEquals(1, totals.size());
+        assertEquals(50.0, totals.get(0).getTotalCO2e(), 0.001);
+        assertEquals(1, totals.get(0).getRecordCount());
+        assertEquals(unratedBefore + 1, emissionsDataRepository.countWithoutConversionRate());
+    }
+}
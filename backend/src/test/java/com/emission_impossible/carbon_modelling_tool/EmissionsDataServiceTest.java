@@ -1,6 +1,7 @@
 package com.emission_impossible.carbon_modelling_tool;
 
 import com.emission_impossible.carbon_modelling_tool.dto.EmissionsDataDTO;
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionsPageDTO;
 import com.emission_impossible.carbon_modelling_tool.dto.EmissionsSummaryDTO;
 import com.emission_impossible.carbon_modelling_tool.model.*;
 import com.emission_impossible.carbon_modelling_tool.repository.*;
@@ -12,15 +13,19 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
+import static com.emission_impossible.carbon_modelling_tool.SqlAssertions.assertMaxStatements;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * - Calculating CO2e values
  * - Adding emissions data
  * - Getting emissions by location, client, and date range
+ * - Paging through emissions with continuation cursors
  * - Calculating total CO2e for locations and clients
  * - Creating emissions summaries by type
+ *   (totals and summaries are read from the monthly rollup, so these tests add data through addEmission)
  * - Comprehensive DTO mapping tests
+ * - Listings and summaries run a fixed number of queries, however many records there are
  */
 class EmissionsDataServiceTest extends BaseRepositoryTest {
 
@@ -245,6 +250,45 @@ class EmissionsDataServiceTest extends BaseRepositoryTest {
         assertTrue(dtoList.size() >= 1);
     }
 
+    @Test
+    void getEmissionsPageForLocation() {
+        Client client = clientRepository.save(new Client("Test Client"));
+        Location location = locationRepository.save(new Location("Test Location", "EU", client));
+        EmissionType type = emissionTypeRepository.save(
+                new EmissionType("Electricity", "kWh", "Scope 2", "Test")
+        );
+
+        conversionRateRepository.save(
+                new ConversionRate(2024, 0.5, "kg CO2e/kWh", "Test rate", type, location)
+        );
+
+        // Two records share a date, so the id breaks the tie
+        emissionsDataRepository.save(new EmissionsData(LocalDate.of(2024, 3, 1), 300.0, type, location));
+        emissionsDataRepository.save(new EmissionsData(LocalDate.of(2024, 1, 1), 100.0, type, location));
+        emissionsDataRepository.save(new EmissionsData(LocalDate.of(2024, 1, 1), 150.0, type, location));
+
+        EmissionsPageDTO firstPage = emissionsDataService.getEmissionsPageForLocation(location.getId(), null, 2);
+
+        assertEquals(2, firstPage.getItems().size());
+        assertEquals(100.0, firstPage.getItems().get(0).getValue(), 0.001);
+        assertEquals(150.0, firstPage.getItems().get(1).getValue(), 0.001);
+        assertNotNull(firstPage.getNextCursor());
+
+        EmissionsPageDTO secondPage = emissionsDataService.getEmissionsPageForLocation(location.getId(), firstPage.getNextCursor(), 2);
+
+        assertEquals(1, secondPage.getItems().size());
+        assertEquals(300.0, secondPage.getItems().get(0).getValue(), 0.001);
+        assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    void getEmissionsPageForClientRejectsInvalidCursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> emissionsDataService.getEmissionsPageForClient(1L, "not-a-cursor", 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> emissionsDataService.getEmissionsPageForClient(1L, null, 0));
+    }
+
     @Test
     void getTotalCO2eForLocation() {
         Client client = clientRepository.save(new Client("Test Client"));
@@ -257,16 +301,48 @@ class EmissionsDataServiceTest extends BaseRepositoryTest {
                 new ConversionRate(2024, 0.5, "kg CO2e/kWh", "Test rate", type, location)
         );
 
+        emissionsDataService.addEmission(type.getId(), location.getId(), LocalDate.of(2024, 1, 1), 100.0);
+        emissionsDataService.addEmission(type.getId(), location.getId(), LocalDate.of(2024, 2, 1), 200.0);
+
+        double totalCO2e = emissionsDataService.getTotalCO2eForLocation(location.getId());
+
+        assertEquals(150.0, totalCO2e, 0.001);
+    }
+
+    @Test
+    void getTotalCO2eForLocationWithNoEmissions() {
+        Client client = clientRepository.save(new Client("Test Client"));
+        Location location = locationRepository.save(new Location("Test Location", "EU", client));
+
+        assertEquals(0.0, emissionsDataService.getTotalCO2eForLocation(location.getId()), 0.001);
+        assertTrue(emissionsDataService.getEmissionsSummaryByType(location.getId()).isEmpty());
+    }
+
+    @Test
+    void getTotalCO2eForDateRange() {
+        Client client = clientRepository.save(new Client("Test Client"));
+        Location location = locationRepository.save(new Location("Test Location", "EU", client));
+        EmissionType type = emissionTypeRepository.save(
+                new EmissionType("Electricity", "kWh", "Scope 2", "Test")
+        );
+
+        conversionRateRepository.save(
+                new ConversionRate(2024, 0.5, "kg CO2e/kWh", "Test rate", type, location)
+        );
+
         emissionsDataRepository.save(
-                new EmissionsData(LocalDate.of(2024, 1, 1), 100.0, type, location)
+                new EmissionsData(LocalDate.of(2024, 1, 15), 100.0, type, location)
         );
         emissionsDataRepository.save(
-                new EmissionsData(LocalDate.of(2024, 2, 1), 200.0, type, location)
+                new EmissionsData(LocalDate.of(2024, 3, 15), 200.0, type, location)
         );
 
-        double totalCO2e = emissionsDataService.getTotalCO2eForLocation(location.getId());
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        LocalDate end = LocalDate.of(2024, 1, 31);
 
-        assertEquals(150.0, totalCO2e, 0.001);
+        assertEquals(50.0, emissionsDataService.getTotalCO2eForDateRange(start, end, List.of(location.getId()), null), 0.001);
+        assertEquals(50.0, emissionsDataService.getTotalCO2eForDateRange(start, end, List.of(location.getId()), "Scope 2"), 0.001);
+        assertEquals(0.0, emissionsDataService.getTotalCO2eForDateRange(start, end, List.of(location.getId()), "Scope 1"), 0.001);
     }
 
     @Test
@@ -285,12 +361,8 @@ class EmissionsDataServiceTest extends BaseRepositoryTest {
                 new ConversionRate(2024, 0.5, "kg CO2e/kWh", "Test rate", type, location2)
         );
 
-        emissionsDataRepository.save(
-                new EmissionsData(LocalDate.of(2024, 1, 1), 100.0, type, location1)
-        );
-        emissionsDataRepository.save(
-                new EmissionsData(LocalDate.of(2024, 1, 1), 200.0, type, location2)
-        );
+        emissionsDataService.addEmission(type.getId(), location1.getId(), LocalDate.of(2024, 1, 1), 100.0);
+        emissionsDataService.addEmission(type.getId(), location2.getId(), LocalDate.of(2024, 1, 1), 200.0);
 
         double totalCO2e = emissionsDataService.getTotalCO2eForClient(client.getId());
 
@@ -315,15 +387,9 @@ class EmissionsDataServiceTest extends BaseRepositoryTest {
                 new ConversionRate(2024, 2.0, "kg CO2e/m³", "Test rate", gasType, location)
         );
 
-        emissionsDataRepository.save(
-                new EmissionsData(LocalDate.of(2024, 1, 1), 100.0, electricityType, location)
-        );
-        emissionsDataRepository.save(
-                new EmissionsData(LocalDate.of(2024, 2, 1), 150.0, electricityType, location)
-        );
-        emissionsDataRepository.save(
-                new EmissionsData(LocalDate.of(2024, 1, 1), 50.0, gasType, location)
-        );
+        emissionsDataService.addEmission(electricityType.getId(), location.getId(), LocalDate.of(2024, 1, 1), 100.0);
+        emissionsDataService.addEmission(electricityType.getId(), location.getId(), LocalDate.of(2024, 2, 1), 150.0);
+        emissionsDataService.addEmission(gasType.getId(), location.getId(), LocalDate.of(2024, 1, 1), 50.0);
 
         Map<String, EmissionsSummaryDTO> summary =
                 emissionsDataService.getEmissionsSummaryByType(location.getId());
@@ -343,4 +409,36 @@ class EmissionsDataServiceTest extends BaseRepositoryTest {
         assertEquals(1, gasSummary.getCount());
         assertEquals("m³", gasSummary.getUnit());
     }
-}
\ No newline at end of file
+
+    @Test
+    void listingsAndSummariesDoNotQueryPerRecord() {
+        Client client = clientRepository.save(new Client("Test Client"));
+        Location location = locationRepository.save(new Location("Test Location", "EU", client));
+        EmissionType type = emissionTypeRepository.save(
+                new EmissionType("Electricity", "kWh", "Scope 2", "Test")
+        );
+
+        conversionRateRepository.save(
+                new ConversionRate(2024, 0.5, "kg CO2e/kWh", "Test rate", type, location)
+        );
+
+        for (int day = 1; day <= 25; day++) {
+            emissionsDataService.addEmission(type.getId(), location.getId(), LocalDate.of(2024, 1, day), 10.0);
+        }
+
+        // Write the pending inserts now, so they are not counted below
+        emissionsDataRepository.flush();
+
+        List<EmissionsDataDTO> byLocation = assertMaxStatements(1, () -> emissionsDataService.getEmissionsForLocation(location.getId()));
+        assertEquals(25, byLocation.size());
+
+        List<EmissionsDataDTO> byClient = assertMaxStatements(1, () -> emissionsDataService.getEmissionsForClient(client.getId()));
+        assertEquals(25, byClient.size());
+
+        EmissionsPageDTO page = assertMaxStatements(1, () -> emissionsDataService.getEmissionsPageForLocation(location.getId(), null, 10));
+        assertEquals(10, page.getItems().size());
+
+        Map<String, EmissionsSummaryDTO> summary = assertMaxStatements(1, () -> emissionsDataService.getEmissionsSummaryByType(location.getId()));
+        assertEquals(25, summary.get("Electricity").getCount());
+    }
+}
@@ -0,0 +1,89 @@
+package com.emission_impossible.carbon_modelling_tool;
+
+import com.emission_impossible.carbon_modelling_tool.model.*;
+import com.emission_impossible.carbon_modelling_tool.repository.*;
+import com.emission_impossible.carbon_modelling_tool.service.EmissionsExportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * - Streaming emissions data out as CSV
+ * - CO2e calculated for each exported row
+ * - Records without a conversion rate exported with an empty co2e
+ */
+class EmissionsExportServiceTest extends BaseRepositoryTest {
+
+    @Autowired
+    private EmissionsExportService emissionsExportService;
+
+    @Autowired
+    private EmissionsDataRepository emissionsDataRepository;
+
+    @Autowired
+    private ConversionRateRepository conversionRateRepository;
+
+    @Autowired
+    private EmissionTypeRepository emissionTypeRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Test
+    void exportCsv() {
+        Client client = clientRepository.save(new Client("Test Client"));
+        Location location = locationRepository.save(new Location("Test Location", "EU", client));
+        EmissionType type = emissionTypeRepository.save(
+                new EmissionType("Electricity", "kWh", "Scope 2", "Test")
+        );
+
+        conversionRateRepository.save(
+                new ConversionRate(2024, 0.5, "kg CO2e/kWh", "Test rate", type, location)
+        );
+
+        EmissionsData saved = emissionsDataRepository.save(
+                new EmissionsData(LocalDate.of(2024, 1, 1), 100.0, type, location)
+        );
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long rows = emissionsExportService.exportCsv(output);
+
+        String csv = output.toString(StandardCharsets.UTF_8);
+
+        assertTrue(rows >= 1);
+        assertTrue(csv.startsWith("id,date,locationId,locationName,locationRegion,emissionTypeId,emissionTypeName,unit,scope,value,co2e"));
+        assertTrue(csv.contains(saved.getId() + ",2024-01-01," + location.getId() + ",Test Location,EU,"
+                + type.getId() + ",Electricity,kWh,Scope 2,100.0,50.0"));
+    }
+
+    @Test
+    void exportCsvKeepsRecordsWithoutConversionRate() {
+        Client client = clientRepository.save(new Client("Test Client"));
+        Location location = locationRepository.save(new Location("Test Location", "EU", client));
+        EmissionType type = emissionTypeRepository.save(
+                new EmissionType("Electricity", "kWh", "Scope 2", "Test")
+        );
+
+        // No conversion rate at all
+        EmissionsData saved = emissionsDataRepository.save(
+                new EmissionsData(LocalDate.of(2024, 1, 1), 100.0, type, location)
+        );
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        emissionsExportService.exportCsv(output);
+
+        String csv = output.toString(StandardCharsets.UTF_8);
+        assertTrue(csv.contains(saved.getId() + ",2024-01-01," + location.getId() + ",Test Location,EU,"
+                + type.getId() + ",Electricity,kWh,Scope 2,100.0,\r\n"));
+    }
+}
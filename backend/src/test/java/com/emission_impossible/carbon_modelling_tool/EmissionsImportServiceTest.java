@@ -0,0 +1,282 @@
+package com.emission_impossible.carbon_modelling_tool;
+
+import com.emission_impossible.carbon_modelling_tool.dto.BulkIngestResultDTO;
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionReadingDTO;
+import com.emission_impossible.carbon_modelling_tool.dto.ImportJobDTO;
+import com.emission_impossible.carbon_modelling_tool.dto.RowFailureDTO;
+import com.emission_impossible.carbon_modelling_tool.model.Client;
+import com.emission_impossible.carbon_modelling_tool.model.EmissionType;
+import com.emission_impossible.carbon_modelling_tool.model.Location;
+import com.emission_impossible.carbon_modelling_tool.repository.EmissionTypeRepository;
+import com.emission_impossible.carbon_modelling_tool.repository.LocationRepository;
+import com.emission_impossible.carbon_modelling_tool.service.EmissionsImportService;
+import com.emission_impossible.carbon_modelling_tool.service.EmissionsIngestService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs imports through submit, on the service's own background threads, with
+ * the ingestion stubbed out.
+ *
+ * - Importing a CSV file in the seeder format ingests every valid row
+ * - Bad rows are reported with their row number and skipped
+ * - A file parsed in several chunks is ingested in file order
+ * - A file without the required columns fails the job
+ * - A queued job can be cancelled, and never runs
+ * - A running job that is cancelled stops after its current chunk, keeping its file until then
+ * - Finished jobs beyond imports.max-finished are dropped
+ * - Unknown job ids are not found
+ */
+class EmissionsImportServiceTest {
+
+    private static final String HEADER = "date,location,emissionType,amount\n";
+
+    @TempDir
+    Path tempDir;
+
+    private final StubIngestService ingestService = new StubIngestService();
+
+    private EmissionsImportService importService;
+
+    @AfterEach
+    void tearDown() {
+        ingestService.release.countDown();
+        if (importService != null) {
+            importService.shutdown();
+        }
+    }
+
+    @Test
+    void submitIngestsValidRowsAndReportsBadRows() throws InterruptedException {
+        importService = importService(2, 100);
+
+        ImportJobDTO submitted = importService.submit(csv(HEADER
+                + "2024-01-01,Test Location,Electricity,100\n"
+                + "2024-01-02,Unknown Location,Electricity,100\n"
+                + "2024-01-03,Test Location,Electricity,not-a-number\n"
+                + "2023-01-01,Test Location,Electricity,100\n"
+                + "2024-01-04,Test Location,Electricity,50\n"));
+
+        ImportJobDTO job = awaitFinished(submitted.getId());
+
+        assertEquals(ImportJobDTO.Status.COMPLETED, job.getStatus());
+        assertEquals(5, job.getRowsProcessed());
+        assertEquals(2, job.getRowsInserted());
+        assertEquals(1.0, job.getProgress(), 0.001);
+
+        // Rows 3 and 4 fail while parsing, row 5 is rejected by ingestion
+        assertEquals(3, job.getFailureCount());
+        assertEquals(3, job.getFailures().get(0).rowNumber());
+        assertEquals(4, job.getFailures().get(1).rowNumber());
+        assertEquals(5, job.getFailures().get(2).rowNumber());
+
+        assertEquals(List.of(100.0, 50.0), ingestService.values());
+    }
+
+    @Test
+    void submitIngestsLargeFileInOrder() throws InterruptedException {
+        importService = importService(2, 100);
+
+        // About 3MB, so several parse chunks
+        int rows = 80_000;
+        StringBuilder content = new StringBuilder(HEADER);
+        for (int i = 0; i < rows; i++) {
+            content.append(i == 70_000 ? "2024-01-01,Unknown Location,Electricity," : "2024-01-01,Test Location,Electricity,")
+                    .append(i).append('\n');
+        }
+
+        ImportJobDTO job = awaitFinished(importService.submit(csv(content.toString())).getId());
+
+        assertEquals(ImportJobDTO.Status.COMPLETED, job.getStatus());
+        assertEquals(rows, job.getRowsProcessed());
+        assertEquals(rows - 1, job.getRowsInserted());
+        assertEquals(1, job.getFailureCount());
+        assertEquals(70_002, job.getFailures().get(0).rowNumber());
+
+        List<Double> values = ingestService.values();
+        assertEquals(rows - 1, values.size());
+        for (int i = 1; i < values.size(); i++) {
+            assertTrue(values.get(i - 1) < values.get(i), "Out of order at " + i);
+        }
+    }
+
+    @Test
+    void submitFailsWithoutRequiredColumns() throws InterruptedException {
+        importService = importService(2, 100);
+
+        ImportJobDTO job = awaitFinished(importService.submit(csv("date,site,amount\n2024-01-01,Test Location,100\n")).getId());
+
+        assertEquals(ImportJobDTO.Status.FAILED, job.getStatus());
+        assertTrue(job.getMessage().contains("location"));
+        assertTrue(job.getMessage().contains("emissionType"));
+    }
+
+    @Test
+    void cancelStopsQueuedJob() throws Exception {
+        importService = importService(1, 100);
+        ingestService.blocking = true;
+
+        // The first job holds the only import thread until released
+        ImportJobDTO running = importService.submit(csv(HEADER + "2024-01-01,Test Location,Electricity,100\n"));
+        assertTrue(ingestService.started.await(10, TimeUnit.SECONDS));
+
+        ImportJobDTO queued = importService.submit(csv(HEADER + "2024-01-02,Test Location,Electricity,200\n"));
+        assertEquals(ImportJobDTO.Status.QUEUED, queued.getStatus());
+
+        assertEquals(ImportJobDTO.Status.CANCELLED, importService.cancel(queued.getId()).orElseThrow().getStatus());
+
+        ingestService.release.countDown();
+
+        assertEquals(ImportJobDTO.Status.COMPLETED, awaitFinished(running.getId()).getStatus());
+        assertEquals(ImportJobDTO.Status.CANCELLED, importService.getJob(queued.getId()).orElseThrow().getStatus());
+
+        // Only the first job's row was ingested, and the cancelled upload is gone
+        assertEquals(List.of(100.0), ingestService.values());
+        assertFalse(Files.exists(tempDir.resolve(queued.getId() + ".csv")));
+    }
+
+    @Test
+    void cancelStopsRunningJob() throws Exception {
+        importService = importService(1, 100);
+        ingestService.blocking = true;
+
+        ImportJobDTO running = importService.submit(csv(HEADER + "2024-01-01,Test Location,Electricity,100\n"));
+        assertTrue(ingestService.started.await(10, TimeUnit.SECONDS));
+
+        // Still running: the job finishes itself, and still needs its file
+        assertEquals(ImportJobDTO.Status.RUNNING, importService.cancel(running.getId()).orElseThrow().getStatus());
+        assertTrue(Files.exists(tempDir.resolve(running.getId() + ".csv")));
+
+        ingestService.release.countDown();
+
+        ImportJobDTO job = awaitFinished(running.getId());
+        assertEquals(ImportJobDTO.Status.CANCELLED, job.getStatus());
+        assertNull(job.getMessage());
+
+        // The chunk in progress was written; the file is gone once the job is done
+        assertEquals(List.of(100.0), ingestService.values());
+        assertFalse(Files.exists(tempDir.resolve(running.getId() + ".csv")));
+    }
+
+    @Test
+    void finishedJobsAreEvicted() throws InterruptedException {
+        importService = importService(1, 2);
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String id = importService.submit(csv(HEADER + "2024-01-01,Test Location,Electricity,100\n")).getId();
+            awaitFinished(id);
+            ids.add(id);
+        }
+
+        assertEquals(2, importService.getJobs().size());
+        assertTrue(importService.getJob(ids.get(0)).isEmpty());
+        assertTrue(importService.getJob(ids.get(2)).isPresent());
+    }
+
+    @Test
+    void getJobReturnsEmptyForUnknownId() {
+        importService = importService(2, 100);
+
+        assertTrue(importService.getJob("missing").isEmpty());
+        assertTrue(importService.cancel("missing").isEmpty());
+    }
+
+    private EmissionsImportService importService(int maxConcurrent, int maxFinished) {
+        EmissionType type = new EmissionType("Electricity", "kWh", "Scope 2", "Test");
+        type.setId(1L);
+        Location location = new Location("Test Location", "EU", new Client("Test Client"));
+        location.setId(2L);
+
+        return new EmissionsImportService(ingestService,
+                findAll(EmissionTypeRepository.class, List.of(type)),
+                findAll(LocationRepository.class, List.of(location)),
+                tempDir.toString(), maxConcurrent, Duration.ofHours(1), maxFinished, false);
+    }
+
+    private static MockMultipartFile csv(String content) {
+        return new MockMultipartFile("file", "emissions.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Poll until the job is no longer queued or running
+    private ImportJobDTO awaitFinished(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+
+        while (true) {
+            ImportJobDTO job = importService.getJob(id).orElseThrow();
+            if (job.getStatus() != ImportJobDTO.Status.QUEUED && job.getStatus() != ImportJobDTO.Status.RUNNING) {
+                return job;
+            }
+            assertTrue(System.nanoTime() < deadline, "Import " + id + " did not finish");
+            Thread.sleep(10);
+        }
+    }
+
+    // A repository that answers findAll and fails on everything else
+    @SuppressWarnings("unchecked")
+    private static <T> T findAll(Class<T> repository, List<?> result) {
+        return (T) Proxy.newProxyInstance(EmissionsImportServiceTest.class.getClassLoader(), new Class<?>[]{repository}, (proxy, method, args) -> {
+            if (!method.getName().equals("findAll") || (args != null && args.length > 0)) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            return result;
+        });
+    }
+
+    // Accepts every reading except those from 2023 (no conversion rate), and
+    // can hold the first chunk until released
+    private static final class StubIngestService extends EmissionsIngestService {
+
+        private final List<EmissionReadingDTO> ingested = new CopyOnWriteArrayList<>();
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean blocking;
+
+        StubIngestService() {
+            super(null, null, null, null, null);
+        }
+
+        @Override
+        public BulkIngestResultDTO ingest(List<EmissionReadingDTO> readings) {
+            started.countDown();
+            if (blocking) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+
+            List<RowFailureDTO> failures = new ArrayList<>();
+            for (int i = 0; i < readings.size(); i++) {
+                if (readings.get(i).getDate().getYear() == 2023) {
+                    failures.add(new RowFailureDTO(i + 1, "No conversion rate"));
+                } else {
+                    ingested.add(readings.get(i));
+                }
+            }
+            return new BulkIngestResultDTO(readings.size(), readings.size() - failures.size(), failures, 0, 0.0);
+        }
+
+        List<Double> values() {
+            return ingested.stream().map(EmissionReadingDTO::getValue).toList();
+        }
+    }
+}
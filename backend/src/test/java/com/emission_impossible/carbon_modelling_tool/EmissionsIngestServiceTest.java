@@ -0,0 +1,129 @@
+package com.emission_impossible.carbon_modelling_tool;
+
+import com.emission_impossible.carbon_modelling_tool.cache.ConversionRateMatrix;
+import com.emission_impossible.carbon_modelling_tool.dto.BulkIngestResultDTO;
+import com.emission_impossible.carbon_modelling_tool.dto.EmissionReadingDTO;
+import com.emission_impossible.carbon_modelling_tool.dto.RowFailureDTO;
+import com.emission_impossible.carbon_modelling_tool.model.*;
+import com.emission_impossible.carbon_modelling_tool.repository.*;
+import com.emission_impossible.carbon_modelling_tool.service.EmissionsDataService;
+import com.emission_impossible.carbon_modelling_tool.service.EmissionsIngestService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * - Bulk ingestion inserts every valid reading
+ * - Readings without a conversion rate, with missing fields, or with a negative
+ *   or non-finite value, are reported by row number
+ * - A database failure while resolving rates fails the whole call
+ * - The monthly rollup includes the ingested readings
+ */
+class EmissionsIngestServiceTest extends BaseRepositoryTest {
+
+    @Autowired
+    private EmissionsIngestService emissionsIngestService;
+
+    @Autowired
+    private EmissionsDataService emissionsDataService;
+
+    @Autowired
+    private EmissionsDataRepository emissionsDataRepository;
+
+    @Autowired
+    private ConversionRateRepository conversionRateRepository;
+
+    @Autowired
+    private EmissionTypeRepository emissionTypeRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Test
+    void ingestInsertsValidReadingsAndReportsFailures() {
+        Client client = clientRepository.save(new Client("Test Client"));
+        Location location = locationRepository.save(new Location("Test Location", "EU", client));
+        EmissionType type = emissionTypeRepository.save(
+                new EmissionType("Electricity", "kWh", "Scope 2", "Test")
+        );
+
+        conversionRateRepository.save(
+                new ConversionRate(2024, 0.5, "kg CO2e/kWh", "Test rate", type, location)
+        );
+
+        BulkIngestResultDTO result = emissionsIngestService.ingest(List.of(
+                new EmissionReadingDTO(type.getId(), location.getId(), LocalDate.of(2024, 1, 1), 100.0),
+                new EmissionReadingDTO(type.getId(), location.getId(), LocalDate.of(2023, 1, 1), 100.0),
+                new EmissionReadingDTO(type.getId(), location.getId(), LocalDate.of(2024, 1, 2), 300.0),
+                new EmissionReadingDTO(type.getId(), location.getId(), null, 50.0)
+        ));
+
+        assertEquals(4, result.getReceived());
+        assertEquals(2, result.getInserted());
+
+        // No 2023 rate, and a missing date
+        assertEquals(2, result.getFailures().size());
+        assertEquals(2, result.getFailures().get(0).rowNumber());
+        assertEquals(4, result.getFailures().get(1).rowNumber());
+
+        assertEquals(2, emissionsDataRepository.findByLocationId(location.getId()).size());
+        assertEquals(200.0, emissionsDataService.getTotalCO2eForLocation(location.getId()), 0.001);
+    }
+
+    @Test
+    void ingestReportsInvalidValues() {
+        Client client = clientRepository.save(new Client("Test Client"));
+        Location location = locationRepository.save(new Location("Test Location", "EU", client));
+        EmissionType type = emissionTypeRepository.save(
+                new EmissionType("Electricity", "kWh", "Scope 2", "Test")
+        );
+
+        conversionRateRepository.save(
+                new ConversionRate(2024, 0.5, "kg CO2e/kWh", "Test rate", type, location)
+        );
+
+        LocalDate date = LocalDate.of(2024, 1, 1);
+        BulkIngestResultDTO result = emissionsIngestService.ingest(List.of(
+                new EmissionReadingDTO(type.getId(), location.getId(), date, Double.NaN),
+                new EmissionReadingDTO(type.getId(), location.getId(), date, -1.0),
+                new EmissionReadingDTO(type.getId(), location.getId(), date, Double.POSITIVE_INFINITY),
+                new EmissionReadingDTO(type.getId(), location.getId(), date, 0.0)
+        ));
+
+        assertEquals(1, result.getInserted());
+        assertEquals(List.of(1L, 2L, 3L), result.getFailures().stream().map(RowFailureDTO::rowNumber).toList());
+        assertEquals(0.0, emissionsDataService.getTotalCO2eForLocation(location.getId()), 0.001);
+    }
+
+    @Test
+    void ingestFailsWhenRatesCannotBeRead() {
+        ConversionRateRepository failing = (ConversionRateRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ConversionRateRepository.class}, (proxy, method, args) -> {
+                    throw new DataAccessResourceFailureException("Database unavailable");
+                });
+        EmissionsIngestService service = new EmissionsIngestService(null, new ConversionRateMatrix(failing), null, null, null);
+
+        assertThrows(DataAccessResourceFailureException.class, () -> service.ingest(List.of(
+                new EmissionReadingDTO(1L, 2L, LocalDate.of(2024, 1, 1), 100.0)
+        )));
+    }
+
+    @Test
+    void ingestRejectsTooManyReadings() {
+        List<EmissionReadingDTO> readings = Collections.nCopies(
+                EmissionsIngestService.MAX_ROWS + 1, new EmissionReadingDTO()
+        );
+
+        assertThrows(IllegalArgumentException.class, () -> emissionsIngestService.ingest(readings));
+    }
+}
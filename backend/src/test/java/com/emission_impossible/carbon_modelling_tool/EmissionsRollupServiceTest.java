@@ -0,0 +1,212 @@
+package com.emission_impossible.carbon_modelling_tool;
+
+import com.emission_impossible.carbon_modelling_tool.model.*;
+import com.emission_impossible.carbon_modelling_tool.repository.*;
+import com.emission_impossible.carbon_modelling_tool.service.ConversionRateService;
+import com.emission_impossible.carbon_modelling_tool.service.EmissionsDataService;
+import com.emission_impossible.carbon_modelling_tool.service.EmissionsRollupService;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * - Adding emissions updates the monthly rollup
+ * - Rebuilding the rollup from emissions data
+ * - Recalculating CO2e when a conversion rate changes
+ * - Adding records that had no conversion rate once one is created
+ * - Concurrent first records for the same month all add up
+ */
+class EmissionsRollupServiceTest extends BaseRepositoryTest {
+
+    @Autowired
+    private EmissionsRollupService rollupService;
+
+    @Autowired
+    private EmissionsMonthlyRollupRepository rollupRepository;
+
+    @Autowired
+    private EmissionsDataService emissionsDataService;
+
+    @Autowired
+    private ConversionRateService conversionRateService;
+
+    @Autowired
+    private EmissionsDataRepository emissionsDataRepository;
+
+    @Autowired
+    private ConversionRateRepository conversionRateRepository;
+
+    @Autowired
+    private EmissionTypeRepository emissionTypeRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Test
+    void addEmissionUpdatesMonthlyRollup() {
+        Client client = clientRepository.save(new Client("Test Client"));
+        Location location = locationRepository.save(new Location("Test Location", "EU", client));
+        EmissionType type = emissionTypeRepository.save(
+                new EmissionType("Electricity", "kWh", "Scope 2", "Test")
+        );
+
+        conversionRateRepository.save(
+                new ConversionRate(2024, 0.5, "kg CO2e/kWh", "Test rate", type, location)
+        );
+
+        emissionsDataService.addEmission(type.getId(), location.getId(), LocalDate.of(2024, 1, 1), 100.0);
+        emissionsDataService.addEmission(type.getId(), location.getId(), LocalDate.of(2024, 1, 20), 50.0);
+        emissionsDataService.addEmission(type.getId(), location.getId(), LocalDate.of(2024, 2, 1), 10.0);
+
+        EmissionsMonthlyRollup january = rollupRepository
+                .findByLocationIdAndEmissionTypeIdAndYearAndMonth(location.getId(), type.getId(), 2024, 1)
+                .orElseThrow();
+
+        assertEquals(150.0, january.getTotalValue(), 0.001);
+        assertEquals(75.0, january.getTotalCO2e(), 0.001);
+        assertEquals(2, january.getRecordCount());
+
+        assertTrue(rollupRepository
+                .findByLocationIdAndEmissionTypeIdAndYearAndMonth(location.getId(), type.getId(), 2024, 2)
+                .isPresent());
+    }
+
+    @Test
+    void rebuildIncludesRecordsSavedDirectly() {
+        Client client = clientRepository.save(new Client("Test Client"));
+        Location location = locationRepository.save(new Location("Test Location", "EU", client));
+        EmissionType type = emissionTypeRepository.save(
+                new EmissionType("Electricity", "kWh", "Scope 2", "Test")
+        );
+
+        conversionRateRepository.save(
+                new ConversionRate(2024, 0.5, "kg CO2e/kWh", "Test rate", type, location)
+        );
+
+        emissionsDataRepository.save(
+                new EmissionsData(LocalDate.of(2024, 3, 1), 100.0, type, location)
+        );
+        emissionsDataRepository.save(
+                new EmissionsData(LocalDate.of(2024, 3, 2), 300.0, type, location)
+        );
+
+        assertEquals(0.0, emissionsDataService.getTotalCO2eForLocation(location.getId()), 0.001);
+
+        rollupService.rebuild();
+
+        assertEquals(200.0, emissionsDataService.getTotalCO2eForLocation(location.getId()), 0.001);
+    }
+
+    @Test
+    void updateRateRecalculatesRollupCO2e() {
+        Client client = clientRepository.save(new Client("Test Client"));
+        Location location = locationRepository.save(new Location("Test Location", "EU", client));
+        EmissionType type = emissionTypeRepository.save(
+                new EmissionType("Electricity", "kWh", "Scope 2", "Test")
+        );
+
+        conversionRateRepository.save(
+                new ConversionRate(2024, 0.5, "kg CO2e/kWh", "Test rate", type, location)
+        );
+
+        emissionsDataService.addEmission(type.getId(), location.getId(), LocalDate.of(2024, 1, 1), 100.0);
+
+        conversionRateService.updateRate(
+                new ConversionRate(2024, 2.0, "kg CO2e/kWh", "New rate", type, location)
+        );
+
+        assertEquals(200.0, emissionsDataService.getTotalCO2eForLocation(location.getId()), 0.001);
+    }
+
+    @Test
+    void createRateAddsRecordsWithoutRateToRollup() {
+        Client client = clientRepository.save(new Client("Test Client"));
+        Location location = locationRepository.save(new Location("Test Location", "EU", client));
+        EmissionType type = emissionTypeRepository.save(
+                new EmissionType("Electricity", "kWh", "Scope 2", "Test")
+        );
+
+        // No rate for either year yet
+        emissionsDataRepository.save(
+                new EmissionsData(LocalDate.of(2024, 3, 1), 100.0, type, location)
+        );
+        emissionsDataRepository.save(
+                new EmissionsData(LocalDate.of(2024, 3, 2), 300.0, type, location)
+        );
+        emissionsDataRepository.save(
+                new EmissionsData(LocalDate.of(2023, 3, 1), 1000.0, type, location)
+        );
+
+        conversionRateService.updateRate(
+                new ConversionRate(2024, 0.5, "kg CO2e/kWh", "New rate", type, location)
+        );
+
+        EmissionsMonthlyRollup march = rollupRepository
+                .findByLocationIdAndEmissionTypeIdAndYearAndMonth(location.getId(), type.getId(), 2024, 3)
+                .orElseThrow();
+
+        assertEquals(400.0, march.getTotalValue(), 0.001);
+        assertEquals(2, march.getRecordCount());
+
+        // The 2023 record still has no rate
+        assertEquals(200.0, emissionsDataService.getTotalCO2eForLocation(location.getId()), 0.001);
+    }
+
+    // Runs outside the test transaction: each record() commits on its own thread
+    @Test
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    void concurrentFirstRecordsForSameMonthAddUp() throws Exception {
+        Client client = clientRepository.save(new Client("Concurrent Client"));
+        Location location = locationRepository.save(new Location("Concurrent Location", "EU", client));
+        EmissionType type = emissionTypeRepository.save(
+                new EmissionType("Electricity", "kWh", "Scope 2", "Test")
+        );
+
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+
+            try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+                for (int i = 0; i < 8; i++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        rollupService.record(type.getId(), location.getId(), 2024, 5, 10.0, 5.0, 1);
+                        return null;
+                    }));
+                }
+                start.countDown();
+
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            }
+
+            EmissionsMonthlyRollup may = rollupRepository
+                    .findByLocationIdAndEmissionTypeIdAndYearAndMonth(location.getId(), type.getId(), 2024, 5)
+                    .orElseThrow();
+
+            assertEquals(80.0, may.getTotalValue(), 0.001);
+            assertEquals(40.0, may.getTotalCO2e(), 0.001);
+            assertEquals(8, may.getRecordCount());
+        } finally {
+            rollupRepository.findByLocationIdAndEmissionTypeIdAndYearAndMonth(location.getId(), type.getId(), 2024, 5)
+                    .ifPresent(rollupRepository::delete);
+            locationRepository.delete(location);
+            emissionTypeRepository.delete(type);
+            clientRepository.delete(client);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.emission_impossible.carbon_modelling_tool;
+
+import com.emission_impossible.carbon_modelling_tool.cache.EmissionsRunningTotals;
+import com.emission_impossible.carbon_modelling_tool.dto.LocationCO2eTotal;
+import com.emission_impossible.carbon_modelling_tool.repository.EmissionsMonthlyRollupRepository;
+import com.emission_impossible.carbon_modelling_tool.repository.LocationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * - Loading sums the rollup into location, client and emission type totals
+ * - Outside a transaction, additions apply straight away
+ * - Inside a transaction, additions apply only once it commits,
+ *   and the totals report themselves unavailable
+ * - A location's client is looked up once
+ * - Concurrent additions all count
+ */
+class EmissionsRunningTotalsTest {
+
+    // location id -> client id
+    private static final Map<Long, Long> CLIENTS = Map.of(1L, 10L, 2L, 10L, 3L, 20L);
+
+    private final AtomicInteger clientLookups = new AtomicInteger();
+
+    private EmissionsRunningTotals runningTotals;
+
+    @BeforeEach
+    void setUp() {
+        List<LocationCO2eTotal> rollup = List.of(
+                total(1L, 10L, 100L, 50.0),
+                total(1L, 10L, 200L, 25.0),
+                total(2L, 10L, 100L, 10.0)
+        );
+
+        runningTotals = new EmissionsRunningTotals(stub(EmissionsMonthlyRollupRepository.class, "sumCO2eByLocationAndEmissionType", rollup),
+                stub(LocationRepository.class, "findClientIdById", null));
+        runningTotals.load();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void loadsTotalsFromRollup() {
+        assertTrue(runningTotals.isAvailable());
+
+        assertEquals(75.0, runningTotals.getForLocation(1L), 0.001);
+        assertEquals(10.0, runningTotals.getForLocation(2L), 0.001);
+        assertEquals(85.0, runningTotals.getForClient(10L), 0.001);
+        assertEquals(60.0, runningTotals.getForEmissionType(100L), 0.001);
+        assertEquals(0.0, runningTotals.getForClient(20L), 0.001);
+    }
+
+    @Test
+    void addAppliesImmediatelyOutsideTransaction() {
+        runningTotals.add(100L, 3L, 40.0);
+        runningTotals.add(100L, 3L, 2.0);
+
+        assertEquals(42.0, runningTotals.getForLocation(3L), 0.001);
+        assertEquals(42.0, runningTotals.getForClient(20L), 0.001);
+        assertEquals(102.0, runningTotals.getForEmissionType(100L), 0.001);
+
+        // Only the first addition for location 3 needed its client
+        assertEquals(1, clientLookups.get());
+    }
+
+    @Test
+    void addInsideTransactionAppliesOnCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        runningTotals.add(100L, 1L, 5.0);
+
+        assertFalse(runningTotals.isAvailable());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+
+        assertEquals(75.0, runningTotals.getForLocation(1L), 0.001);
+
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(80.0, runningTotals.getForLocation(1L), 0.001);
+        assertEquals(90.0, runningTotals.getForClient(10L), 0.001);
+    }
+
+    @Test
+    void concurrentAddsAllCount() throws Exception {
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                executor.submit(() -> {
+                    for (int j = 0; j < 10_000; j++) {
+                        runningTotals.add(200L, 2L, 1.0);
+                    }
+                });
+            }
+        }
+
+        assertEquals(80_010.0, runningTotals.getForLocation(2L), 0.001);
+        assertEquals(80_085.0, runningTotals.getForClient(10L), 0.001);
+        assertEquals(80_025.0, runningTotals.getForEmissionType(200L), 0.001);
+    }
+
+    private static LocationCO2eTotal total(Long locationId, Long clientId, Long emissionTypeId, double co2e) {
+        return new LocationCO2eTotal() {
+            public Long getLocationId() { return locationId; }
+            public Long getClientId() { return clientId; }
+            public Long getEmissionTypeId() { return emissionTypeId; }
+            public Double getTotalCO2e() { return co2e; }
+        };
+    }
+
+    // A repository that answers the one method used here (findClientIdById
+    // from CLIENTS, anything else with the given result) and fails on the rest
+    @SuppressWarnings("unchecked")
+    private <T> T stub(Class<T> repository, String methodName, Object result) {
+        return (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{repository}, (proxy, method, args) -> {
+            if (!method.getName().equals(methodName)) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            if (methodName.equals("findClientIdById")) {
+                clientLookups.incrementAndGet();
+                return Optional.ofNullable(CLIENTS.get((Long) args[0]));
+            }
+            return result;
+        });
+    }
+}
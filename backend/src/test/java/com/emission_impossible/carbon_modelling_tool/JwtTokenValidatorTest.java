@@ -0,0 +1,101 @@
+package com.emission_impossible.carbon_modelling_tool;
+
+import com.emission_impossible.carbon_modelling_tool.SecurityConfig.JwtProvider;
+import com.emission_impossible.carbon_modelling_tool.SecurityConfig.JwtTokenCache;
+import com.emission_impossible.carbon_modelling_tool.SecurityConfig.JwtTokenValidator;
+import com.emission_impossible.carbon_modelling_tool.SecurityConfig.JwtUser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * - A valid token authenticates the request
+ * - Repeat requests with the same token are served from the token cache
+ * - Invalid tokens are rejected and never cached
+ * - Expired and excess cache entries are dropped
+ * - The user's full name is carried in the token
+ */
+class JwtTokenValidatorTest {
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static void filter(JwtTokenValidator validator, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/get-authenticated-user");
+        request.addHeader("Authorization", "Bearer " + token);
+
+        SecurityContextHolder.clearContext();
+        validator.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    }
+
+    @Test
+    void repeatRequestsAreServedFromCache() throws Exception {
+        JwtTokenValidator validator = new JwtTokenValidator(new JwtTokenCache(100));
+        String token = JwtProvider.generateToken(new UsernamePasswordAuthenticationToken("test@example.com", "password"));
+
+        filter(validator, token);
+        Authentication first = SecurityContextHolder.getContext().getAuthentication();
+
+        filter(validator, token);
+        Authentication second = SecurityContextHolder.getContext().getAuthentication();
+
+        assertEquals("test@example.com", first.getName());
+        assertEquals("test@example.com", second.getName());
+
+        assertEquals(1, validator.getTokenCache().getMisses());
+        assertEquals(1, validator.getTokenCache().getHits());
+        assertEquals(0.5, validator.getTokenCache().getHitRate(), 0.001);
+        assertEquals(2, validator.getFilterCount());
+    }
+
+    @Test
+    void fullNameClaimBecomesPartOfPrincipal() throws Exception {
+        JwtTokenValidator validator = new JwtTokenValidator(new JwtTokenCache(100));
+        String token = JwtProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(new JwtUser("test@example.com", "Test User"), null)
+        );
+
+        filter(validator, token);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        JwtUser user = assertInstanceOf(JwtUser.class, authentication.getPrincipal());
+
+        assertEquals("test@example.com", authentication.getName());
+        assertEquals("Test User", user.fullName());
+    }
+
+    @Test
+    void invalidTokenIsRejected() {
+        JwtTokenValidator validator = new JwtTokenValidator(new JwtTokenCache(100));
+
+        assertThrows(BadCredentialsException.class, () -> filter(validator, "not-a-token"));
+        assertEquals(0, validator.getTokenCache().size());
+    }
+
+    @Test
+    void cacheDropsExpiredEntriesAndStaysBounded() {
+        JwtTokenCache cache = new JwtTokenCache(2);
+        Authentication authentication = new UsernamePasswordAuthenticationToken("test@example.com", null);
+        long inOneHour = System.currentTimeMillis() + 3_600_000;
+
+        cache.put("expired", authentication, System.currentTimeMillis() - 1);
+        assertNull(cache.get("expired"));
+
+        cache.put("a", authentication, inOneHour);
+        cache.put("b", authentication, inOneHour);
+        cache.put("c", authentication, inOneHour);
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("c"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.emission_impossible.carbon_modelling_tool;
+
+import com.emission_impossible.carbon_modelling_tool.metrics.CountingDataSource;
+import com.emission_impossible.carbon_modelling_tool.metrics.SqlStatementCounter;
+import com.emission_impossible.carbon_modelling_tool.service.LocationFanOut;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * - Location ids are split into consecutive groups of near-equal size, in order
+ * - Groups run in parallel: every group starts before any of them finishes
+ * - An exception from a group is rethrown to the caller
+ * - Statements run by the groups count towards the caller's SQL scope
+ * - Only applies when enabled and the client has enough locations
+ */
+class LocationFanOutTest {
+
+    private LocationFanOut fanOut;
+
+    @BeforeEach
+    void setUp() {
+        fanOut = new LocationFanOut(true, 4, 3, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fanOut.shutdown();
+    }
+
+    @Test
+    void splitsIntoConsecutiveGroups() {
+        List<Long> ids = LongStream.rangeClosed(1, 10).boxed().toList();
+
+        List<List<Long>> groups = fanOut.map(ids, List::copyOf);
+
+        assertEquals(List.of(List.of(1L, 2L, 3L), List.of(4L, 5L, 6L), List.of(7L, 8L), List.of(9L, 10L)), groups);
+    }
+
+    @Test
+    void runsGroupsInParallel() {
+        List<Long> ids = LongStream.rangeClosed(1, 4).boxed().toList();
+
+        // Only trips once all four groups are running at the same time
+        CyclicBarrier allStarted = new CyclicBarrier(4);
+
+        List<String> threads = fanOut.map(ids, group -> {
+            try {
+                allStarted.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (BrokenBarrierException | TimeoutException e) {
+                throw new IllegalStateException("Groups did not run in parallel", e);
+            }
+            return Thread.currentThread().getName();
+        });
+
+        assertEquals(4, threads.stream().distinct().count());
+    }
+
+    @Test
+    void rethrowsGroupFailure() {
+        List<Long> ids = LongStream.rangeClosed(1, 4).boxed().toList();
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> fanOut.map(ids, group -> {
+            if (group.contains(3L)) {
+                throw new IllegalStateException("group failed");
+            }
+            return group.size();
+        }));
+        assertEquals("group failed", thrown.getMessage());
+    }
+
+    @Test
+    void countsStatementsTowardsCallerScope() {
+        DriverManagerDataSource h2 = new DriverManagerDataSource("jdbc:h2:mem:fan-out;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new CountingDataSource(h2));
+        List<Long> ids = LongStream.rangeClosed(1, 4).boxed().toList();
+
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open("test")) {
+            fanOut.map(ids, group -> jdbcTemplate.queryForObject("SELECT 1", Integer.class));
+
+            assertEquals(4, scope.getStatements());
+            assertEquals(4, scope.getRows());
+        }
+    }
+
+    @Test
+    void appliesOnlyWhenEnabledAndLargeEnough() {
+        assertFalse(fanOut.appliesTo(2));
+        assertTrue(fanOut.appliesTo(3));
+
+        LocationFanOut disabled = new LocationFanOut(false, 4, 3, false);
+        try {
+            assertFalse(disabled.appliesTo(100));
+        } finally {
+            disabled.shutdown();
+        }
+    }
+}
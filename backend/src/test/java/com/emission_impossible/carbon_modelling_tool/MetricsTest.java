@@ -0,0 +1,105 @@
+package com.emission_impossible.carbon_modelling_tool;
+
+import com.emission_impossible.carbon_modelling_tool.SecurityConfig.JwtProvider;
+import com.emission_impossible.carbon_modelling_tool.SecurityConfig.JwtTokenValidator;
+import com.emission_impossible.carbon_modelling_tool.metrics.MethodMetricsPostProcessor;
+import com.emission_impossible.carbon_modelling_tool.model.*;
+import com.emission_impossible.carbon_modelling_tool.repository.*;
+import com.emission_impossible.carbon_modelling_tool.service.EmissionsDataService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * - EmissionsDataService and repository calls are timed, tagged by layer, class and method
+ * - calculateCO2e is timed, including calls made from inside the service
+ * - The JWT filter's time and token cache lookups are published
+ * - Conversion rate matrix lookups are published
+ */
+class MetricsTest extends BaseRepositoryTest {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EmissionsDataService emissionsDataService;
+
+    @Autowired
+    private JwtTokenValidator jwtTokenValidator;
+
+    @Autowired
+    private ConversionRateRepository conversionRateRepository;
+
+    @Autowired
+    private EmissionTypeRepository emissionTypeRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private long methodCount(String layer, String className, String method) {
+        Timer timer = meterRegistry.find(MethodMetricsPostProcessor.METRIC_NAME)
+                .tags("layer", layer, "class", className, "method", method)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    @Test
+    void serviceAndRepositoryCallsAreTimed() {
+        long serviceBefore = methodCount("service", "EmissionsDataService", "getTotalCO2eForLocation");
+        long repositoryBefore = methodCount("repository", "EmissionsMonthlyRollupRepository", "sumCO2eByLocationId");
+
+        emissionsDataService.getTotalCO2eForLocation(1L);
+
+        assertEquals(serviceBefore + 1, methodCount("service", "EmissionsDataService", "getTotalCO2eForLocation"));
+        assertEquals(repositoryBefore + 1, methodCount("repository", "EmissionsMonthlyRollupRepository", "sumCO2eByLocationId"));
+    }
+
+    @Test
+    void calculateCO2eIsTimed() {
+        Client client = clientRepository.save(new Client("Test Client"));
+        Location location = locationRepository.save(new Location("Test Location", "EU", client));
+        EmissionType type = emissionTypeRepository.save(new EmissionType("Electricity", "kWh", "Scope 2", "Test"));
+        conversionRateRepository.save(new ConversionRate(2024, 0.5, "kg CO2e/kWh", "Test rate", type, location));
+
+        long before = meterRegistry.get("emissions.co2e.calculate").timer().count();
+
+        emissionsDataService.calculateCO2e(new EmissionsData(LocalDate.of(2024, 1, 1), 100.0, type, location));
+
+        assertEquals(before + 1, meterRegistry.get("emissions.co2e.calculate").timer().count());
+        assertTrue(meterRegistry.get("conversion.rates.lookups").tag("result", "miss").functionCounter().count() >= 1);
+    }
+
+    @Test
+    void jwtFilterIsTimed() throws Exception {
+        String token = JwtProvider.generateToken(new UsernamePasswordAuthenticationToken("metrics@example.com", "password"));
+        long before = meterRegistry.get("security.jwt.filter").timer().count();
+
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/get-authenticated-user");
+            request.addHeader("Authorization", "Bearer " + token);
+            jwtTokenValidator.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        }
+
+        assertEquals(before + 2, meterRegistry.get("security.jwt.filter").timer().count());
+        assertTrue(meterRegistry.get("security.jwt.cache.lookups").tag("result", "hit").functionCounter().count() >= 1);
+    }
+}
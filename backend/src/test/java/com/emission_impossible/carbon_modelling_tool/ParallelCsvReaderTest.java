@@ -0,0 +1,105 @@
+package com.emission_impossible.carbon_modelling_tool;
+
+import com.emission_impossible.carbon_modelling_tool.util.ParallelCsvReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * - Chunks end on record boundaries, including quoted fields with line breaks
+ * - Every row is parsed once, in file order, by header name
+ * - Rows and parse errors report the line of the original file
+ */
+class ParallelCsvReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void readParsesEveryRowInOrder() throws IOException {
+        StringBuilder csv = new StringBuilder("date,location,emissionType,amount\n");
+        for (int i = 0; i < 500; i++) {
+            csv.append("2024-01-01,Site ").append(i).append(",Electricity,").append(i).append('\n');
+        }
+
+        Path file = tempDir.resolve("emissions.csv");
+        Files.writeString(file, csv.toString());
+
+        // Small chunks so the file is split many times
+        List<List<String>> chunks = ParallelCsvReader.read(file, 256, executor, (chunk, rows) -> {
+            List<String> amounts = new ArrayList<>();
+            rows.forEachRemaining(row -> amounts.add(row.get("amount")));
+            return amounts;
+        });
+
+        assertTrue(chunks.size() > 1);
+
+        List<String> amounts = chunks.stream().flatMap(List::stream).toList();
+        assertEquals(500, amounts.size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals(String.valueOf(i), amounts.get(i));
+        }
+    }
+
+    @Test
+    void quotedLineBreaksStayInOneChunkAndKeepLineNumbers() throws IOException {
+        Path file = tempDir.resolve("locations.csv");
+        Files.writeString(file, "name,description\n"
+                + "A,\"first\nsecond\"\n"
+                + "B,\"say \"\"hi\"\"\"\n"
+                + "C,plain\n");
+
+        List<ParallelCsvReader.Chunk> chunks = ParallelCsvReader.split(file, 1);
+        assertEquals(3, chunks.size());
+
+        List<List<ParallelCsvReader.Row>> rows = ParallelCsvReader.read(file, 1, executor, (chunk, iterator) -> {
+            List<ParallelCsvReader.Row> list = new ArrayList<>();
+            iterator.forEachRemaining(list::add);
+            return list;
+        });
+
+        List<ParallelCsvReader.Row> all = rows.stream().flatMap(List::stream).toList();
+        assertEquals("first\nsecond", all.get(0).get("description"));
+        assertEquals(2, all.get(0).lineNumber());
+        assertEquals("say \"hi\"", all.get(1).get("description"));
+        assertEquals(4, all.get(1).lineNumber());
+        assertEquals(5, all.get(2).lineNumber());
+    }
+
+    @Test
+    void parseErrorReportsLineNumber() throws IOException {
+        Path file = tempDir.resolve("broken.csv");
+        Files.writeString(file, "name,region\nA,EU\nB,UK\nC,\"unterminated\n");
+
+        RuntimeException e = assertThrows(RuntimeException.class, () ->
+                ParallelCsvReader.read(file, 1, executor, (chunk, rows) -> {
+                    rows.forEachRemaining(row -> {});
+                    return null;
+                }));
+
+        assertTrue(e.getMessage().contains("line 4"), e.getMessage());
+    }
+}
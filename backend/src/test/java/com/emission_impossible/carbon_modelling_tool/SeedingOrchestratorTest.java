@@ -0,0 +1,114 @@
+package com.emission_impossible.carbon_modelling_tool;
+
+import com.emission_impossible.carbon_modelling_tool.seeder.Seeder;
+import com.emission_impossible.carbon_modelling_tool.seeder.SeedingOrchestrator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * - Independent seeders run at the same time
+ * - A seeder only starts once its dependencies have finished
+ * - Timings are recorded per seeder
+ * - Missing dependencies, cycles and failing seeders stop seeding
+ */
+class SeedingOrchestratorTest {
+
+    private static final List<String> finished = new CopyOnWriteArrayList<>();
+
+    // Both independent seeders must be running at once to get past it
+    private static CountDownLatch bothRunning;
+
+    static class First implements Seeder {
+        @Override
+        public void seed() { awaitOther(); finished.add("First"); }
+    }
+
+    static class Second implements Seeder {
+        @Override
+        public void seed() { awaitOther(); finished.add("Second"); }
+    }
+
+    static class Last implements Seeder {
+        @Override
+        public Set<Class<? extends Seeder>> dependsOn() { return Set.of(First.class, Second.class); }
+
+        @Override
+        public void seed() { finished.add("Last"); }
+    }
+
+    static class Cyclic implements Seeder {
+        @Override
+        public Set<Class<? extends Seeder>> dependsOn() { return Set.of(Cyclic.class); }
+
+        @Override
+        public void seed() {}
+    }
+
+    static class Failing implements Seeder {
+        @Override
+        public void seed() { throw new RuntimeException("boom"); }
+    }
+
+    static class AfterFailing implements Seeder {
+        @Override
+        public Set<Class<? extends Seeder>> dependsOn() { return Set.of(Failing.class); }
+
+        @Override
+        public void seed() { finished.add("AfterFailing"); }
+    }
+
+    private static void awaitOther() {
+        bothRunning.countDown();
+        try {
+            assertTrue(bothRunning.await(5, TimeUnit.SECONDS), "Independent seeders did not run concurrently");
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    void seedRunsIndependentSeedersConcurrentlyAndDependentsAfter() {
+        finished.clear();
+        bothRunning = new CountDownLatch(2);
+
+        // Registered out of order on purpose
+        SeedingOrchestrator orchestrator = new SeedingOrchestrator(List.of(new Last(), new First(), new Second()));
+        orchestrator.seed();
+
+        assertEquals(3, finished.size());
+        assertEquals("Last", finished.get(2));
+        assertEquals(Set.of("First", "Second", "Last"), orchestrator.getTimings().keySet());
+    }
+
+    @Test
+    void seedRejectsMissingDependency() {
+        SeedingOrchestrator orchestrator = new SeedingOrchestrator(List.of(new Last(), new First()));
+
+        assertThrows(IllegalStateException.class, orchestrator::seed);
+    }
+
+    @Test
+    void seedRejectsCycle() {
+        SeedingOrchestrator orchestrator = new SeedingOrchestrator(List.of(new Cyclic()));
+
+        assertThrows(IllegalStateException.class, orchestrator::seed);
+    }
+
+    @Test
+    void seedFailsAndSkipsDependentsWhenASeederFails() {
+        finished.clear();
+
+        SeedingOrchestrator orchestrator = new SeedingOrchestrator(List.of(new Failing(), new AfterFailing()));
+
+        RuntimeException e = assertThrows(RuntimeException.class, orchestrator::seed);
+        assertEquals("boom", e.getCause().getMessage());
+        assertFalse(finished.contains("AfterFailing"));
+    }
+}
@@ -0,0 +1,63 @@
+package com.emission_impossible.carbon_modelling_tool;
+
+import com.emission_impossible.carbon_modelling_tool.seeder.SeedingPipeline;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * - Every row is mapped and written
+ * - Rows are written in chunks of at most CHUNK_SIZE
+ * - Indexing entities by name
+ */
+class SeedingPipelineTest extends BaseRepositoryTest {
+
+    @Autowired
+    private SeedingPipeline seedingPipeline;
+
+    @Test
+    void runWritesEveryRowInChunks() throws IOException {
+        StringBuilder csv = new StringBuilder("name\n");
+        int rows = SeedingPipeline.CHUNK_SIZE + 10;
+        for (int i = 0; i < rows; i++) {
+            csv.append("row").append(i).append('\n');
+        }
+
+        List<CSVRecord> records = CSVFormat.DEFAULT.builder()
+                .setHeader()
+                .setSkipHeaderRecord(true)
+                .build()
+                .parse(new StringReader(csv.toString()))
+                .getRecords();
+
+        List<Integer> chunkSizes = new ArrayList<>();
+        List<String> written = new ArrayList<>();
+
+        long count = seedingPipeline.run("test", records, row -> row.get("name"), chunk -> {
+            chunkSizes.add(chunk.size());
+            written.addAll(chunk);
+        });
+
+        assertEquals(rows, count);
+        assertEquals(List.of(SeedingPipeline.CHUNK_SIZE, 10), chunkSizes);
+        assertEquals("row0", written.get(0));
+        assertEquals("row" + (rows - 1), written.get(rows - 1));
+    }
+
+    @Test
+    void byNameIndexesEntities() {
+        Map<String, String> byName = SeedingPipeline.byName(List.of("a", "bb"), value -> value);
+
+        assertEquals(2, byName.size());
+        assertEquals("bb", byName.get("bb"));
+    }
+}
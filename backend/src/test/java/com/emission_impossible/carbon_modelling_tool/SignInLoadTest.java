@@ -0,0 +1,168 @@
+package com.emission_impossible.carbon_modelling_tool;
+
+import com.emission_impossible.carbon_modelling_tool.SecurityConfig.JwtProvider;
+import com.emission_impossible.carbon_modelling_tool.SecurityConfig.JwtUser;
+import com.emission_impossible.carbon_modelling_tool.model.User;
+import com.emission_impossible.carbon_modelling_tool.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * - A burst of sign-ins beyond the hashing queue is refused with 503, not queued
+ * - Sign-ins that are accepted still succeed
+ * - A dashboard API is answered while the hashing thread is busy with the burst
+ * - Hashing time is recorded
+ *
+ * Runs against a real server, so the test user is committed and removed afterwards.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+// One hashing thread and a short queue, so a small burst is enough to fill it
+@TestPropertySource(properties = {
+        "security.password.threads=1",
+        "security.password.queue-capacity=2"
+})
+class SignInLoadTest {
+
+    private static final String EMAIL = "load-test@example.com";
+    private static final int BURST = 40;
+
+    // The first password check signals hashingStarted, and every check waits
+    // for hashingReleased, so the hashing thread stays busy until released
+    private static CountDownLatch hashingStarted;
+    private static CountDownLatch hashingReleased;
+
+    @TestConfiguration
+    static class BlockingPasswordEncoderConfig {
+
+        @Bean
+        @Primary
+        PasswordEncoder blockingPasswordEncoder() {
+            return new BCryptPasswordEncoder() {
+                @Override
+                public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                    hashingStarted.countDown();
+                    try {
+                        hashingReleased.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException(e);
+                    }
+                    return super.matches(rawPassword, encodedPassword);
+                }
+            };
+        }
+    }
+
+    @Value("${local.server.port}")
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        hashingStarted = new CountDownLatch(1);
+        hashingReleased = new CountDownLatch(1);
+        userRepository.save(new User("Load Test", EMAIL, passwordEncoder.encode("password")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        hashingReleased.countDown();
+        userRepository.findByEmail(EMAIL).ifPresent(userRepository::delete);
+    }
+
+    private HttpRequest signInRequest() {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/auth/signin"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"" + EMAIL + "\",\"password\":\"password\"}"))
+                .build();
+    }
+
+    @Test
+    void dashboardStaysResponsiveDuringSignInBurst() throws Exception {
+        String token = JwtProvider.generateToken(new UsernamePasswordAuthenticationToken(new JwtUser(EMAIL, "Load Test"), null));
+        // The timeout only stops a hang (the hashing thread is held until
+        // released below); it is not a latency target
+        HttpRequest dashboardRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/get-authenticated-user"))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+
+        List<CompletableFuture<HttpResponse<String>>> signIns = new ArrayList<>();
+        for (int i = 0; i < BURST; i++) {
+            signIns.add(client.sendAsync(signInRequest(), HttpResponse.BodyHandlers.ofString()));
+        }
+
+        // The only hashing thread is now held by the burst
+        assertTrue(hashingStarted.await(30, TimeUnit.SECONDS), "No sign-in reached the hashing thread");
+
+        // The dashboard API is still answered
+        HttpResponse<String> dashboard = client.send(dashboardRequest, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, dashboard.statusCode());
+        assertTrue(dashboard.body().contains(EMAIL));
+        assertTrue(signIns.stream().noneMatch(signIn -> signIn.isDone() && signIn.join().statusCode() == 200),
+                "A sign-in finished while the hashing thread was held");
+
+        hashingReleased.countDown();
+
+        int ok = 0;
+        int unavailable = 0;
+        for (CompletableFuture<HttpResponse<String>> signIn : signIns) {
+            int status = signIn.join().statusCode();
+            if (status == 200) {
+                ok++;
+            } else if (status == 503) {
+                unavailable++;
+            } else {
+                fail("Unexpected sign-in status " + status);
+            }
+        }
+
+        assertTrue(ok > 0, "No sign-ins succeeded");
+        assertTrue(unavailable > 0, "The burst was never refused");
+        assertEquals(BURST, ok + unavailable);
+
+        assertTrue(meterRegistry.get("auth.password.hash").tag("operation", "matches").timer().count() >= ok);
+        assertEquals(unavailable, meterRegistry.get("auth.password.rejected").counter().count(), 0.001);
+    }
+}
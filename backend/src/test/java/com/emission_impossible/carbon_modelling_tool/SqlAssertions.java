@@ -0,0 +1,30 @@
+package com.emission_impossible.carbon_modelling_tool;
+
+import com.emission_impossible.carbon_modelling_tool.metrics.SqlStatementCounter;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Assertions on the SQL a call executes, e.g.
+//
+//     List<EmissionsDataDTO> dtos = assertMaxStatements(1, () -> emissionsDataService.getEmissionsForLocation(id));
+//
+// Flush pending changes first (e.g. repository.flush()): otherwise Hibernate may
+// write them during the call, and those statements are counted too.
+final class SqlAssertions {
+
+    private SqlAssertions() {
+    }
+
+    static <T> T assertMaxStatements(long max, Supplier<T> call) {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open("assertMaxStatements")) {
+            T result = call.get();
+
+            assertTrue(scope.getStatements() <= max,
+                    String.format("Expected at most %d SQL statements, but %d were executed", max, scope.getStatements()));
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.emission_impossible.carbon_modelling_tool;
+
+import com.emission_impossible.carbon_modelling_tool.metrics.CountingDataSource;
+import com.emission_impossible.carbon_modelling_tool.metrics.SqlBudget;
+import com.emission_impossible.carbon_modelling_tool.metrics.SqlStatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * - Statements and rows read through the CountingDataSource are counted
+ * - A JDBC batch counts as one statement
+ * - Nested scopes each see the statements run inside them
+ * - Nothing is counted outside a scope
+ * - Going over the budget warns, or fails when configured to
+ */
+class SqlStatementCounterTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource h2 = new DriverManagerDataSource("jdbc:h2:mem:sql-counter;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(new CountingDataSource(h2));
+
+        jdbcTemplate.execute("DROP TABLE IF EXISTS readings");
+        jdbcTemplate.execute("CREATE TABLE readings (id INT PRIMARY KEY, reading DOUBLE)");
+        jdbcTemplate.batchUpdate("INSERT INTO readings VALUES (?, ?)",
+                List.of(new Object[]{1, 1.0}, new Object[]{2, 2.0}, new Object[]{3, 3.0}));
+    }
+
+    @Test
+    void countsStatementsAndRows() {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open("test")) {
+            List<Double> readings = jdbcTemplate.queryForList("SELECT reading FROM readings", Double.class);
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM readings", Long.class);
+
+            assertEquals(3, readings.size());
+            assertEquals(2, scope.getStatements());
+            assertEquals(4, scope.getRows());
+        }
+    }
+
+    @Test
+    void batchCountsOnce() {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open("test")) {
+            jdbcTemplate.batchUpdate("UPDATE readings SET reading = ? WHERE id = ?",
+                    List.of(new Object[]{10.0, 1}, new Object[]{20.0, 2}));
+
+            assertEquals(1, scope.getStatements());
+        }
+    }
+
+    @Test
+    void nestedScopesBothCount() {
+        try (SqlStatementCounter.Scope outer = SqlStatementCounter.open("request")) {
+            jdbcTemplate.queryForList("SELECT reading FROM readings", Double.class);
+
+            try (SqlStatementCounter.Scope inner = SqlStatementCounter.open("service")) {
+                jdbcTemplate.queryForList("SELECT reading FROM readings", Double.class);
+                assertEquals(1, inner.getStatements());
+            }
+
+            jdbcTemplate.queryForList("SELECT reading FROM readings", Double.class);
+            assertEquals(3, outer.getStatements());
+        }
+    }
+
+    @Test
+    void nothingCountedOutsideScope() {
+        jdbcTemplate.queryForList("SELECT reading FROM readings", Double.class);
+
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open("test")) {
+            assertEquals(0, scope.getStatements());
+            assertEquals(0, scope.getRows());
+        }
+    }
+
+    @Test
+    void budgetWarnsOrFails() {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open("getEmissions")) {
+            jdbcTemplate.queryForList("SELECT reading FROM readings", Double.class);
+            jdbcTemplate.queryForList("SELECT reading FROM readings", Double.class);
+
+            // Within budget
+            new SqlBudget(2, 100, true).check(scope);
+
+            // Over budget: only logged
+            assertDoesNotThrow(() -> new SqlBudget(1, 100, false).check(scope));
+
+            IllegalStateException statements = assertThrows(IllegalStateException.class, () -> new SqlBudget(1, 100, true).check(scope));
+            assertTrue(statements.getMessage().contains("getEmissions executed 2 SQL statements"));
+
+            assertThrows(IllegalStateException.class, () -> new SqlBudget(10, 5, true).check(scope));
+        }
+    }
+}
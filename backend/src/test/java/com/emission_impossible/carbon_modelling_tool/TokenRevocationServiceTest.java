@@ -0,0 +1,140 @@
+package com.emission_impossible.carbon_modelling_tool;
+
+import com.emission_impossible.carbon_modelling_tool.SecurityConfig.JwtProvider;
+import com.emission_impossible.carbon_modelling_tool.SecurityConfig.JwtTokenCache;
+import com.emission_impossible.carbon_modelling_tool.SecurityConfig.JwtTokenValidator;
+import com.emission_impossible.carbon_modelling_tool.SecurityConfig.JwtUser;
+import com.emission_impossible.carbon_modelling_tool.SecurityConfig.TokenRevocationService;
+import com.emission_impossible.carbon_modelling_tool.model.RevokedToken;
+import com.emission_impossible.carbon_modelling_tool.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * - Revoking a token records it and makes it revoked
+ * - Tokens that were never revoked are answered by the Bloom filter alone
+ * - Tokens revoked by another instance are picked up by the next sync
+ * - A token revoked while the filter is being loaded is not lost
+ * - The validator rejects revoked tokens, even once they are cached
+ */
+class TokenRevocationServiceTest extends BaseRepositoryTest {
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static String newToken(String email) {
+        return JwtProvider.generateToken(new UsernamePasswordAuthenticationToken(new JwtUser(email, "Test User"), null));
+    }
+
+    @Test
+    void revokedTokenIsRevoked() {
+        String token = newToken("revoked@example.com");
+
+        tokenRevocationService.revoke(token);
+
+        assertTrue(tokenRevocationService.isRevoked(JwtTokenCache.digest(token)));
+        assertTrue(revokedTokenRepository.existsByTokenDigest(JwtTokenCache.digest(token)));
+    }
+
+    @Test
+    void unrevokedTokenSkipsTheDatabase() {
+        long lookupsBefore = tokenRevocationService.getExactLookups();
+
+        // Another user's token: a different digest the filter has not seen
+        for (int i = 0; i < 100; i++) {
+            assertFalse(tokenRevocationService.isRevoked(JwtTokenCache.digest("never-revoked-" + i)));
+        }
+
+        // Allow for the odd Bloom filter false positive
+        assertTrue(tokenRevocationService.getExactLookups() - lookupsBefore < 10);
+    }
+
+    @Test
+    void tokenRevokedElsewhereIsRevokedAfterSync() {
+        // Syncs before every check
+        TokenRevocationService service = new TokenRevocationService(revokedTokenRepository, 1000, 0.01, Duration.ZERO);
+        service.load();
+
+        String digest = JwtTokenCache.digest(newToken("elsewhere@example.com"));
+        assertFalse(service.isRevoked(digest));
+
+        // As written by another instance's revoke
+        revokedTokenRepository.save(new RevokedToken(digest, Instant.now().plusSeconds(3600), Instant.now()));
+
+        assertTrue(service.isRevoked(digest));
+    }
+
+    @Test
+    void revokeDuringLoadIsKept() {
+        String token = newToken("during-load@example.com");
+        Set<String> saved = ConcurrentHashMap.newKeySet();
+        TokenRevocationService[] service = new TokenRevocationService[1];
+
+        // Revokes the token while load() reads the table, after the read
+        RevokedTokenRepository repository = (RevokedTokenRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{RevokedTokenRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "deleteExpired" -> 0;
+                    case "findAllTokenDigests" -> {
+                        service[0].revoke(token);
+                        yield List.of();
+                    }
+                    case "existsByTokenDigest" -> saved.contains((String) args[0]);
+                    case "save" -> {
+                        saved.add(((RevokedToken) args[0]).getTokenDigest());
+                        yield args[0];
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+
+        // Never stale, so only the filter can answer for tokens it has not seen
+        service[0] = new TokenRevocationService(repository, 1000, 0.01, Duration.ofHours(1));
+        service[0].load();
+
+        assertTrue(service[0].isRevoked(JwtTokenCache.digest(token)));
+    }
+
+    @Test
+    void validatorRejectsRevokedToken() throws Exception {
+        JwtTokenValidator validator = new JwtTokenValidator(new JwtTokenCache(100), tokenRevocationService);
+        String token = newToken("logout@example.com");
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/get-authenticated-user");
+        request.addHeader("Authorization", "Bearer " + token);
+
+        // Accepted, and now cached
+        validator.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        assertEquals("logout@example.com", SecurityContextHolder.getContext().getAuthentication().getName());
+
+        tokenRevocationService.revoke(token);
+
+        MockHttpServletRequest again = new MockHttpServletRequest("GET", "/api/get-authenticated-user");
+        again.addHeader("Authorization", "Bearer " + token);
+
+        assertThrows(BadCredentialsException.class,
+                () -> validator.doFilter(again, new MockHttpServletResponse(), new MockFilterChain()));
+    }
+}